@@ -0,0 +1,89 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.benchmarks;
+
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import org.argouml.argopdf.kernel.ReportUtils;
+import org.argouml.argopdf.kernel.TableUtils;
+import org.argouml.argopdf.kernel.helpers.ClassDiagramHelper;
+import org.argouml.kernel.Project;
+import org.argouml.kernel.ProjectManager;
+import org.argouml.model.Model;
+import org.omg.uml.foundation.core.Operation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the building blocks of the report: cells, tables, titles and operation strings,
+ * which are created for every element of the model.
+ *
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class KernelBenchmark {
+
+    private Project project;
+    private Operation operation;
+
+    @Setup(Level.Trial)
+    public void createModel() {
+        project = SyntheticModel.createProject(2, false);
+        Object umlClass = SyntheticModel.createClass(project.getModel(), "Sample", null);
+        //the last operation has the most parameters
+        operation = (Operation)Model.getFacade().getOperations(umlClass).get(SyntheticModel.OPERATIONS_PER_CLASS - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void removeModel() {
+        ProjectManager.getManager().removeProject(project);
+    }
+
+    @Benchmark
+    public PdfPCell createCell() {
+        return TableUtils.createCell("Class", "Class");
+    }
+
+    @Benchmark
+    public PdfPTable createImageLabelTable() {
+        return TableUtils.createImageLabelTable("Class", "Class");
+    }
+
+    @Benchmark
+    public Paragraph generateTitle() {
+        return ReportUtils.generateTitle("Package shop", 1, true);
+    }
+
+    @Benchmark
+    public String generatesOperationString() {
+        return ClassDiagramHelper.generatesOperationString(operation);
+    }
+}
@@ -0,0 +1,82 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.benchmarks;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import org.argouml.argopdf.kernel.ReportStyles;
+import org.argouml.argopdf.kernel.TableUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares layout of the table with icon and label cells: the nested layout, where every cell
+ * contains a table with the icon and the label, and the flat layout, where the icon is placed
+ * in the line of the label. Table is built and written to the discarded document, so the time
+ * of the layout is included. Allocated memory per table is measured by the <i>gc</i> profiler,
+ * see <i>benchmark</i> target of the build file.
+ *
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LayoutBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    @Param({"nested", "flat"})
+    public String layout;
+
+    @Benchmark
+    public Document writeTable() throws DocumentException {
+        float[] widths = "nested".equals(layout) ? ReportStyles.getInstance().getIconLabelWidths() : null;
+
+        PdfPTable table = TableUtils.generateTableCap(2);
+        for(int i = 0; i < rows; i++) {
+            table.addCell(TableUtils.createCell("Class" + i, "Class", widths));
+            table.addCell(TableUtils.createCell("Documentation of the class"));
+        }
+
+        Document document = new Document();
+        PdfWriter.getInstance(document, new OutputStream() {
+            public void write(int b) {
+            }
+
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        document.open();
+        document.add(table);
+        document.close();
+
+        return document;
+    }
+}
@@ -0,0 +1,113 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.benchmarks;
+
+import org.argouml.argopdf.kernel.IReport;
+import org.argouml.argopdf.kernel.PdfReport;
+import org.argouml.argopdf.kernel.ReportResult;
+import org.argouml.argopdf.kernel.ReportSelection;
+import org.argouml.kernel.Project;
+import org.argouml.kernel.ProjectManager;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures generation of the whole report of the synthetic model, with and without images of
+ * the diagrams. Diagrams are drawn as vector graphics, so GUI is not needed.
+ *
+ * Besides throughput, size of the written reports is reported by the <i>outputBytes</i> counter
+ * (sum for the iteration, to be divided by the <i>reports</i> counter). Allocation rate is
+ * measured by the <i>gc</i> profiler, see <i>benchmark</i> target of the build file.
+ *
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx2g"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ReportBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int classes;
+
+    @Param({"false", "true"})
+    public boolean diagrams;
+
+    private Project project;
+    private ReportSelection selection;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void createModel() throws IOException {
+        project   = SyntheticModel.createProject(classes, diagrams);
+        selection = ReportSelection.create(project);
+        selection.setSubtreeSelected(0, true);
+        output    = File.createTempFile("argopdf-benchmark", ".pdf");
+    }
+
+    @TearDown(Level.Trial)
+    public void removeModel() {
+        ProjectManager.getManager().removeProject(project);
+        output.delete();
+    }
+
+    @Benchmark
+    public ReportResult generateReport(OutputCounters counters) {
+        IReport report = new PdfReport();
+        report.setPath(output.getPath());
+        report.setTitle("Benchmark");
+        report.setAuthor("ArgoPDF");
+        report.setGenerateDiagrams(diagrams);
+        report.setVectorDiagrams(true);
+        report.setSelection(selection);
+
+        ReportResult result = report.generateReport();
+        counters.outputBytes += output.length();
+        counters.reports++;
+        return result;
+    }
+
+    /**
+     * Counters of the written reports
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class OutputCounters {
+        public long outputBytes;
+        public long reports;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            outputBytes = 0;
+            reports     = 0;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.benchmarks;
+
+import org.argouml.kernel.Project;
+import org.argouml.kernel.ProjectManager;
+import org.argouml.model.Model;
+import org.argouml.profile.init.InitProfileSubsystem;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.uml.diagram.DiagramFactory;
+import org.tigris.gef.graph.MutableGraphModel;
+
+/**
+ * SyntheticModel creates in-memory ArgoUML projects of the specified size for the benchmarks.
+ *
+ * Classes are placed in packages of <i>CLASSES_PER_PACKAGE</i> classes. Each class has documentation,
+ * attributes and operations with parameters, and is related to the previous class of its package by
+ * a generalization, an association or a dependency. If diagrams are requested, each package gets a
+ * class diagram, which shows all classes of the package.
+ *
+ * @version 0.1
+ */
+public class SyntheticModel {
+
+    public static final int CLASSES_PER_PACKAGE = 50;
+    public static final int ATTRIBUTES_PER_CLASS = 4;
+    public static final int OPERATIONS_PER_CLASS = 4;
+
+    private static final String MODEL_IMPLEMENTATION = "org.argouml.model.mdr.MDRModelImplementation";
+
+    private static boolean initialised;
+
+    /**
+     * Initialises model and profile subsystems of ArgoUML. GUI is not needed.
+     */
+    public static synchronized void initialise() {
+        if(initialised) return;
+
+        Throwable error = Model.initialise(MODEL_IMPLEMENTATION);
+        if(error != null) {
+            throw new IllegalStateException("Model can not be initialised: " + error.getMessage());
+        }
+        new InitProfileSubsystem().init();
+        initialised = true;
+    }
+
+    /**
+     * Creates project with the synthetic model
+     *
+     * @param classCount amount of classes of the model
+     * @param diagrams   true, if class diagrams of the packages should be created
+     * @return new project, which is the current project of ArgoUML
+     */
+    public static Project createProject(int classCount, boolean diagrams) {
+        initialise();
+
+        Project project = ProjectManager.getManager().makeEmptyProject();
+        Object model = project.getModel();
+
+        Object umlPackage = null;
+        MutableGraphModel graphModel = null;
+        Object previous = null;
+        for(int i = 0; i < classCount; i++) {
+            if(i % CLASSES_PER_PACKAGE == 0) {
+                umlPackage = Model.getModelManagementFactory().buildPackage("package" + (i / CLASSES_PER_PACKAGE));
+                Model.getCoreHelper().addOwnedElement(model, umlPackage);
+                if(diagrams) {
+                    ArgoDiagram diagram = DiagramFactory.getInstance().createDiagram(DiagramFactory.DiagramType.Class, umlPackage, null);
+                    project.addMember(diagram);
+                    graphModel = (MutableGraphModel)diagram.getGraphModel();
+                }
+                previous = null;
+            }
+
+            Object umlClass = createClass(umlPackage, "Class" + i, previous);
+            if(graphModel != null && graphModel.canAddNode(umlClass)) {
+                graphModel.addNode(umlClass);
+            }
+            previous = umlClass;
+        }
+
+        return project;
+    }
+
+    /**
+     * Creates class with documentation, attributes and operations
+     *
+     * @param namespace namespace of the class
+     * @param name      name of the class
+     * @param related   class, which the new class is related to, or null
+     * @return new class
+     */
+    public static Object createClass(Object namespace, String name, Object related) {
+        Object umlClass = Model.getCoreFactory().buildClass(name, namespace);
+        Model.getCoreHelper().addTaggedValue(umlClass, Model.getExtensionMechanismsFactory().buildTaggedValue(
+                "documentation", "Documentation of the class " + name + ", which is generated for the benchmarks."));
+
+        Object type = related != null ? related : umlClass;
+        for(int i = 0; i < ATTRIBUTES_PER_CLASS; i++) {
+            Object attribute = Model.getCoreFactory().buildAttribute2(umlClass, type);
+            Model.getCoreHelper().setName(attribute, "attribute" + i);
+        }
+        for(int i = 0; i < OPERATIONS_PER_CLASS; i++) {
+            Object operation = Model.getCoreFactory().buildOperation2(umlClass, type, "operation" + i);
+            for(int j = 0; j < i; j++) {
+                Object parameter = Model.getCoreFactory().buildParameter(operation, type);
+                Model.getCoreHelper().setName(parameter, "parameter" + j);
+            }
+        }
+
+        if(related != null) {
+            int kind = name.hashCode() % 3;
+            if(kind == 0) {
+                Model.getCoreFactory().buildGeneralization(umlClass, related);
+            } else if(kind == 1) {
+                Model.getCoreFactory().buildAssociation(umlClass, related);
+            } else {
+                Model.getCoreFactory().buildDependency(umlClass, related);
+            }
+        }
+
+        return umlClass;
+    }
+}
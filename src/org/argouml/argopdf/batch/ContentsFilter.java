@@ -0,0 +1,138 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.batch;
+
+import org.argouml.argopdf.kernel.ReportUtils;
+import org.argouml.argopdf.kernel.ReportSelection;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * ContentsFilter selects elements of the report contents by include and exclude patterns,
+ * so the report can be generated without the ArgoPDF dialog.
+ *
+ * Each element is identified by its path: names of the elements from the top of the contents separated
+ * by '/', for example <i>Use Case Diagrams/Login</i> or <i>shop/orders/Orders</i>. The root element,
+ * which represents the project, is not included in the path. Patterns may contain the following
+ * wildcards:
+ *      <u>
+ *          <li><i>*</i> - any characters in one name</li>
+ *          <li><i>**</i> - any characters, including '/'</li>
+ *          <li><i>?</i> - any single character in one name</li>
+ *      </u>
+ *
+ * An element, which matches an include pattern, is selected together with all its children. An element,
+ * which matches an exclude pattern, is not selected together with all its children. Parents of
+ * selected elements are selected too, so the selected elements are reached during report generation.
+ * If no include patterns are defined, all elements are included.
+ *
+ * @version 0.1
+ */
+public class ContentsFilter {
+
+    private List includes = new ArrayList();
+    private List excludes = new ArrayList();
+
+    /**
+     * Creates filter
+     *
+     * @param includePatterns list of include patterns. If empty, all elements are included.
+     * @param excludePatterns list of exclude patterns
+     */
+    public ContentsFilter(List includePatterns, List excludePatterns) {
+        for(Iterator it = includePatterns.iterator(); it.hasNext();) {
+            includes.add(compile((String)it.next()));
+        }
+        for(Iterator it = excludePatterns.iterator(); it.hasNext();) {
+            excludes.add(compile((String)it.next()));
+        }
+    }
+
+    /**
+     * Selects elements of the report contents according to the patterns
+     *
+     * @param selection selection of the report contents
+     */
+    public void apply(ReportSelection selection) {
+        select(selection, 0, null, includes.isEmpty());
+    }
+
+    /**
+     * Recursively selects element and its children
+     *
+     * @param selection      selection of the report contents
+     * @param index          index of the element to process
+     * @param path           path of the element, or null for the root element
+     * @param parentIncluded true, if parent of the element matches an include pattern
+     * @return true, if element was selected
+     */
+    private boolean select(ReportSelection selection, int index, String path, boolean parentIncluded) {
+        if(path != null && matches(excludes, path)) {
+            selection.setSubtreeSelected(index, false);
+            return false;
+        }
+
+        boolean included = parentIncluded || (path != null && matches(includes, path));
+        boolean childSelected = false;
+        int end = selection.getSubtreeEnd(index);
+        for(int child = index + 1; child < end; child = selection.getSubtreeEnd(child)) {
+            String name = ReportUtils.getElementName(selection.getElement(child));
+            if(select(selection, child, path == null ? name : path + "/" + name, included)) {
+                childSelected = true;
+            }
+        }
+
+        selection.setSelected(index, included || childSelected);
+        return included || childSelected;
+    }
+
+    private static boolean matches(List patterns, String path) {
+        for(Iterator it = patterns.iterator(); it.hasNext();) {
+            if(((Pattern)it.next()).matcher(path).matches()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Converts pattern with wildcards to the regular expression
+     *
+     * @param glob pattern with wildcards
+     * @return compiled regular expression
+     */
+    private static Pattern compile(String glob) {
+        StringBuffer regex = new StringBuffer();
+        for(int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if(c == '*') {
+                if(i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    regex.append(".*");
+                    i++;
+                } else {
+                    regex.append("[^/]*");
+                }
+            } else if(c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+
+        return Pattern.compile(regex.toString());
+    }
+}
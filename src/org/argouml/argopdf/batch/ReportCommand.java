@@ -0,0 +1,333 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.batch;
+
+import org.argouml.application.Main;
+import org.argouml.application.api.CommandLineInterface;
+import org.argouml.argopdf.kernel.DiagramImageCache;
+import org.argouml.argopdf.kernel.HtmlReport;
+import org.argouml.argopdf.kernel.IReport;
+import org.argouml.argopdf.kernel.ImagePolicy;
+import org.argouml.argopdf.kernel.PdfReport;
+import org.argouml.argopdf.kernel.ReportResult;
+import org.argouml.argopdf.kernel.ReportSelection;
+import org.argouml.kernel.Project;
+import org.argouml.kernel.ProjectManager;
+import org.argouml.model.Model;
+import org.argouml.persistence.OpenException;
+import org.argouml.persistence.PersistenceManager;
+import org.argouml.persistence.ProjectFilePersister;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ReportCommand generates reports without ArgoUML GUI, e.g. on a build server.
+ *
+ * It can be started by its <i>main</i> method, which starts ArgoUML in batch mode and then
+ * executes this command, or by ArgoUML itself:
+ * <pre>
+ *   java -cp ... org.argouml.argopdf.batch.ReportCommand [options] project.zargo ...
+ *   java -jar argouml.jar -batch -command org.argouml.argopdf.batch.ReportCommand="[options] project.zargo ..."
+ * </pre>
+ * Several projects can be processed at once, so ArgoUML and its model subsystem are started
+ * only one time. Projects are loaded and unloaded one by one.
+ *
+ * Report contents are selected by include and exclude patterns, see <i>ContentsFilter</i>.
+ *
+ * ArgoUML exits normally after the commands of the batch mode, even if they failed, so the command,
+ * which was started by <i>main</i>, exits itself with non-zero status, if any report was not generated.
+ * This way failed reports can be detected by the build server.
+ *
+ * @version 0.1
+ */
+public class ReportCommand implements CommandLineInterface {
+
+    private static final Logger LOG = Logger.getLogger(ReportCommand.class);
+
+    private static final String USAGE =
+        "Usage: ReportCommand [options] project.zargo [project.zargo ...]\n" +
+        "Options:\n" +
+        "  -o <path>          report file for one project, or directory for several projects.\n" +
+        "                     By default report is saved next to the project.\n" +
+        "  -include <pattern> includes matching contents, e.g. 'shop/**'. Can be repeated.\n" +
+        "  -exclude <pattern> excludes matching contents. Can be repeated.\n" +
+        "  -title <title>     title of the report. By default name of the model.\n" +
+        "  -author <name>     author of the report\n" +
+        "  -logo <path>       logo image of the title page\n" +
+        "  -html              generates HTML page with diagram images in a directory next to it\n" +
+        "  -notitlepage       does not generate title page\n" +
+        "  -notoc             does not generate table of contents\n" +
+        "  -nodiagrams        does not generate images of diagrams\n" +
+        "  -png               embeds diagrams as raster images instead of vector graphics\n" +
+        "  -dpi <dpi>         resolution of raster images on the page, 150 by default\n" +
+        "  -maxpixels <count> maximum amount of pixels of one raster image\n" +
+        "  -jpeg <quality>    encodes raster images as JPEG with quality from 0 to 100\n" +
+        "  -cache <dir>       directory of the cache of diagram images, ~/.argouml/argopdf/images by default\n" +
+        "  -nocache           does not cache images of diagrams\n" +
+        "  -tile              splits large diagrams into page-sized tiles with an overview page\n" +
+        "  -threads <count>   amount of worker threads\n" +
+        "  -incremental       generates again only chapters, which were changed since the last report\n";
+
+    //exit status of the process, if any report was not generated
+    private static final int EXIT_FAILURE = 1;
+
+    //true, if command was started by main, so it can exit the process
+    private static volatile boolean exitOnFailure;
+
+    private List projects = new ArrayList();
+    private List includes = new ArrayList();
+    private List excludes = new ArrayList();
+    private String output;
+    private String title;
+    private String author = "";
+    private String logo;
+    private boolean titlePage = true;
+    private boolean contents  = true;
+    private boolean diagrams  = true;
+    private boolean vector    = true;
+    private boolean tiled;
+    private boolean html;
+    private boolean incremental;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int dpi         = ImagePolicy.DEFAULT_DPI;
+    private int maxPixels   = ImagePolicy.DEFAULT_MAX_PIXELS;
+    private int jpegQuality = -1;
+    private File cacheDirectory = DiagramImageCache.getDefaultDirectory();
+
+    /**
+     * Starts ArgoUML in batch mode and generates reports. Process exits with non-zero status,
+     * if arguments are incorrect or any report was not generated.
+     *
+     * @param args options and projects, see <i>USAGE</i>
+     */
+    public static void main(String[] args) {
+        if(args.length == 0) {
+            System.err.print(USAGE);
+            System.exit(EXIT_FAILURE);
+        }
+
+        //arguments are separated by line breaks, so they can contain spaces
+        StringBuffer argument = new StringBuffer();
+        for(int i = 0; i < args.length; i++) {
+            if(i > 0) {
+                argument.append('\n');
+            }
+            argument.append(args[i]);
+        }
+
+        exitOnFailure = true;
+        Main.main(new String[] {"-nosplash", "-batch", "-command", ReportCommand.class.getName() + "=" + argument});
+    }
+
+    /**
+     * Generates reports of the projects
+     *
+     * @param argument options and projects separated by line breaks, or by whitespaces if
+     *                 there are no line breaks
+     * @return true, if all reports were generated successfully
+     * @see org.argouml.application.api.CommandLineInterface#doCommand(String)
+     */
+    public boolean doCommand(String argument) {
+        boolean success = generateReports(argument);
+        if(!success && exitOnFailure) {
+            System.exit(EXIT_FAILURE);
+        }
+
+        return success;
+    }
+
+    /**
+     * Generates reports of all projects
+     *
+     * @param argument options and projects, see <i>doCommand</i>
+     * @return true, if all reports were generated successfully
+     */
+    private boolean generateReports(String argument) {
+        String[] args = argument.indexOf('\n') >= 0 ? argument.split("\n") : argument.trim().split("\\s+");
+        if(!parseArguments(args)) {
+            System.err.print(USAGE);
+            return false;
+        }
+
+        boolean toDirectory = output != null && (projects.size() > 1 || new File(output).isDirectory());
+        boolean success = true;
+        for(int i = 0; i < projects.size(); i++) {
+            File projectFile = new File((String)projects.get(i));
+            File reportFile;
+            if(output == null) {
+                reportFile = new File(projectFile.getAbsoluteFile().getParentFile(), getReportName(projectFile));
+            } else if(toDirectory) {
+                reportFile = new File(output, getReportName(projectFile));
+            } else {
+                reportFile = new File(output);
+            }
+
+            if(!generateReport(projectFile, reportFile)) {
+                success = false;
+            }
+        }
+
+        return success;
+    }
+
+    /**
+     * Parses command line arguments
+     *
+     * @param args command line arguments
+     * @return true, if arguments are correct
+     */
+    private boolean parseArguments(String[] args) {
+        for(int i = 0; i < args.length; i++) {
+            String arg = args[i].trim();
+            if(arg.length() == 0) continue;
+
+            boolean hasValue = i + 1 < args.length;
+            if("-o".equals(arg) && hasValue) {
+                output = args[++i];
+            } else if("-include".equals(arg) && hasValue) {
+                includes.add(args[++i]);
+            } else if("-exclude".equals(arg) && hasValue) {
+                excludes.add(args[++i]);
+            } else if("-title".equals(arg) && hasValue) {
+                title = args[++i];
+            } else if("-author".equals(arg) && hasValue) {
+                author = args[++i];
+            } else if("-logo".equals(arg) && hasValue) {
+                logo = args[++i];
+            } else if("-cache".equals(arg) && hasValue) {
+                cacheDirectory = new File(args[++i]);
+            } else if("-threads".equals(arg) && hasValue) {
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                } catch(NumberFormatException ex) {
+                    System.err.println("Incorrect amount of threads: " + args[i]);
+                    return false;
+                }
+            } else if(("-dpi".equals(arg) || "-maxpixels".equals(arg) || "-jpeg".equals(arg)) && hasValue) {
+                int value;
+                try {
+                    value = Integer.parseInt(args[++i]);
+                } catch(NumberFormatException ex) {
+                    System.err.println("Incorrect value of " + arg + ": " + args[i]);
+                    return false;
+                }
+                if("-dpi".equals(arg)) {
+                    dpi = value;
+                } else if("-maxpixels".equals(arg)) {
+                    maxPixels = value;
+                } else {
+                    jpegQuality = value;
+                }
+            } else if("-notitlepage".equals(arg)) {
+                titlePage = false;
+            } else if("-html".equals(arg)) {
+                html = true;
+            } else if("-notoc".equals(arg)) {
+                contents = false;
+            } else if("-nodiagrams".equals(arg)) {
+                diagrams = false;
+            } else if("-png".equals(arg)) {
+                vector = false;
+            } else if("-nocache".equals(arg)) {
+                cacheDirectory = null;
+            } else if("-tile".equals(arg)) {
+                tiled = true;
+            } else if("-incremental".equals(arg)) {
+                incremental = true;
+            } else if(arg.startsWith("-")) {
+                System.err.println("Unknown option: " + arg);
+                return false;
+            } else {
+                projects.add(arg);
+            }
+        }
+
+        return projects.size() > 0;
+    }
+
+    /**
+     * Loads the project, generates its report and unloads the project
+     *
+     * @param projectFile file of the project
+     * @param reportFile  file of the report
+     * @return true, if report was generated successfully
+     */
+    private boolean generateReport(File projectFile, File reportFile) {
+        LOG.info("Generating report of " + projectFile + " to " + reportFile);
+
+        Project project;
+        try {
+            ProjectFilePersister persister = PersistenceManager.getInstance().getPersisterFromFileName(projectFile.getPath());
+            if(persister == null) {
+                System.err.println(projectFile + ": unknown project file format");
+                return false;
+            }
+            project = persister.doLoad(projectFile);
+        } catch(OpenException ex) {
+            LOG.debug(ex.getMessage());
+            System.err.println(projectFile + ": " + ex.getMessage());
+            return false;
+        } catch(InterruptedException ex) {
+            LOG.debug(ex.getMessage());
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        ProjectManager.getManager().setCurrentProject(project);
+        try {
+            ReportSelection selection = ReportSelection.create(project);
+            new ContentsFilter(includes, excludes).apply(selection);
+
+            IReport report = html ? (IReport)new HtmlReport() : new PdfReport();
+            report.setPath(reportFile.getPath());
+            report.setTitle(title != null ? title : Model.getFacade().getName(project.getModel()));
+            report.setAuthor(author);
+            report.setLogoPath(logo);
+            report.setGenerateTitlePage(titlePage);
+            report.setGenerateTableOfContents(contents);
+            report.setGenerateDiagrams(diagrams);
+            report.setVectorDiagrams(vector);
+            report.setTiledDiagrams(tiled);
+            ImagePolicy policy = jpegQuality >= 0 ? ImagePolicy.lossy(dpi, maxPixels, jpegQuality / 100f) :
+                                 ImagePolicy.lossless(dpi, maxPixels, ImagePolicy.DEFAULT_COMPRESSION_LEVEL);
+            report.setImagePolicy(policy.deriveCacheDirectory(cacheDirectory));
+            report.setWorkerThreads(threads);
+            report.setIncremental(incremental);
+            report.setSelection(selection);
+
+            ReportResult result = report.generateReport();
+            if(!result.isSuccessful()) {
+                System.err.println(projectFile + ": " + result.getMessage());
+                return false;
+            }
+
+            System.out.println(reportFile + ": " + result.getProcessedDiagrams() + " diagrams");
+            return true;
+        } finally {
+            ProjectManager.getManager().removeProject(project);
+        }
+    }
+
+    /**
+     * @param projectFile file of the project
+     * @return name of the report file, which corresponds to the project file
+     */
+    private String getReportName(File projectFile) {
+        String name = projectFile.getName();
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + (html ? ".html" : ".pdf");
+    }
+}
@@ -0,0 +1,399 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import com.lowagie.text.Chunk;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfCopy;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.RandomAccessFileOrArray;
+import com.lowagie.text.pdf.PdfWriter;
+import com.lowagie.text.pdf.SimpleBookmark;
+import com.lowagie.text.pdf.SimpleNamedDestination;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ChapterCache keeps chapters of the report as separate PDF files, so a report can be
+ * regenerated incrementally: only chapters, which fingerprints were changed, are generated
+ * again, and the report is stitched together from the chapter files.
+ *
+ * Chapter files are kept in the directory next to the report, named after the report file with
+ * <i>.chapters</i> suffix. Each file is named after the fingerprint of the chapter, so the file
+ * of an unchanged chapter is found without any index. Files, which were not used by the last
+ * report, are removed after the report is written.
+ *
+ * Links between chapters refer to named destinations, see <i>ElementIndex</i>. Destinations of all
+ * chapters are collected, when the report is stitched together, and elements, which are defined or
+ * referenced by the chapter, are kept next to the chapter file, so the element index of the report
+ * is complete even if the chapter was not generated again.
+ *
+ * @see ReportFingerprint
+ * @version 0.1
+ */
+public class ChapterCache {
+
+    private static final Logger LOG = Logger.getLogger(ChapterCache.class);
+
+    private static final String SUFFIX = ".pdf";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String ELEMENTS_SUFFIX = ".elements";
+    private static final String ENCODING = "UTF-8";
+    //fingerprint of the temporary file of table of contents
+    private static final String CONTENTS = "contents";
+
+    private File directory;
+    //chapter files of the report in the order of the report
+    private List chapters = new ArrayList();
+
+    /**
+     * Creates cache of the report chapters
+     *
+     * @param reportPath path of the report
+     */
+    public ChapterCache(String reportPath) {
+        directory = new File(reportPath + ".chapters");
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            LOG.debug("Can not create directory " + directory);
+        }
+    }
+
+    /**
+     * @param fingerprint fingerprint of the chapter
+     * @return true, if chapter with the specified fingerprint was generated before
+     */
+    public boolean contains(String fingerprint) {
+        return getFile(fingerprint).isFile();
+    }
+
+    /**
+     * Adds chapter to the report
+     *
+     * @param fingerprint fingerprint of the chapter. Chapter should be contained in the cache.
+     */
+    public void addChapter(String fingerprint) {
+        chapters.add(getFile(fingerprint));
+    }
+
+    /**
+     * Returns temporary file, where new chapter should be written. After the chapter is written,
+     * <i>commit(String fingerprint)</i> method should be called.
+     *
+     * @param fingerprint fingerprint of the chapter
+     * @return temporary file of the chapter
+     */
+    public File getTempFile(String fingerprint) {
+        return new File(directory, fingerprint + SUFFIX + TEMP_SUFFIX);
+    }
+
+    /**
+     * Replaces the chapter file by the temporary file, which was written completely, and
+     * adds chapter to the report.
+     *
+     * @param fingerprint fingerprint of the chapter
+     * @return true, if chapter was stored
+     */
+    public boolean commit(String fingerprint) {
+        File file = getFile(fingerprint);
+        file.delete();
+        if(!getTempFile(fingerprint).renameTo(file)) {
+            LOG.debug("Can not rename chapter file " + file);
+            return false;
+        }
+
+        addChapter(fingerprint);
+        return true;
+    }
+
+    /**
+     * Removes temporary file of the chapter, which was not written completely
+     *
+     * @param fingerprint fingerprint of the chapter
+     */
+    public void discard(String fingerprint) {
+        getTempFile(fingerprint).delete();
+    }
+
+    /**
+     * Stores elements, which are defined or referenced by the chapter
+     *
+     * @param fingerprint fingerprint of the chapter
+     * @param elements    entries of the element index, see <i>ElementIndex.stopRecording</i>
+     */
+    public void writeElements(String fingerprint, List elements) {
+        BufferedWriter writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(getElementsFile(fingerprint)), ENCODING));
+            for(Object o : elements) {
+                writer.write((String)o);
+                writer.newLine();
+            }
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+        } finally {
+            if(writer != null) {
+                try {
+                    writer.close();
+                } catch(IOException ex) {
+                    LOG.debug(ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns elements, which are defined or referenced by the chapter
+     *
+     * @param fingerprint fingerprint of the chapter
+     * @return entries of the element index, or empty list, if they were not stored
+     */
+    public List readElements(String fingerprint) {
+        List elements = new ArrayList();
+        File file = getElementsFile(fingerprint);
+        if(!file.isFile()) return elements;
+
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+            String line;
+            while((line = reader.readLine()) != null) {
+                elements.add(line);
+            }
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+        } finally {
+            if(reader != null) {
+                try {
+                    reader.close();
+                } catch(IOException ex) {
+                    LOG.debug(ex.getMessage());
+                }
+            }
+        }
+
+        return elements;
+    }
+
+    /**
+     * Writes the report, which consists of the title page and all added chapters.
+     * Bookmarks and named destinations of the chapters are kept in the report.
+     *
+     * @param document  document, which metadata are defined, but which is not opened yet
+     * @param out       stream, to which the report is written
+     * @param titlePage file with the title page of the report, or null if report has no title page
+     * @param contents  table of contents, which is filled from the bookmarks of the chapters and placed
+     *                  after the title page, or null if report has no table of contents
+     * @return amount of pages of the report
+     * @throws IOException       if chapter file can not be read or report can not be written
+     * @throws DocumentException if report can not be written
+     */
+    public int writeReport(Document document, OutputStream out, File titlePage, TableOfContents contents) throws IOException, DocumentException {
+        List files = new ArrayList();
+        if(titlePage != null) {
+            files.add(titlePage);
+        }
+        files.addAll(chapters);
+
+        if(files.isEmpty()) {
+            //report without pages can not be saved
+            PdfWriter.getInstance(document, out);
+            document.open();
+            document.add(Chunk.NEWLINE);
+            document.close();
+            return 1;
+        }
+
+        HashMap destinations = new HashMap();
+        File contentsFile = getTempFile(CONTENTS);
+        try {
+            if(contents != null) {
+                int contentsPages = writeContents(contents, titlePage, contentsFile, document.getPageSize());
+                if(contentsPages > 0) {
+                    files.add(titlePage != null ? 1 : 0, contentsFile);
+                    destinations.putAll(contents.getDestinations(contentsPages));
+                }
+            }
+
+            return writeFiles(document, out, files, destinations);
+        } finally {
+            contentsFile.delete();
+        }
+    }
+
+    /**
+     * Fills table of contents from the bookmarks of the chapters and writes it to the file
+     *
+     * @param contents     table of contents
+     * @param titlePage    file with the title page of the report, or null
+     * @param contentsFile file, to which table of contents is written
+     * @param pageSize     size of the pages of the report
+     * @return amount of pages of table of contents, or 0 if report does not contain any chapter
+     */
+    private int writeContents(TableOfContents contents, File titlePage, File contentsFile, Rectangle pageSize)
+            throws IOException, DocumentException {
+        List files = new ArrayList();
+        if(titlePage != null) {
+            files.add(titlePage);
+        }
+        files.addAll(chapters);
+
+        //only bookmarks are needed, so files are read partially
+        int pageOffset = 0;
+        for(Object o : files) {
+            PdfReader reader = new PdfReader(new RandomAccessFileOrArray(((File)o).getPath()), null);
+            List bookmarks = o != titlePage ? SimpleBookmark.getBookmark(reader) : null;
+            if(bookmarks != null) {
+                if(pageOffset != 0) {
+                    SimpleBookmark.shiftPageNumbers(bookmarks, pageOffset, null);
+                }
+                contents.addBookmarks(bookmarks);
+            }
+            pageOffset += reader.getNumberOfPages();
+            reader.close();
+        }
+
+        return contents.isEmpty() ? 0 : contents.writeFile(contentsFile, pageSize);
+    }
+
+    /**
+     * Copies pages of the files to the report
+     *
+     * @param document     document of the report
+     * @param out          stream, to which the report is written
+     * @param files        files of the title page, table of contents and chapters
+     * @param destinations named destinations, which are not defined by the files
+     * @return amount of pages of the report
+     */
+    private int writeFiles(Document document, OutputStream out, List files, HashMap destinations)
+            throws IOException, DocumentException {
+        PdfCopy copy = new PdfCopy(document, out);
+        document.open();
+
+        ArrayList outlines = new ArrayList();
+        int pageOffset = 0;
+        for(Object o : files) {
+            PdfReader reader = new PdfReader(((File)o).getPath());
+            addDestinations(destinations, SimpleNamedDestination.getNamedDestination(reader, false), pageOffset);
+            //links to the destinations of the same chapter refer to its pages directly,
+            //links to other chapters keep the names of the destinations
+            reader.consolidateNamedDestinations();
+
+            List bookmarks = SimpleBookmark.getBookmark(reader);
+            if(bookmarks != null) {
+                if(pageOffset != 0) {
+                    SimpleBookmark.shiftPageNumbers(bookmarks, pageOffset, null);
+                }
+                outlines.addAll(bookmarks);
+            }
+
+            int pages = reader.getNumberOfPages();
+            for(int i = 1; i <= pages; i++) {
+                copy.addPage(copy.getImportedPage(reader, i));
+            }
+            copy.freeReader(reader);
+            reader.close();
+            pageOffset += pages;
+        }
+
+        if(!outlines.isEmpty()) {
+            copy.setOutlines(outlines);
+        }
+        if(!destinations.isEmpty()) {
+            PdfDictionary names = new PdfDictionary();
+            names.put(PdfName.DESTS, copy.addToBody(SimpleNamedDestination.outputNamedDestinationAsStrings(destinations, copy)).getIndirectReference());
+            copy.getExtraCatalog().put(PdfName.NAMES, copy.addToBody(names).getIndirectReference());
+        }
+        document.close();
+        return pageOffset;
+    }
+
+    /**
+     * Adds named destinations of the chapter to the destinations of the report. If destination
+     * is defined by several chapters, the first one is used.
+     *
+     * @param destinations destinations of the report
+     * @param chapter      destinations of the chapter, as they are returned by <i>SimpleNamedDestination</i>
+     * @param pageOffset   amount of pages of the report before the chapter
+     */
+    private static void addDestinations(HashMap destinations, HashMap chapter, int pageOffset) {
+        for(Iterator it = chapter.entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Map.Entry)it.next();
+            if(destinations.containsKey(entry.getKey())) continue;
+
+            //destination starts with the number of the page
+            String value = ((String)entry.getValue()).trim();
+            int space = value.indexOf(' ');
+            try {
+                int page = Integer.parseInt(space > 0 ? value.substring(0, space) : value);
+                destinations.put(entry.getKey(), (page + pageOffset) + (space > 0 ? value.substring(space) : ""));
+            } catch(NumberFormatException ex) {
+                LOG.debug(ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Removes chapter files, which are not used by the report
+     */
+    public void removeUnused() {
+        HashSet used = new HashSet(chapters);
+        File[] files = directory.listFiles();
+        if(files == null) return;
+
+        for(int i = 0; i < files.length; i++) {
+            String name = files[i].getName();
+            if(name.endsWith(SUFFIX) && !used.contains(files[i])) {
+                files[i].delete();
+            } else if(name.endsWith(ELEMENTS_SUFFIX)) {
+                String fingerprint = name.substring(0, name.length() - ELEMENTS_SUFFIX.length());
+                if(!used.contains(getFile(fingerprint))) {
+                    files[i].delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return file, where title page of the report is written
+     */
+    public File getTitlePageFile() {
+        return new File(directory, "title" + SUFFIX + TEMP_SUFFIX);
+    }
+
+    private File getFile(String fingerprint) {
+        return new File(directory, fingerprint + SUFFIX);
+    }
+
+    private File getElementsFile(String fingerprint) {
+        return new File(directory, fingerprint + ELEMENTS_SUFFIX);
+    }
+}
@@ -0,0 +1,279 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * DiagramImageCache keeps rendered images of diagrams on disk, so diagrams, which were not changed
+ * since the last report, are not rendered again.
+ *
+ * Images are stored as files named after the key of the image: fingerprint of the diagram and
+ * settings of the rendering. Last modification time of the file is updated, when the image is used,
+ * and the least recently used images are removed, when the total size of the cache exceeds its limit.
+ * Total size is counted once, when the cache is created, and then kept up to date by the cache itself,
+ * so the directory is explored again only when the limit is exceeded.
+ *
+ * Cache can be used by several reports at the same time, also from different processes: image is
+ * written to a temporary file and then renamed, so readers never see partially written images.
+ * If an image is removed while it is read, it is just rendered again.
+ *
+ * @see ReportFingerprint
+ * @see ImagePolicy#deriveCacheDirectory(File)
+ * @version 0.1
+ */
+public class DiagramImageCache {
+
+    private static final Logger LOG = Logger.getLogger(DiagramImageCache.class);
+
+    //default limit of the cache size, in bytes
+    public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+    //images are encoded as PNG or JPEG according to the image policy, which is a part of the key
+    private static final String SUFFIX = ".img";
+    private static final long STALE_TEMP_FILE_AGE = 60L * 60 * 1000;
+    //changed when diagrams are rendered in another way, so images of the old renderer are not used
+    private static final int RENDERER_VERSION = 2;
+
+    //caches by their directories, so reports, which use the same directory, share the total size
+    private static HashMap instances = new HashMap();
+
+    private File directory;
+    private long maxSize = DEFAULT_MAX_SIZE;
+    //total size of the files in the directory, in bytes
+    private long size;
+
+    /**
+     * Creates cache of diagram images
+     *
+     * @param directory directory, where images are kept
+     */
+    public DiagramImageCache(File directory) {
+        this.directory = directory;
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            LOG.debug("Can not create directory " + directory);
+        }
+        size = scan(null);
+    }
+
+    /**
+     * @return directory of the cache in the ArgoUML directory of the user
+     */
+    public static File getDefaultDirectory() {
+        File home = new File(System.getProperty("user.home"), ".argouml");
+        return new File(home, "argopdf" + File.separator + "images");
+    }
+
+    /**
+     * Returns cache, which keeps images in the given directory. Only one cache is created for each directory.
+     *
+     * @param directory directory, where images are kept
+     * @return cache of diagram images
+     */
+    public static synchronized DiagramImageCache getInstance(File directory) {
+        File absolute = directory.getAbsoluteFile();
+        DiagramImageCache cache = (DiagramImageCache)instances.get(absolute);
+        if(cache == null) {
+            cache = new DiagramImageCache(absolute);
+            instances.put(absolute, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Returns key of the image
+     *
+     * @param fingerprint fingerprint of the diagram
+     * @param scale       scale of the image
+     * @param format      key of the image policy, which defines the encoding of the image
+     * @return key of the image
+     */
+    public static String getKey(String fingerprint, float scale, String format) {
+        return fingerprint + "-" + Math.round(scale * 1000) + "-" + format + "-" + RENDERER_VERSION;
+    }
+
+    /**
+     * Sets limit of the total size of the cached images
+     *
+     * @param maxSize limit of the cache size, in bytes
+     */
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the encoded image
+     *
+     * @param key key of the image
+     * @return encoded image, or null if image is not contained in the cache
+     */
+    public byte[] get(String key) {
+        File file = new File(directory, key + SUFFIX);
+        if(!file.isFile()) return null;
+
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream((int)file.length());
+            byte[] buffer = new byte[8192];
+            int count;
+            while((count = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, count);
+            }
+
+            //image becomes the most recently used one
+            file.setLastModified(System.currentTimeMillis());
+            return bytes.toByteArray();
+        } catch(IOException ex) {
+            //image could be removed by another report
+            LOG.debug(ex.getMessage());
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Stores the encoded image and removes the least recently used images, if cache is too big
+     *
+     * @param key   key of the image
+     * @param image encoded image
+     */
+    public void put(String key, byte[] image) {
+        if(image == null || image.length == 0 || image.length > maxSize) return;
+
+        File temp = null;
+        OutputStream out = null;
+        try {
+            temp = File.createTempFile(key, ".tmp", directory);
+            out = new FileOutputStream(temp);
+            out.write(image);
+            out.close();
+            out = null;
+
+            File file = new File(directory, key + SUFFIX);
+            //length of the image, which is replaced by the same image of another report
+            long replaced = file.length();
+            if(temp.renameTo(file)) {
+                added(image.length - replaced);
+            } else {
+                //image was stored by another report at the same time
+                temp.delete();
+            }
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+            if(temp != null) {
+                temp.delete();
+            }
+        } finally {
+            close(out);
+        }
+    }
+
+    /**
+     * Updates total size of the cache and removes the least recently used images, if it exceeds the limit
+     *
+     * @param delta change of the total size, in bytes
+     */
+    private synchronized void added(long delta) {
+        size += delta;
+        if(size <= maxSize) return;
+
+        //other processes could change the directory, so the real size is counted again
+        File[] files = directory.listFiles();
+        if(files == null) return;
+
+        final long[] used = new long[files.length];
+        size = scan(files);
+        for(int i = 0; i < files.length; i++) {
+            used[i] = files[i].lastModified();
+        }
+        if(size <= maxSize) return;
+
+        Integer[] order = new Integer[files.length];
+        for(int i = 0; i < order.length; i++) {
+            order[i] = new Integer(i);
+        }
+        Arrays.sort(order, new Comparator() {
+            public int compare(Object o1, Object o2) {
+                long t1 = used[((Integer)o1).intValue()];
+                long t2 = used[((Integer)o2).intValue()];
+                return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+            }
+        });
+
+        for(int i = 0; i < order.length && size > maxSize; i++) {
+            File file = files[order[i].intValue()];
+            if(!file.getName().endsWith(SUFFIX)) continue;
+
+            long length = file.length();
+            if(file.delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    /**
+     * Counts total size of the files in the directory and removes temporary files of reports,
+     * which were terminated while writing an image
+     *
+     * @param files files of the directory, or null if the directory needs to be listed
+     * @return total size of the files, in bytes
+     */
+    private long scan(File[] files) {
+        if(files == null) {
+            files = directory.listFiles();
+            if(files == null) return 0;
+        }
+
+        long total = 0;
+        long staleTime = System.currentTimeMillis() - STALE_TEMP_FILE_AGE;
+        for(int i = 0; i < files.length; i++) {
+            //files of the other suffixes are also left by the old versions of the cache
+            if(!files[i].getName().endsWith(SUFFIX) && files[i].lastModified() < staleTime) {
+                files[i].delete();
+            }
+            total += files[i].length();
+        }
+        return total;
+    }
+
+    private static void close(InputStream in) {
+        if(in == null) return;
+        try {
+            in.close();
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+        }
+    }
+
+    private static void close(OutputStream out) {
+        if(out == null) return;
+        try {
+            out.close();
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,564 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import org.argouml.uml.diagram.ArgoDiagram;
+import com.lowagie.text.BadElementException;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Image;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfTemplate;
+import com.lowagie.text.pdf.PdfWriter;
+import org.apache.log4j.Logger;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides images of the diagrams to the report helpers. Diagram is rendered only
+ * when its image is requested, so if diagrams are not included to the report, no
+ * rendering is done at all.
+ *
+ * Diagrams can be embedded either as raster images or as vector graphics, which are
+ * drawn directly into the report. If diagram can not be drawn as vector graphics,
+ * raster image is used instead. Raster images are rendered with the resolution, which
+ * they have on the page of the document, and encoded according to the image policy.
+ *
+ * Vector graphics is drawn into templates of the writer, which changes the writer. Images can be
+ * requested on the worker threads of <i>ReportPipeline</i>, while the thread of the writer adds
+ * other sections to the document, so such images are returned as placeholders of the right size.
+ * They are drawn by <i>completeImages()</i> on the thread of the writer, before their section is
+ * added to the document. Raster images do not depend on the writer and are completed at once.
+ *
+ * Diagrams, which would be unreadable on one page, can be split into tiles, see <i>DiagramTiling</i>.
+ * Then an overview image of the whole diagram with the numbered tiles is followed by the tiles,
+ * each of them on its own page. Tiles of raster images are rendered one by one, so only the memory
+ * for one tile is needed. Tiles of vector graphics share the graphics of the whole diagram. Overview
+ * and vector tiles are templates of the writer, so they are placeholders too.
+ *
+ * @version 0.1
+ */
+public class DiagramImageProvider {
+
+    private static final Logger LOG = Logger.getLogger(DiagramImageProvider.class);
+
+    //resolution of the overview image of the tiled diagram
+    private static final int OVERVIEW_DPI = 72;
+    //space for the caption of the tile above its image, in points
+    private static final float TILE_CAPTION_HEIGHT = 72f;
+    //size of the tile numbers on the overview image, in points on the page
+    private static final float TILE_NUMBER_SIZE = 14f;
+    private static final Color TILE_COLOR = new Color(0x80, 0x80, 0x80);
+
+    private boolean enabled;
+    private boolean vector;
+    private PdfWriter writer;
+    private ReportMetrics metrics;
+    private ImagePolicy policy;
+    private float maxWidth;
+    private float maxHeight;
+    private boolean tiled;
+
+    //tasks, which complete the placeholders on the thread of the writer
+    private List deferred = new ArrayList();
+
+    /**
+     * Creates diagram image provider, which renders diagrams as PNG images
+     *
+     * @param enabled true, if images of the diagrams should be added to the report
+     */
+    public DiagramImageProvider(boolean enabled) {
+        this(enabled, false, null);
+    }
+
+    /**
+     * Creates diagram image provider
+     *
+     * @param enabled true, if images of the diagrams should be added to the report
+     * @param vector  true, if diagrams should be drawn as vector graphics
+     * @param writer  writer of the current document. It is needed to draw vector graphics.
+     */
+    public DiagramImageProvider(boolean enabled, boolean vector, PdfWriter writer) {
+        this(enabled, vector, writer, null);
+    }
+
+    /**
+     * Creates diagram image provider, which measures rendering of the diagrams
+     *
+     * @param enabled true, if images of the diagrams should be added to the report
+     * @param vector  true, if diagrams should be drawn as vector graphics
+     * @param writer  writer of the current document. It is needed to draw vector graphics.
+     * @param metrics metrics of the report, or null
+     */
+    public DiagramImageProvider(boolean enabled, boolean vector, PdfWriter writer, ReportMetrics metrics) {
+        this(enabled, vector, writer, metrics, null, null);
+    }
+
+    /**
+     * Creates diagram image provider, which renders raster images of the diagrams according to the image policy
+     *
+     * @param enabled  true, if images of the diagrams should be added to the report
+     * @param vector   true, if diagrams should be drawn as vector graphics
+     * @param writer   writer of the current document. It is needed to draw vector graphics.
+     * @param metrics  metrics of the report, or null
+     * @param policy   image policy of the report, or null if default policy should be used
+     * @param document current document, which page size limits the size of the images, or null
+     */
+    public DiagramImageProvider(boolean enabled, boolean vector, PdfWriter writer, ReportMetrics metrics,
+                                ImagePolicy policy, Document document) {
+        this.enabled = enabled;
+        this.vector  = vector && writer != null;
+        this.writer  = writer;
+        this.metrics = metrics != null ? metrics : new ReportMetrics();
+        this.policy  = policy != null ? policy : ImagePolicy.getDefault();
+        if(document != null) {
+            maxWidth  = ReportUtils.getPageAreaWidth(document);
+            maxHeight = ReportUtils.getPageAreaHeight(document);
+        }
+    }
+
+    /**
+     * @return true, if images of the diagrams should be added to the report
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true, if diagrams are drawn as vector graphics
+     */
+    public boolean isVector() {
+        return vector;
+    }
+
+    /**
+     * @return true, if large diagrams are split into tiles
+     */
+    public boolean isTiled() {
+        return tiled;
+    }
+
+    /**
+     * Defines, whether diagrams, which would be unreadable on one page, are split into tiles
+     *
+     * @param tiled true, if large diagrams should be split into tiles
+     */
+    public void setTiled(boolean tiled) {
+        this.tiled = tiled;
+    }
+
+    /**
+     * Renders images of the diagram. If tiling is enabled and the diagram is too large to be readable
+     * on one page, first image is the overview of the whole diagram and the next images are its tiles.
+     * Otherwise the only image of the diagram is returned.
+     *
+     * @param diagram diagram, which images are needed
+     * @return list of <i>Image</i> instances, which is empty if images are disabled or diagram
+     *         can not be rendered
+     */
+    public List getImages(final ArgoDiagram diagram) {
+        List images = new ArrayList();
+        if(!enabled || diagram == null) return images;
+
+        DiagramTiling tiling = null;
+        if(tiled && writer != null && maxWidth > 0) {
+            Dimension size = ReportUtils.getDiagramSize(diagram);
+            if(size != null) {
+                tiling = DiagramTiling.create(size.width, size.height, maxWidth, maxHeight - TILE_CAPTION_HEIGHT);
+            }
+        }
+
+        if(tiling == null) {
+            Image im = getImage(diagram);
+            if(im != null) {
+                images.add(im);
+            }
+            return images;
+        }
+
+        //templates of the overview and of the vector tiles belong to the writer, so they are placeholders,
+        //which are drawn by completeImages(). Only raster images are rendered here.
+        final Image overview = createPlaceholder(tiling.getWidth(), tiling.getHeight());
+        //fingerprint of the diagram is the same for the overview and all tiles
+        String fingerprint = vector ? null : getFingerprint(diagram);
+        final Image overviewRaster = vector ? null : makeOverviewRaster(diagram, fingerprint);
+        if(overview == null || (!vector && overviewRaster == null)) return images;
+        images.add(overview);
+        metrics.increment(ReportMetrics.IMAGES, 1);
+
+        final Image[] tiles = new Image[tiling.getTileCount()];
+        for(int i = 0; i < tiles.length; i++) {
+            Rectangle tile = tiling.getTile(i);
+            tiles[i] = vector ? createPlaceholder(tile.width, tile.height) : makeRasterTile(diagram, tile, fingerprint);
+            if(tiles[i] != null) {
+                images.add(tiles[i]);
+                metrics.increment(ReportMetrics.IMAGES, 1);
+            }
+        }
+
+        final DiagramTiling diagramTiling = tiling;
+        defer(new Runnable() {
+            public void run() {
+                completeTiledImages(diagram, diagramTiling, overview, overviewRaster, tiles);
+            }
+        });
+
+        return images;
+    }
+
+    /**
+     * Renders an image of the diagram. Image of the vector graphics is a placeholder, which is drawn
+     * by <i>completeImages()</i>.
+     *
+     * @param diagram diagram, which image is needed
+     * @return image of the diagram, or null if images are disabled or diagram can not be rendered
+     */
+    public Image getImage(final ArgoDiagram diagram) {
+        if(!enabled || diagram == null) return null;
+
+        if(vector) {
+            Dimension size = ReportUtils.getDiagramSize(diagram);
+            if(size == null) return null;
+
+            final Image im = createPlaceholder(size.width, size.height);
+            if(im == null) return null;
+
+            defer(new Runnable() {
+                public void run() {
+                    completeVectorImage(diagram, im);
+                }
+            });
+            metrics.increment(ReportMetrics.IMAGES, 1);
+            return im;
+        }
+
+        Image im = makeRasterImage(diagram);
+        if(im != null) {
+            metrics.increment(ReportMetrics.IMAGES, 1);
+        }
+
+        return im;
+    }
+
+    /**
+     * Draws the placeholders of the images, which were returned since the last call. This method
+     * must be called on the thread of the writer before the sections with the images are added to
+     * the document.
+     */
+    public void completeImages() {
+        List tasks;
+        synchronized(deferred) {
+            if(deferred.isEmpty()) return;
+
+            tasks = new ArrayList(deferred);
+            deferred.clear();
+        }
+
+        for(Object task : tasks) {
+            ((Runnable)task).run();
+        }
+    }
+
+    /**
+     * Adds the task, which completes the placeholder on the thread of the writer
+     */
+    private void defer(Runnable task) {
+        synchronized(deferred) {
+            deferred.add(task);
+        }
+    }
+
+    /**
+     * Creates image, which is drawn later by <i>completeImages()</i>. Template of the placeholder does
+     * not belong to the writer, so it can be created on any thread. Copies of the image share its template,
+     * so they show the template, which replaces the placeholder.
+     *
+     * @param width  width of the image
+     * @param height height of the image
+     * @return image of the placeholder, or null if it can not be created
+     */
+    private static Image createPlaceholder(float width, float height) {
+        try {
+            return Image.getInstance(new Placeholder(width, height));
+        } catch(BadElementException ex) {
+            LOG.debug(ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Draws the diagram as vector graphics instead of the placeholder. If diagram can not be drawn as
+     * vector graphics, its raster image is placed into the template instead.
+     *
+     * @param diagram diagram, which needs to be drawn
+     * @param im      placeholder of the diagram
+     */
+    private void completeVectorImage(ArgoDiagram diagram, Image im) {
+        long start = metrics.start();
+        Image vectorImage = ReportUtils.makeVectorImageOfDiagram(diagram, writer.getDirectContent());
+        metrics.stop(ReportMetrics.DIAGRAM_RENDER, start);
+        if(vectorImage != null) {
+            im.setTemplateData(vectorImage.templateData());
+            return;
+        }
+        LOG.debug("Can not draw diagram as vector graphics, raster image is used: " + diagram.getName());
+
+        float width  = im.templateData().getWidth();
+        float height = im.templateData().getHeight();
+        PdfTemplate tp = writer.getDirectContent().createTemplate(width, height);
+        Image raster = makeRasterImage(diagram);
+        if(raster != null) {
+            try {
+                tp.addImage(raster, width, 0, 0, height, 0, 0);
+            } catch(DocumentException ex) {
+                LOG.debug(ex.getMessage());
+            }
+        }
+        im.setTemplateData(tp);
+    }
+
+    /**
+     * Renders raster image of the diagram with the resolution of the image policy
+     *
+     * @param diagram diagram, which image is needed
+     * @return image of the diagram, or null if diagram can not be rendered
+     */
+    private Image makeRasterImage(ArgoDiagram diagram) {
+        //image is encoded right after it is painted, so encoding is measured together with rendering
+        long start = metrics.start();
+        float scale = ReportUtils.getImageScale(diagram, policy, maxWidth, maxHeight);
+        byte[] data = ReportUtils.renderImageOfDiagram(diagram, policy, scale);
+        metrics.stop(ReportMetrics.DIAGRAM_RENDER, start);
+
+        start = metrics.start();
+        Image im = ReportUtils.decodeImageOfDiagram(data, scale);
+        metrics.stop(ReportMetrics.IMAGE_DECODE, start);
+
+        return im;
+    }
+
+    /**
+     * Draws the whole diagram as vector graphics, which is shared by the overview and the tiles
+     *
+     * @param diagram diagram, which needs to be drawn
+     * @return template with the diagram, or null if diagram can not be drawn as vector graphics
+     */
+    private PdfTemplate makeVectorTemplate(ArgoDiagram diagram) {
+        long start = metrics.start();
+        Image im = ReportUtils.makeVectorImageOfDiagram(diagram, writer.getDirectContent());
+        metrics.stop(ReportMetrics.DIAGRAM_RENDER, start);
+        if(im == null) {
+            LOG.debug("Can not draw diagram as vector graphics, raster image is used: " + diagram.getName());
+            return null;
+        }
+
+        return im.templateData();
+    }
+
+    /**
+     * Draws the placeholders of the tiled diagram: the overview and, if diagram is drawn as vector
+     * graphics, its tiles. If diagram can not be drawn as vector graphics, raster images are placed
+     * into the templates instead.
+     *
+     * @param diagram        diagram, which is tiled
+     * @param tiling         tiles of the diagram
+     * @param overview       placeholder of the overview
+     * @param overviewRaster raster image of the overview, or null if diagram is drawn as vector graphics
+     * @param tiles          images of the tiles, which are placeholders for vector graphics
+     */
+    private void completeTiledImages(ArgoDiagram diagram, DiagramTiling tiling, Image overview,
+                                     Image overviewRaster, Image[] tiles) {
+        PdfTemplate full = null;
+        String fingerprint = null;
+        if(vector) {
+            full = makeVectorTemplate(diagram);
+            if(full == null) {
+                fingerprint = getFingerprint(diagram);
+                overviewRaster = makeOverviewRaster(diagram, fingerprint);
+            }
+        }
+        completeOverview(tiling, overview, full, overviewRaster);
+
+        if(!vector) return;
+
+        for(int i = 0; i < tiles.length; i++) {
+            if(tiles[i] != null) {
+                completeTile(diagram, tiling, tiling.getTile(i), full, fingerprint, tiles[i]);
+            }
+        }
+    }
+
+    /**
+     * Renders overview image of the whole diagram with low resolution
+     *
+     * @param diagram     diagram, which overview is needed
+     * @param fingerprint fingerprint of the diagram, see <i>getFingerprint</i>
+     * @return overview image, or null if diagram can not be rendered
+     */
+    private Image makeOverviewRaster(ArgoDiagram diagram, String fingerprint) {
+        ImagePolicy overviewPolicy = policy.derive(OVERVIEW_DPI);
+        long start = metrics.start();
+        float scale = ReportUtils.getImageScale(diagram, overviewPolicy, maxWidth, maxHeight);
+        byte[] data = ReportUtils.renderTileOfDiagram(diagram, overviewPolicy, scale, null, fingerprint);
+        metrics.stop(ReportMetrics.DIAGRAM_RENDER, start);
+
+        start = metrics.start();
+        Image im = ReportUtils.decodeImageOfDiagram(data, scale);
+        metrics.stop(ReportMetrics.IMAGE_DECODE, start);
+
+        return im;
+    }
+
+    /**
+     * Draws overview of the tiled diagram instead of the placeholder: the whole diagram, on which
+     * borders and numbers of the tiles are drawn
+     *
+     * @param tiling   tiles of the diagram
+     * @param overview placeholder of the overview, which has the size of the diagram at scale 1
+     * @param full     vector graphics of the diagram, or null if raster image should be used
+     * @param raster   raster image of the overview, or null if it could not be rendered
+     */
+    private void completeOverview(DiagramTiling tiling, Image overview, PdfTemplate full, Image raster) {
+        float width  = tiling.getWidth();
+        float height = tiling.getHeight();
+        PdfTemplate tp = writer.getDirectContent().createTemplate(width, height);
+        if(full != null) {
+            tp.addTemplate(full, 0, 0);
+        } else if(raster != null) {
+            try {
+                tp.addImage(raster, width, 0, 0, height, 0, 0);
+            } catch(DocumentException ex) {
+                LOG.debug(ex.getMessage());
+            }
+        }
+
+        //overview is shrinked to fit the page, so the numbers are enlarged to be readable on the page
+        float fit = Math.min(maxWidth / width, maxHeight / height);
+        float numberSize = TILE_NUMBER_SIZE / fit;
+        BaseFont font = null;
+        try {
+            font = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, false);
+        } catch(DocumentException ex) {
+            LOG.debug(ex.getMessage());
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+        }
+
+        tp.setColorStroke(TILE_COLOR);
+        tp.setColorFill(TILE_COLOR);
+        tp.setLineWidth(1f / fit);
+        tp.setLineDash(4f / fit, 2f / fit, 0);
+        for(int i = 0; i < tiling.getTileCount(); i++) {
+            Rectangle tile = tiling.getTile(i);
+            //pdf coordinates grow upwards
+            float y = height - tile.y - tile.height;
+            tp.rectangle(tile.x, y, tile.width, tile.height);
+            tp.stroke();
+            if(font != null) {
+                tp.beginText();
+                tp.setFontAndSize(font, numberSize);
+                tp.showTextAligned(Element.ALIGN_CENTER, String.valueOf(i + 1), tile.x + tile.width / 2f,
+                                   y + tile.height / 2f - numberSize / 2, 0);
+                tp.endText();
+            }
+        }
+
+        overview.setTemplateData(tp);
+    }
+
+    /**
+     * Draws the tile of the diagram instead of the placeholder. Tile shows the part of the vector
+     * graphics of the whole diagram, or its raster image, if diagram can not be drawn as vector graphics.
+     *
+     * @param diagram     diagram, which tile is needed
+     * @param tiling      tiles of the diagram
+     * @param tile        area of the tile
+     * @param full        vector graphics of the whole diagram, or null if raster image should be used
+     * @param fingerprint fingerprint of the diagram, which is needed for the raster image
+     * @param im          placeholder of the tile
+     */
+    private void completeTile(ArgoDiagram diagram, DiagramTiling tiling, Rectangle tile, PdfTemplate full,
+                              String fingerprint, Image im) {
+        //bounding box of the template clips the diagram
+        PdfTemplate tp = writer.getDirectContent().createTemplate(tile.width, tile.height);
+        if(full != null) {
+            tp.addTemplate(full, -tile.x, tile.y + tile.height - tiling.getHeight());
+        } else {
+            Image raster = makeRasterTile(diagram, tile, fingerprint);
+            if(raster != null) {
+                try {
+                    tp.addImage(raster, tile.width, 0, 0, tile.height, 0, 0);
+                } catch(DocumentException ex) {
+                    LOG.debug(ex.getMessage());
+                }
+            }
+        }
+
+        im.setTemplateData(tp);
+    }
+
+    /**
+     * Calculates fingerprint of the diagram once for all its raster images. Fingerprint is needed
+     * only by the cache of the images, so it is not calculated, if images are not cached.
+     *
+     * @param diagram diagram, which is rendered
+     * @return fingerprint of the diagram, or null if images are not cached
+     */
+    private String getFingerprint(ArgoDiagram diagram) {
+        if(policy.getCache() == null) return null;
+
+        long start = metrics.start();
+        String fingerprint = ReportUtils.getFingerprintOfDiagram(diagram);
+        metrics.stop(ReportMetrics.DIAGRAM_RENDER, start);
+        return fingerprint;
+    }
+
+    /**
+     * Renders raster image of the tile of the diagram
+     *
+     * @param diagram     diagram, which tile is needed
+     * @param tile        area of the tile
+     * @param fingerprint fingerprint of the diagram, see <i>getFingerprint</i>
+     * @return image of the tile, which has the size of the tile at scale 1, or null if it can not be rendered
+     */
+    private Image makeRasterTile(ArgoDiagram diagram, Rectangle tile, String fingerprint) {
+        long start = metrics.start();
+        float scale = policy.getScale(tile.width, tile.height, maxWidth, maxHeight);
+        byte[] data = ReportUtils.renderTileOfDiagram(diagram, policy, scale, tile, fingerprint);
+        metrics.stop(ReportMetrics.DIAGRAM_RENDER, start);
+
+        start = metrics.start();
+        Image im = ReportUtils.decodeImageOfDiagram(data, scale);
+        metrics.stop(ReportMetrics.IMAGE_DECODE, start);
+
+        return im;
+    }
+
+    /**
+     * Template of the placeholder, which is not bound to any writer
+     */
+    private static class Placeholder extends PdfTemplate {
+
+        private Placeholder(float width, float height) {
+            setWidth(width);
+            setHeight(height);
+        }
+    }
+}
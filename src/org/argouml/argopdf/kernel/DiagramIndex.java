@@ -0,0 +1,166 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import org.argouml.kernel.Project;
+import org.argouml.kernel.ProjectManager;
+import org.argouml.model.Model;
+import org.argouml.uml.diagram.ui.UMLDiagram;
+import org.argouml.uml.diagram.use_case.ui.UMLUseCaseDiagram;
+import org.argouml.uml.diagram.static_structure.ui.UMLClassDiagram;
+import org.argouml.uml.diagram.state.ui.UMLStateDiagram;
+import org.argouml.uml.diagram.sequence.ui.UMLSequenceDiagram;
+import org.argouml.uml.diagram.collaboration.ui.UMLCollaborationDiagram;
+import org.argouml.uml.diagram.activity.ui.UMLActivityDiagram;
+import org.argouml.uml.diagram.deployment.ui.UMLDeploymentDiagram;
+import org.omg.uml.modelmanagement.UmlPackage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * DiagramIndex maps model elements to the diagrams, which belong to them. The index is
+ * built by one pass over the diagrams of the project, so it should be created once per
+ * report or per opening of the ArgoPDF dialog, and then used for all lookups instead of
+ * exploring the whole diagram list of the project again.
+ *
+ * Diagrams are grouped as follows:
+ *      <u>
+ *          <li>class diagrams - by their namespace</li>
+ *          <li>state chart diagrams - by their namespace (usually uml class)</li>
+ *          <li>sequence, collaboration and activity diagrams - by the nearest package in the
+ *          chain of namespaces of their owner</li>
+ *          <li>use case and deployment diagrams - in the lists of the whole project</li>
+ *      </u>
+ *
+ * Diagrams in each list have the same order as in the project.
+ *
+ * @version 0.1
+ */
+public class DiagramIndex {
+
+    private List useCaseDiagrams    = new ArrayList();
+    private List deploymentDiagrams = new ArrayList();
+
+    private HashMap classDiagrams     = new HashMap();
+    private HashMap stateDiagrams     = new HashMap();
+    private HashMap behaviourDiagrams = new HashMap();
+
+    /**
+     * Builds the index of diagrams of the project
+     *
+     * @param project project, which diagrams will be indexed. If null, index will be empty.
+     */
+    public DiagramIndex(Project project) {
+        if(project == null) return;
+
+        for(Object el : project.getDiagramList()) {
+            if(el instanceof UMLUseCaseDiagram) {
+                useCaseDiagrams.add(el);
+            } else if(el instanceof UMLDeploymentDiagram) {
+                deploymentDiagrams.add(el);
+            } else if(el instanceof UMLClassDiagram) {
+                put(classDiagrams, ((UMLClassDiagram)el).getNamespace(), el);
+            } else if(el instanceof UMLStateDiagram) {
+                put(stateDiagrams, ((UMLStateDiagram)el).getNamespace(), el);
+            } else if(el instanceof UMLSequenceDiagram || el instanceof UMLCollaborationDiagram ||
+                      el instanceof UMLActivityDiagram) {
+                put(behaviourDiagrams, findOwnerPackage(((UMLDiagram)el).getOwner()), el);
+            }
+        }
+    }
+
+    /**
+     * Builds the index of diagrams of the first opened project
+     *
+     * @return index of diagrams of the opened project, or empty index if there are no opened projects
+     */
+    public static DiagramIndex forOpenProject() {
+        List projects = ProjectManager.getManager().getOpenProjects();
+        return new DiagramIndex(projects.size() > 0 ? (Project)projects.get(0) : null);
+    }
+
+    /**
+     * Finds the first package in the chain of namespaces, which starts from the owner of diagram
+     *
+     * @param owner owner of the diagram
+     * @return package, which contains the owner, or the owner itself if it is a package.
+     *         Returns null if there is no such package.
+     */
+    private static Object findOwnerPackage(Object owner) {
+        while(owner != null) {
+            if(owner instanceof UmlPackage) {
+                return owner;
+            }
+            owner = Model.getFacade().getNamespace(owner);
+        }
+
+        return null;
+    }
+
+    private static void put(HashMap map, Object key, Object diagram) {
+        if(key == null) return;
+
+        List list = (List)map.get(key);
+        if(list == null) {
+            list = new ArrayList();
+            map.put(key, list);
+        }
+        list.add(diagram);
+    }
+
+    private static List get(HashMap map, Object key) {
+        List list = key != null ? (List)map.get(key) : null;
+        return list != null ? Collections.unmodifiableList(list) : Collections.EMPTY_LIST;
+    }
+
+    /**
+     * @return all use case diagrams of the project
+     */
+    public List getUseCaseDiagrams() {
+        return Collections.unmodifiableList(useCaseDiagrams);
+    }
+
+    /**
+     * @return all deployment diagrams of the project
+     */
+    public List getDeploymentDiagrams() {
+        return Collections.unmodifiableList(deploymentDiagrams);
+    }
+
+    /**
+     * @param namespace namespace of the class diagrams, e.g. package or model
+     * @return class diagrams, which belong to the namespace
+     */
+    public List getClassDiagrams(Object namespace) {
+        return get(classDiagrams, namespace);
+    }
+
+    /**
+     * @param namespace namespace of the state chart diagrams, e.g. uml class
+     * @return state chart diagrams, which belong to the namespace
+     */
+    public List getStateChartDiagrams(Object namespace) {
+        return get(stateDiagrams, namespace);
+    }
+
+    /**
+     * @param umlPackage package or model
+     * @return sequence, collaboration and activity diagrams, which belong to the package
+     */
+    public List getSequenceCollaborationActivityDiagrams(Object umlPackage) {
+        return get(behaviourDiagrams, umlPackage);
+    }
+}
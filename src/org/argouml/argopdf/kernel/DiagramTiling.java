@@ -0,0 +1,117 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import java.awt.Rectangle;
+
+/**
+ * DiagramTiling splits a diagram, which is too large to be readable on one page, into page-sized
+ * tiles. Neighbouring tiles overlap, so figs and labels on the border of a tile are seen
+ * completely at least on one of the tiles. Tiles are placed row by row, and they are numbered
+ * in the same order.
+ *
+ * Coordinates of the tiles are coordinates of the diagram image at scale 1, which has the same
+ * size in points as the diagram itself.
+ *
+ * @version 0.1
+ */
+public class DiagramTiling {
+
+    //diagrams, which are shrinked less than to this scale to fit the page, are not tiled
+    public static final float MIN_READABLE_SCALE = 0.6f;
+    //minimum overlap of the neighbouring tiles, in points
+    public static final int OVERLAP = 36;
+
+    private int width;
+    private int height;
+    private Rectangle[] tiles;
+
+    private DiagramTiling(int width, int height, Rectangle[] tiles) {
+        this.width  = width;
+        this.height = height;
+        this.tiles  = tiles;
+    }
+
+    /**
+     * Splits the diagram into tiles, which fit the page area
+     *
+     * @param width      width of the diagram image at scale 1
+     * @param height     height of the diagram image at scale 1
+     * @param tileWidth  maximum width of one tile, usually width of the page area
+     * @param tileHeight maximum height of one tile
+     * @return tiling of the diagram, or null if diagram is readable on one page and should not be tiled
+     */
+    public static DiagramTiling create(int width, int height, float tileWidth, float tileHeight) {
+        if(width <= 0 || height <= 0 || tileWidth <= 2 * OVERLAP || tileHeight <= 2 * OVERLAP) return null;
+
+        float fit = Math.min(tileWidth / width, tileHeight / height);
+        if(fit >= MIN_READABLE_SCALE) return null;
+
+        int columns = countTiles(width, tileWidth);
+        int rows    = countTiles(height, tileHeight);
+        int w = Math.min(width, (int)tileWidth);
+        int h = Math.min(height, (int)tileHeight);
+
+        //tiles are distributed evenly, so the overlap is not less than the minimum one
+        Rectangle[] tiles = new Rectangle[columns * rows];
+        for(int row = 0; row < rows; row++) {
+            int y = rows > 1 ? Math.round((float)(height - h) * row / (rows - 1)) : 0;
+            for(int column = 0; column < columns; column++) {
+                int x = columns > 1 ? Math.round((float)(width - w) * column / (columns - 1)) : 0;
+                tiles[row * columns + column] = new Rectangle(x, y, w, h);
+            }
+        }
+
+        return new DiagramTiling(width, height, tiles);
+    }
+
+    /**
+     * @param length     length of the diagram
+     * @param tileLength maximum length of one tile
+     * @return amount of the tiles, which cover the diagram with the minimum overlap
+     */
+    private static int countTiles(int length, float tileLength) {
+        if(length <= tileLength) return 1;
+
+        return (int)Math.ceil((length - OVERLAP) / (tileLength - OVERLAP));
+    }
+
+    /**
+     * @return width of the diagram image at scale 1
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return height of the diagram image at scale 1
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return amount of the tiles
+     */
+    public int getTileCount() {
+        return tiles.length;
+    }
+
+    /**
+     * @param index index of the tile, starting from 0
+     * @return area of the diagram image, which is covered by the tile
+     */
+    public Rectangle getTile(int index) {
+        return new Rectangle(tiles[index]);
+    }
+}
@@ -0,0 +1,228 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import org.argouml.model.Model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * ElementIndex assigns named destinations of the report to the model elements. Destination of
+ * the element is defined, when the section with details of the element is written, and each
+ * mention of the element links to this destination. Destinations are named after the UUID of
+ * the element, so they are stable between reports and between chapters of the incremental report.
+ *
+ * Links refer to destinations by name and are resolved by the viewer, so an element can be
+ * mentioned before its details are written, or in another chapter file. Elements, which are
+ * mentioned, but not described in the report, get their destinations in the element index at the
+ * end of the report, see <i>getEntries</i>, so every link of the report has its target.
+ *
+ * Index is filled by the worker threads, which generate sections of the diagrams, so all methods
+ * are synchronized.
+ *
+ * @version 0.1
+ */
+public class ElementIndex {
+
+    private static final String PREFIX = "uml-";
+    private static final char SEPARATOR = '\t';
+
+    //entries by model element and by name of the destination
+    private HashMap elements = new HashMap();
+    private HashMap destinations = new HashMap();
+    //encoded entries, which were changed since recording was started, or null
+    private LinkedHashSet recorded;
+
+    /**
+     * Defines destination of the element, which details are written to the report
+     *
+     * @param element model element
+     * @return name of the destination
+     */
+    public synchronized String define(Object element) {
+        Entry entry = getEntry(element);
+        entry.defined = true;
+        record('D', entry);
+        return entry.destination;
+    }
+
+    /**
+     * Returns destination of the element, which is mentioned in the report
+     *
+     * @param element model element
+     * @return name of the destination
+     */
+    public synchronized String reference(Object element) {
+        Entry entry = getEntry(element);
+        entry.referenced = true;
+        record('R', entry);
+        return entry.destination;
+    }
+
+    /**
+     * @return entries of all defined and referenced elements sorted by their labels
+     */
+    public synchronized List getEntries() {
+        List entries = new ArrayList(destinations.values());
+        Collections.sort(entries, new Comparator() {
+            public int compare(Object o1, Object o2) {
+                int result = ((Entry)o1).label.compareToIgnoreCase(((Entry)o2).label);
+                return result != 0 ? result : ((Entry)o1).destination.compareTo(((Entry)o2).destination);
+            }
+        });
+        return entries;
+    }
+
+    /**
+     * Starts recording of the entries, e.g. when chapter of the incremental report is generated
+     */
+    public synchronized void startRecording() {
+        recorded = new LinkedHashSet();
+    }
+
+    /**
+     * Stops recording of the entries
+     *
+     * @return entries, which were defined or referenced since the recording was started, encoded as strings
+     */
+    public synchronized List stopRecording() {
+        List result = recorded != null ? new ArrayList(recorded) : new ArrayList();
+        recorded = null;
+        return result;
+    }
+
+    /**
+     * Restores entries, which were recorded, e.g. when chapter of the incremental report is taken from
+     * the previous report
+     *
+     * @param lines entries encoded as strings by <i>stopRecording</i>
+     */
+    public synchronized void restore(List lines) {
+        for(Object o : lines) {
+            String line = (String)o;
+            int first  = line.indexOf(SEPARATOR);
+            int second = first >= 0 ? line.indexOf(SEPARATOR, first + 1) : -1;
+            int third  = second >= 0 ? line.indexOf(SEPARATOR, second + 1) : -1;
+            if(third < 0) continue;
+
+            String destination = line.substring(first + 1, second);
+            Entry entry = (Entry)destinations.get(destination);
+            if(entry == null) {
+                String imageName = line.substring(second + 1, third);
+                entry = new Entry(destination, line.substring(third + 1), imageName.length() > 0 ? imageName : null);
+                destinations.put(destination, entry);
+            }
+            if(line.charAt(0) == 'D') {
+                entry.defined = true;
+            } else {
+                entry.referenced = true;
+            }
+        }
+    }
+
+    /**
+     * Returns name of the destination of the element. Name does not depend on the report, so it
+     * can be used e.g. as the identifier of the element in other output formats.
+     *
+     * @param element model element
+     * @return name of the destination
+     */
+    public static String getDestination(Object element) {
+        String uuid = Model.getFacade().getUUID(element);
+        return PREFIX + (uuid != null ? uuid : Integer.toHexString(System.identityHashCode(element)));
+    }
+
+    private Entry getEntry(Object element) {
+        Entry entry = (Entry)elements.get(element);
+        if(entry != null) return entry;
+
+        String destination = getDestination(element);
+        entry = (Entry)destinations.get(destination);
+        if(entry == null) {
+            entry = new Entry(destination, ReportUtils.getElementName(element), ReportUtils.getImageName(element));
+            destinations.put(destination, entry);
+        }
+        elements.put(element, entry);
+        return entry;
+    }
+
+    private void record(char kind, Entry entry) {
+        if(recorded == null) return;
+
+        StringBuffer line = new StringBuffer();
+        line.append(kind).append(SEPARATOR).append(entry.destination).append(SEPARATOR);
+        if(entry.imageName != null) {
+            line.append(entry.imageName);
+        }
+        line.append(SEPARATOR).append(entry.label.replace(SEPARATOR, ' ').replace('\n', ' ').replace('\r', ' '));
+        recorded.add(line.toString());
+    }
+
+    /**
+     * Entry of the index: destination of one model element
+     */
+    public static class Entry {
+
+        private String destination;
+        private String label;
+        private String imageName;
+        private boolean defined;
+        private boolean referenced;
+
+        private Entry(String destination, String label, String imageName) {
+            this.destination = destination;
+            this.label       = label != null ? label : "";
+            this.imageName   = imageName;
+        }
+
+        /**
+         * @return name of the destination
+         */
+        public String getDestination() {
+            return destination;
+        }
+
+        /**
+         * @return name of the element
+         */
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * @return standard name of the icon of the element
+         */
+        public String getImageName() {
+            return imageName;
+        }
+
+        /**
+         * @return true, if details of the element are written to the report
+         */
+        public boolean isDefined() {
+            return defined;
+        }
+
+        /**
+         * @return true, if element is mentioned in the report
+         */
+        public boolean isReferenced() {
+            return referenced;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import org.argouml.i18n.Translator;
+import org.argouml.model.Model;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.apache.log4j.Logger;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * HtmlRenderer writes contents of the report as HTML. Contents are written to the stream as soon
+ * as they are walked, and images of the diagrams are written to their own files, which are referenced
+ * by the page. So memory, which is needed by the renderer, does not depend on the size of the model,
+ * except names of the destinations of the described elements.
+ *
+ * Elements are identified by the same names of destinations as in the PDF report, see
+ * <i>ElementIndex.getDestination</i>. Element is described at its first diagram, and the other
+ * mentions of the element link to this description.
+ *
+ * Renderer does not throw exceptions while the contents are walked. The first error of the stream
+ * is kept, see <i>getError</i>.
+ *
+ * @version 0.1
+ */
+public class HtmlRenderer implements ReportRenderer {
+
+    private static final Logger LOG = Logger.getLogger(HtmlRenderer.class);
+
+    private static final int MAX_HEADING = 6;
+
+    private Writer out;
+    private File imageDirectory;
+    private String imagePath;
+    private ImagePolicy imagePolicy;
+    private ReportProgressListener progressListener;
+    private int expectedDiagrams;
+    //amount of diagrams, after which rendering is stopped, or 0 if it is not limited
+    private int diagramLimit;
+    //true, if contents were skipped because of the limit
+    private boolean truncated;
+
+    //destinations of the elements, which were described
+    private HashSet described = new HashSet();
+    private int imageCount;
+    private int diagramCount;
+    private IOException error;
+
+    /**
+     * Creates renderer, which writes the page to the stream
+     *
+     * @param out            stream of the page
+     * @param imageDirectory directory, where images of the diagrams are written, or null if images
+     *                       should not be generated
+     * @param imagePath      path of the image directory relative to the page
+     * @param imagePolicy    resolution and encoding of the images
+     */
+    public HtmlRenderer(Writer out, File imageDirectory, String imagePath, ImagePolicy imagePolicy) {
+        this.out            = out;
+        this.imageDirectory = imageDirectory;
+        this.imagePath      = imagePath;
+        this.imagePolicy    = imagePolicy;
+    }
+
+    /**
+     * @param listener         listener, which is notified, when diagram is rendered, or null
+     * @param expectedDiagrams amount of diagrams, which will be rendered
+     */
+    public void setProgressListener(ReportProgressListener listener, int expectedDiagrams) {
+        this.progressListener = listener;
+        this.expectedDiagrams = expectedDiagrams;
+    }
+
+    /**
+     * Limits amount of the rendered diagrams, e.g. for the preview. Contents, which follow the last
+     * rendered diagram, are skipped.
+     *
+     * @param limit amount of diagrams, or 0 if amount is not limited
+     */
+    public void setDiagramLimit(int limit) {
+        this.diagramLimit = limit;
+    }
+
+    /**
+     * @return amount of the rendered diagrams
+     */
+    public int getDiagramCount() {
+        return diagramCount;
+    }
+
+    /**
+     * @return the first error of the stream, or null if page was written successfully
+     */
+    public IOException getError() {
+        return error;
+    }
+
+    /**
+     * Writes the beginning of the page
+     *
+     * @param title  title of the report
+     * @param author author of the report, or null
+     */
+    public void startDocument(String title, String author) {
+        write("<!DOCTYPE html PUBLIC \"-//W3C//DTD HTML 4.01//EN\">\n<html>\n<head>\n");
+        write("<meta http-equiv=\"Content-Type\" content=\"text/html; charset=UTF-8\">\n");
+        write("<title>" + escape(title) + "</title>\n</head>\n<body>\n");
+        write("<h1>" + escape(title) + "</h1>\n");
+        if(author != null && !"".equals(author)) {
+            write("<p>" + escape(author) + "</p>\n");
+        }
+    }
+
+    /**
+     * Writes the end of the page and flushes the stream
+     */
+    public void endDocument() {
+        if(truncated) {
+            write("<p><i>" + escape(Translator.localize("argopdf.report.preview.truncated")) + "</i></p>\n");
+        }
+        write("</body>\n</html>\n");
+        flush();
+    }
+
+    /**
+     * @see ReportRenderer#renderUseCases()
+     */
+    public Object renderUseCases() {
+        if(isLimitReached()) return null;
+
+        writeHeading(1, Translator.localize("argopdf.report.part.usecase.title"));
+        return new Integer(1);
+    }
+
+    /**
+     * @see ReportRenderer#renderPackage(Object, Object)
+     */
+    public Object renderPackage(Object parent, Object pkg) {
+        if(isLimitReached()) return null;
+
+        int depth = getDepth(parent);
+        writeHeading(depth, Translator.localize("argopdf.report.part.package.title") + " " +
+                            ReportUtils.getElementName(pkg));
+        return new Integer(depth);
+    }
+
+    /**
+     * @see ReportRenderer#renderDiagram(Object, Object)
+     */
+    public void renderDiagram(Object parent, Object diagram) {
+        if(isLimitReached()) return;
+
+        writeHeading(getDepth(parent), ReportUtils.getElementName(diagram));
+        if(imageDirectory != null) {
+            writeImage((ArgoDiagram)diagram);
+        }
+        writeElements(((ArgoDiagram)diagram).getNodes());
+
+        //page can be shown, while the next diagrams are rendered
+        flush();
+        ++diagramCount;
+        if(progressListener != null) {
+            progressListener.diagramProcessed(diagram, diagramCount, expectedDiagrams);
+        }
+    }
+
+    /**
+     * Writes image of the diagram to its own file and references it by the page
+     */
+    private void writeImage(ArgoDiagram diagram) {
+        Dimension size = ReportUtils.getDiagramSize(diagram);
+        if(size == null) return;
+
+        byte[] image = ReportUtils.renderImageOfDiagram(diagram, imagePolicy,
+                                                        ReportUtils.getImageScale(diagram, imagePolicy, 0, 0));
+        if(image == null) return;
+
+        String name = "diagram" + (++imageCount) + (imagePolicy.isLossy() ? ".jpg" : ".png");
+        if(!imageDirectory.isDirectory() && !imageDirectory.mkdirs()) {
+            LOG.debug("Can not create directory " + imageDirectory);
+            return;
+        }
+
+        OutputStream imageOut = null;
+        try {
+            imageOut = new FileOutputStream(new File(imageDirectory, name));
+            imageOut.write(image);
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+            return;
+        } finally {
+            if(imageOut != null) {
+                try {
+                    imageOut.close();
+                } catch(IOException ex) {
+                    LOG.debug(ex.getMessage());
+                }
+            }
+        }
+
+        //image is shown in the size of the diagram, resolution of the image is kept for zooming
+        write("<p><img src=\"" + escape(imagePath + "/" + name) + "\" width=\"" + size.width + "\" height=\"" +
+              size.height + "\" alt=\"" + escape(ReportUtils.getElementName(diagram)) + "\"></p>\n");
+    }
+
+    /**
+     * Writes table with info of the elements of the diagram
+     */
+    private void writeElements(List nodes) {
+        boolean started = false;
+        for(Object node : nodes) {
+            if(!Model.getFacade().isAModelElement(node)) continue;
+
+            if(!started) {
+                write("<table border=\"1\" cellspacing=\"0\" cellpadding=\"4\" width=\"100%\">\n<tr><th>" +
+                      escape(Translator.localize("argopdf.report.name")) + "</th><th>" +
+                      escape(Translator.localize("argopdf.report.documentation")) + "</th><th>" +
+                      escape(Translator.localize("argopdf.report.details")) + "</th></tr>\n");
+                started = true;
+            }
+            writeElement(node);
+        }
+
+        if(started) {
+            write("</table>\n");
+        }
+    }
+
+    /**
+     * Writes row with info of the element. Element is described only at its first diagram.
+     */
+    private void writeElement(Object element) {
+        String destination = ElementIndex.getDestination(element);
+        if(!described.add(destination)) {
+            write("<tr><td colspan=\"3\">" + getReference(element) + "</td></tr>\n");
+            return;
+        }
+
+        write("<tr><td id=\"" + escape(destination) + "\">" + escape(ReportUtils.getElementName(element)) + "</td><td>" +
+              escape(ReportUtils.getElementsDocumentation(element)) + "</td><td>");
+        if(Model.getFacade().isAClassifier(element)) {
+            writeNames(Translator.localize("argopdf.report.attributes"), Model.getFacade().getAttributes(element), "");
+            writeNames(Translator.localize("argopdf.report.operations"), Model.getFacade().getOperations(element), "()");
+
+            StringBuffer generals = new StringBuffer();
+            for(Object generalization : Model.getFacade().getGeneralizations(element)) {
+                Object general = Model.getFacade().getGeneral(generalization);
+                if(general != null) {
+                    generals.append(generals.length() > 0 ? ", " : "").append(getReference(general));
+                }
+            }
+            writeLine(Translator.localize("argopdf.report.generalizations"), generals.toString());
+        }
+
+        StringBuffer suppliers = new StringBuffer();
+        for(Object dependency : Model.getFacade().getClientDependencies(element)) {
+            for(Object supplier : Model.getFacade().getSuppliers(dependency)) {
+                suppliers.append(suppliers.length() > 0 ? ", " : "").append(getReference(supplier));
+            }
+        }
+        writeLine(Translator.localize("argopdf.report.dependencies"), suppliers.toString());
+        write("</td></tr>\n");
+    }
+
+    private void writeNames(String label, Collection elements, String suffix) {
+        StringBuffer names = new StringBuffer();
+        for(Object element : elements) {
+            names.append(names.length() > 0 ? ", " : "").append(escape(Model.getFacade().getName(element) + suffix));
+        }
+        writeLine(label, names.toString());
+    }
+
+    private void writeLine(String label, String html) {
+        if(html.length() == 0) return;
+
+        write("<b>" + escape(label) + ":</b> " + html + "<br>\n");
+    }
+
+    private void writeHeading(int depth, String text) {
+        //the first level is used by the title of the report
+        int level = Math.min(depth + 1, MAX_HEADING);
+        write("<h" + level + ">" + escape(text) + "</h" + level + ">\n");
+    }
+
+    /**
+     * @return link to the description of the element
+     */
+    private static String getReference(Object element) {
+        return "<a href=\"#" + escape(ElementIndex.getDestination(element)) + "\">" +
+               escape(ReportUtils.getElementName(element)) + "</a>";
+    }
+
+    private boolean isLimitReached() {
+        if(diagramLimit > 0 && diagramCount >= diagramLimit) {
+            truncated = true;
+        }
+        return truncated;
+    }
+
+    private static int getDepth(Object parent) {
+        return parent != null ? ((Integer)parent).intValue() + 1 : 1;
+    }
+
+    private void write(String text) {
+        if(error != null) return;
+
+        try {
+            out.write(text);
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+            error = ex;
+        }
+    }
+
+    private void flush() {
+        if(error != null) return;
+
+        try {
+            out.flush();
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+            error = ex;
+        }
+    }
+
+    /**
+     * Escapes special characters of HTML
+     *
+     * @param text text, or null
+     * @return escaped text
+     */
+    public static String escape(String text) {
+        if(text == null) return "";
+
+        StringBuffer result = new StringBuffer(text.length());
+        for(int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch(c) {
+                case '<':  result.append("&lt;");   break;
+                case '>':  result.append("&gt;");   break;
+                case '&':  result.append("&amp;");  break;
+                case '"':  result.append("&quot;"); break;
+                default:   result.append(c);
+            }
+        }
+
+        return result.toString();
+    }
+}
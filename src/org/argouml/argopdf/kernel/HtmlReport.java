@@ -0,0 +1,281 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import org.argouml.i18n.Translator;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * HtmlReport is the implementation of IReport interface, which writes report as one HTML page.
+ * Page is written by <i>HtmlRenderer</i> while the contents are walked, so report is not laid out
+ * in memory, and images of the diagrams are written to the directory next to the page. Such report
+ * is fast enough e.g. for preview and for publishing of big models on the intranet.
+ *
+ * Options, which are specific for PDF documents, like title page, table of contents or vector
+ * diagrams, are ignored.
+ *
+ * @version 0.1
+ * @see org.argouml.argopdf.kernel.IReport
+ * @see PdfReport
+ */
+public class HtmlReport implements IReport {
+
+    private static final Logger LOG = Logger.getLogger(HtmlReport.class);
+
+    private static final String ENCODING = "UTF-8";
+    //suffix of the directory, where images of the diagrams are written
+    private static final String IMAGES_SUFFIX = "_files";
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+    private boolean generateDiagrams = true;
+    private ImagePolicy imagePolicy  = ImagePolicy.getDefault();
+    private int diagramLimit;
+
+    private String path;
+    private String title;
+    private String author;
+
+    private ReportSelection selection;
+
+    private ReportProgressListener progressListener;
+    private ReportMetricsListener metricsListener;
+    private ReportMetrics metrics;
+    private volatile boolean cancelled;
+    private volatile ReportWalker walker;
+
+    /**
+     * Generates report and saves it to the path specified by the user
+     * @return result of the report generation
+     */
+    public ReportResult generateReport() {
+        metrics = new ReportMetrics();
+        metrics.setListener(metricsListener);
+
+        if(path == null || "".equals(path)) {
+            LOG.debug("Report path is not specified");
+            return finish(ReportResult.failure(Translator.localize("argopdf.report.error.file.path.is.not.specified")));
+        }
+
+        OutputStream out;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(path), FILE_BUFFER_SIZE);
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+            return finish(ReportResult.failure(Translator.localize("argopdf.report.error.file.is.used.by.another.application")));
+        }
+
+        try {
+            return finish(generate(out));
+        } finally {
+            try {
+                out.close();
+            } catch(IOException ex) {
+                LOG.debug(ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the page to the stream. Images of the diagrams are written next to the report path,
+     * so they are not generated, if the path is not specified.
+     *
+     * @see org.argouml.argopdf.kernel.IReport#generateReport(java.io.OutputStream)
+     */
+    public ReportResult generateReport(OutputStream out) {
+        metrics = new ReportMetrics();
+        metrics.setListener(metricsListener);
+
+        return finish(generate(out));
+    }
+
+    /**
+     * @see org.argouml.argopdf.kernel.IReport#generateReport(java.nio.channels.WritableByteChannel)
+     */
+    public ReportResult generateReport(WritableByteChannel channel) {
+        return generateReport(Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Completes the metrics of the report generation and notifies the progress listener
+     *
+     * @param result result of the report generation
+     * @return the same result
+     */
+    private ReportResult finish(ReportResult result) {
+        metrics.finish();
+        result.setMetrics(metrics);
+
+        if(progressListener != null) {
+            progressListener.reportFinished(result);
+        }
+        return result;
+    }
+
+    /**
+     * Walks the contents of the report and writes them to the stream
+     *
+     * @param out stream, to which report is written
+     * @return result of the report generation
+     */
+    private ReportResult generate(OutputStream out) {
+        if(selection != null) {
+            //packages, which were not expanded in the dialog, are explored now
+            long start = metrics.start();
+            selection = selection.getLoaded();
+            metrics.stop(ReportMetrics.MODEL_WALK, start);
+        }
+
+        Writer writer;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(out, ENCODING));
+        } catch(UnsupportedEncodingException ex) {
+            LOG.debug(ex.getMessage());
+            return ReportResult.failure(ex.getMessage());
+        }
+
+        File imageDirectory = null;
+        String imagePath = null;
+        if(generateDiagrams && path != null && !"".equals(path)) {
+            File file = new File(path).getAbsoluteFile();
+            String name = file.getName();
+            int dot = name.lastIndexOf('.');
+            imagePath = (dot > 0 ? name.substring(0, dot) : name) + IMAGES_SUFFIX;
+            imageDirectory = new File(file.getParentFile(), imagePath);
+        }
+
+        int diagramCount = selection != null ? selection.countSelected(ArgoDiagram.class) : 0;
+        if(progressListener != null) {
+            progressListener.reportStarted(diagramCount);
+        }
+
+        HtmlRenderer renderer = new HtmlRenderer(writer, imageDirectory, imagePath, imagePolicy);
+        renderer.setProgressListener(progressListener, diagramLimit > 0 ? Math.min(diagramCount, diagramLimit) : diagramCount);
+        renderer.setDiagramLimit(diagramLimit);
+        renderer.startDocument(title, author);
+        if(selection != null && !cancelled) {
+            long start = metrics.start();
+            walker = new ReportWalker(selection, renderer);
+            if(cancelled) {
+                walker.cancel();
+            }
+            walker.walk();
+            walker = null;
+            metrics.stop(ReportMetrics.MODEL_WALK, start);
+        }
+        renderer.endDocument();
+        metrics.increment(ReportMetrics.DIAGRAMS, renderer.getDiagramCount());
+
+        if(cancelled) {
+            LOG.debug("Report generation was cancelled");
+            return ReportResult.cancelled(renderer.getDiagramCount());
+        }
+        if(renderer.getError() != null) {
+            return ReportResult.failure(Translator.localize("argopdf.report.error.file.is.used.by.another.application"));
+        }
+
+        return ReportResult.success(renderer.getDiagramCount());
+    }
+
+    /**
+     * Limits amount of diagrams in the report, e.g. for the preview
+     *
+     * @param limit amount of diagrams, or 0 if amount is not limited
+     */
+    public void setDiagramLimit(int limit) {
+        this.diagramLimit = limit;
+    }
+
+    public void setProgressListener(ReportProgressListener listener) {
+        this.progressListener = listener;
+    }
+
+    public void setMetricsListener(ReportMetricsListener listener) {
+        this.metricsListener = listener;
+    }
+
+    /**
+     * Page is written sequentially, so worker threads are not used
+     */
+    public void setWorkerThreads(int count) {
+    }
+
+    /**
+     * Page is always written completely
+     */
+    public void setIncremental(boolean value) {
+    }
+
+    public void cancel() {
+        cancelled = true;
+        ReportWalker currentWalker = walker;
+        if(currentWalker != null) {
+            currentWalker.cancel();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void setSelection(ReportSelection selection) {
+        this.selection = selection;
+    }
+
+    public void setGenerateTitlePage(boolean value) {
+    }
+
+    public void setGenerateTableOfContents(boolean value) {
+    }
+
+    public void setGenerateDiagrams(boolean value) {
+        this.generateDiagrams = value;
+    }
+
+    public void setVectorDiagrams(boolean value) {
+    }
+
+    public void setTiledDiagrams(boolean value) {
+    }
+
+    public void setImagePolicy(ImagePolicy policy) {
+        this.imagePolicy = policy != null ? policy : ImagePolicy.getDefault();
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public void setLogoPath(String logoPath) {
+    }
+}
@@ -37,7 +37,8 @@
 // UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
 package org.argouml.argopdf.kernel;
 
-import javax.swing.*;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * The IReport interface represents the basic interface for report in the ArgoPDF module.
@@ -57,11 +58,23 @@ import javax.swing.*;
  *          <li><i>setGenerateDiagrams(boolean value)</i> - defines, whether images of diagrams will be generated
  *          in the report. Call this method with parameter 'value' equals to true, if you want to see images of
  *          diagrams in the report.</li>
+ *          <li><i>setVectorDiagrams(boolean value)</i> - defines, whether images of diagrams will be embedded
+ *          as vector graphics. Call this method with parameter 'value' equals to true, if you want to have
+ *          resolution-independent diagrams in the report.</li>
  *      </u>
  *
  * After calling <i>generateReport()</i> method, report will be generated and saved in the path, which was defined by
  * calling <i>setPath(String path)</i> method. If path will not be defined, report will not be generated and error
- * message should be shown to the user.
+ * message of the returned <i>ReportResult</i> should be shown to the user.
+ * The report file is replaced only after the report was generated successfully. The replacement is not atomic:
+ * on platforms, where rename does not replace an existing file, the old report is renamed aside at first, so
+ * for a moment there is no file at the report path. Report can also be written
+ * to any stream or channel by <i>generateReport(OutputStream out)</i> method, e.g. to the response of the servlet.
+ *
+ * Report generation can take a long time for big projects, so it is recomended to generate report
+ * on a worker thread by means of <i>ReportJob</i> class. Progress of the generation is reported to the
+ * listener set by <i>setProgressListener(ReportProgressListener listener)</i> and generation can be stopped
+ * by calling <i>cancel()</i> method.
  *
  * @author Dmitry Churbanau
  * @version 0.1
@@ -71,28 +84,98 @@ public interface IReport {
     /**
      * Method performs the main work - generates report.
      *
-     * @return error message, if report was not generated. Otherwise null.
+     * @return result of the report generation. If report was not generated, result contains
+     *         localized error message.
+     */
+    ReportResult generateReport();
+
+    /**
+     * Generates report and writes it to the stream instead of the report path. The stream is
+     * flushed, but not closed. Report, which is written to the stream, is always generated completely.
+     *
+     * @param out stream, to which report will be written
+     * @return result of the report generation. If report was not generated, result contains
+     *         localized error message.
+     */
+    ReportResult generateReport(OutputStream out);
+
+    /**
+     * Generates report and writes it to the channel instead of the report path. The channel is not closed.
+     *
+     * @param channel channel, to which report will be written
+     * @return result of the report generation. If report was not generated, result contains
+     *         localized error message.
+     */
+    ReportResult generateReport(WritableByteChannel channel);
+
+    /**
+     * Sets the listener, which will be notified about the progress of report generation.
+     *
+     * @param listener progress listener, or null if progress should not be reported
+     */
+    void setProgressListener(ReportProgressListener listener);
+
+    /**
+     * Sets the listener, which will be notified about each measured phase of report generation.
+     * Metrics of the whole generation are available from the result of the report, and are written
+     * next to the report as a JSON summary.
+     *
+     * @see ReportMetrics
+     *
+     * @param listener metrics listener, or null
+     */
+    void setMetricsListener(ReportMetricsListener listener);
+
+    /**
+     * Sets amount of worker threads, which prepare contents of diagrams. Contents are written to
+     * the report in the order of the report tree, whatever amount of threads is used. By default
+     * one thread is used, i.e. report is generated sequentially.
+     *
+     * @param count amount of worker threads
      */
-    String generateReport();
+    void setWorkerThreads(int count);
 
     /**
-     * Sets the tree, which contains the selected elements of the report. Tree nodes
-     * should be the instances of <i>TreeNode</i> class. Each tree node (except of the root node)
-     * should contain the instance of one of the next classes as a user object:
+     * Defines, whether report is generated incrementally. Chapters of the incremental report are
+     * kept next to the report, and on the next generation only chapters, which contents were changed,
+     * are generated again. By default report is generated completely.
+     *
+     * @param value if value equals to true, report will be generated incrementally
+     */
+    void setIncremental(boolean value);
+
+    /**
+     * Asks the report to stop generation. Generation is stopped between diagrams, and the
+     * partially written report file is removed.
+     */
+    void cancel();
+
+    /**
+     * @return true, if generation of the report was cancelled
+     */
+    boolean isCancelled();
+
+    /**
+     * Sets the selection, which contains the elements of the report. Each element (except of the root
+     * element) should be an instance of one of the next classes:
      *          <u>
-     *              <li><i>org.argouml.uml.diagram.use_case.ui.UMLUseCaseDiagram</i> class</li>
+     *              <li><i>org.argouml.uml.UseCases</i> class - folder of use case diagrams</li>
+     *              <li>package of the model</li>
+     *              <li>diagram of the project</li>
      *          </u>
      *
-     * The root node should contain an instance of <i>org.argouml.kernel.Project</i> class.
-     * Each node, which is the instance of <i>TreeNode</i> class, has public method <i>isSelected()</i>,
-     * which returns true, if this element was selected by the user during making a choise of the
-     * report contents. If this element was not selected <i>isSelected()</i> return false.
+     * The root element should be an instance of <i>org.argouml.kernel.Project</i> class. Element is
+     * included in the report only if it and all its parents are selected. Selection can be created by
+     * <i>ReportSelection.create(Project project)</i> method, or by the contents tree of the ArgoPDF dialog.
+     * Packages of the lazy selection, which are not loaded yet, are loaded by the report into its own copy
+     * of the selection, so indexes of the given selection are not changed.
      *
-     * @see org.argouml.argopdf.ui.TreeNode
+     * @see ReportSelection
+     * @see org.argouml.argopdf.ui.TreeNode#storeSelection
      *
-     * @param tree tree of report elements.
+     * @param selection selection of report elements.
      */
-    void setTree(JTree tree);
+    void setSelection(ReportSelection selection);
 
     /**
      * Defines, whether title page in the report will be generated or not. By default it should be generated.
@@ -118,6 +201,34 @@ public interface IReport {
      */
     void setGenerateDiagrams(boolean value);
 
+    /**
+     * Defines, whether images of diagrams will be embedded as vector graphics or as PNG images.
+     * By default PNG images are used. If diagram can not be drawn as vector graphics, PNG image
+     * is used instead.
+     *
+     * @param value if value equals to true, diagrams will be embedded as vector graphics,
+     * otherwise as PNG images.
+     */
+    void setVectorDiagrams(boolean value);
+
+    /**
+     * Defines, whether diagrams, which would be unreadable when shrinked to one page, are split into
+     * page-sized tiles. Then an overview of the whole diagram is followed by its tiles. By default
+     * each diagram is shrinked to one page.
+     *
+     * @param value if value equals to true, large diagrams will be split into tiles
+     */
+    void setTiledDiagrams(boolean value);
+
+    /**
+     * Defines, how raster images of diagrams are rendered and encoded: their resolution on the page,
+     * maximum amount of pixels, compression and directory of the image cache. By default
+     * <i>ImagePolicy.getDefault()</i> is used.
+     *
+     * @param policy image policy, or null if default policy should be used
+     */
+    void setImagePolicy(ImagePolicy policy);
+
     /**
      * Sets the path, where report will be saved
      *
@@ -0,0 +1,177 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import java.io.File;
+
+/**
+ * ImagePolicy defines, how raster images of the diagrams are rendered and encoded in the report:
+ * resolution of the images on the page, maximum amount of pixels of one image, and either the level
+ * of the lossless Flate compression (PNG) or the quality of the lossy JPEG encoding.
+ *
+ * Diagram is rendered exactly with the resolution, which it has on the page, so images of the diagrams,
+ * which are shrinked to fit the page, are rendered smaller. Images, which would exceed the pixel budget,
+ * are rendered with lower resolution.
+ *
+ * Rendered images are kept in <i>DiagramImageCache</i>, which directory can be changed or disabled
+ * by the policy.
+ *
+ * @version 0.1
+ * @see org.argouml.argopdf.kernel.IReport#setImagePolicy(ImagePolicy)
+ */
+public class ImagePolicy {
+
+    public static final int DEFAULT_DPI               = 150;
+    public static final int DEFAULT_MAX_PIXELS        = 4000000;
+    public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+
+    //resolution of the pdf user space
+    private static final float POINTS_PER_INCH = 72f;
+
+    private int dpi;
+    private int maxPixels;
+    private boolean lossy;
+    private int compressionLevel;
+    private float quality;
+    private File cacheDirectory;
+
+    private ImagePolicy(int dpi, int maxPixels, boolean lossy, int compressionLevel, float quality,
+                        File cacheDirectory) {
+        this.dpi              = dpi > 0 ? dpi : DEFAULT_DPI;
+        this.maxPixels        = maxPixels > 0 ? maxPixels : DEFAULT_MAX_PIXELS;
+        this.lossy            = lossy;
+        this.compressionLevel = Math.max(0, Math.min(compressionLevel, 9));
+        this.quality          = Math.max(0f, Math.min(quality, 1f));
+        this.cacheDirectory   = cacheDirectory;
+    }
+
+    /**
+     * Creates default policy: PNG images with 150 dpi
+     *
+     * @return an instance of <i>ImagePolicy</i> class
+     */
+    public static ImagePolicy getDefault() {
+        return lossless(DEFAULT_DPI, DEFAULT_MAX_PIXELS, DEFAULT_COMPRESSION_LEVEL);
+    }
+
+    /**
+     * Creates policy of PNG images
+     *
+     * @param dpi              resolution of the images on the page
+     * @param maxPixels        maximum amount of pixels of one image
+     * @param compressionLevel level of Flate compression, from 0 (no compression) to 9 (best compression)
+     * @return an instance of <i>ImagePolicy</i> class
+     */
+    public static ImagePolicy lossless(int dpi, int maxPixels, int compressionLevel) {
+        return new ImagePolicy(dpi, maxPixels, false, compressionLevel, 1f,
+                               DiagramImageCache.getDefaultDirectory());
+    }
+
+    /**
+     * Creates policy of JPEG images
+     *
+     * @param dpi       resolution of the images on the page
+     * @param maxPixels maximum amount of pixels of one image
+     * @param quality   quality of JPEG encoding, from 0 (smallest file) to 1 (best quality)
+     * @return an instance of <i>ImagePolicy</i> class
+     */
+    public static ImagePolicy lossy(int dpi, int maxPixels, float quality) {
+        return new ImagePolicy(dpi, maxPixels, true, DEFAULT_COMPRESSION_LEVEL, quality,
+                               DiagramImageCache.getDefaultDirectory());
+    }
+
+    /**
+     * Creates policy, which differs from this one only by the resolution of the images
+     *
+     * @param dpi resolution of the images on the page
+     * @return an instance of <i>ImagePolicy</i> class
+     */
+    public ImagePolicy derive(int dpi) {
+        return new ImagePolicy(dpi, maxPixels, lossy, compressionLevel, quality, cacheDirectory);
+    }
+
+    /**
+     * Creates policy, which differs from this one only by the directory of the image cache.
+     * By default images are cached in the ArgoUML directory of the user.
+     *
+     * @param directory directory of <i>DiagramImageCache</i>, or null if images should not be cached
+     * @return an instance of <i>ImagePolicy</i> class
+     */
+    public ImagePolicy deriveCacheDirectory(File directory) {
+        return new ImagePolicy(dpi, maxPixels, lossy, compressionLevel, quality, directory);
+    }
+
+    /**
+     * Calculates scale, with which the diagram should be rendered. Size of the diagram at scale 1
+     * equals to its size on the page, if the page was not limited.
+     *
+     * @param width     width of the diagram at scale 1
+     * @param height    height of the diagram at scale 1
+     * @param maxWidth  width of the page area, where image is placed, or 0 if it is not limited
+     * @param maxHeight height of the page area, where image is placed, or 0 if it is not limited
+     * @return scale of the image
+     */
+    public float getScale(float width, float height, float maxWidth, float maxHeight) {
+        if(width <= 0 || height <= 0) return 1f;
+
+        float fit = 1f;
+        if(maxWidth > 0 && maxHeight > 0) {
+            fit = Math.min(1f, Math.min(maxWidth / width, maxHeight / height));
+        }
+
+        float scale = fit * dpi / POINTS_PER_INCH;
+        if(width * height * scale * scale > maxPixels) {
+            scale = (float)Math.sqrt(maxPixels / (width * height));
+        }
+
+        return scale;
+    }
+
+    /**
+     * @return key of the policy, which distinguishes encoded images of the different policies
+     */
+    public String getKey() {
+        return lossy ? "jpg" + Math.round(quality * 100) : "png" + compressionLevel;
+    }
+
+    public int getDpi() {
+        return dpi;
+    }
+
+    public int getMaxPixels() {
+        return maxPixels;
+    }
+
+    public boolean isLossy() {
+        return lossy;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    public File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * @return cache of the rendered images, or null if images should not be cached
+     */
+    public DiagramImageCache getCache() {
+        return cacheDirectory != null ? DiagramImageCache.getInstance(cacheDirectory) : null;
+    }
+}
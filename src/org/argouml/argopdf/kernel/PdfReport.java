@@ -39,17 +39,18 @@ package org.argouml.argopdf.kernel;
 
 import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfWriter;
+import com.lowagie.text.pdf.PdfPageEventHelper;
 import com.lowagie.text.pdf.PdfContentByte;
 import com.lowagie.text.pdf.BaseFont;
 
 import javax.swing.*;
 import java.io.*;
-import java.util.HashMap;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
 
 import org.argouml.ui.argopdf.ArgoPDFMenuPlugin;
-import org.argouml.ui.targetmanager.TargetManager;
 import org.argouml.i18n.Translator;
-import org.argouml.argopdf.ui.TreeNode;
 import org.argouml.argopdf.kernel.helpers.*;
 import org.argouml.uml.UseCases;
 import org.argouml.uml.diagram.use_case.ui.UMLUseCaseDiagram;
@@ -58,7 +59,8 @@ import org.argouml.uml.diagram.sequence.ui.UMLSequenceDiagram;
 import org.argouml.uml.diagram.collaboration.ui.UMLCollaborationDiagram;
 import org.argouml.uml.diagram.activity.ui.UMLActivityDiagram;
 import org.argouml.uml.diagram.deployment.ui.UMLDeploymentDiagram;
-import org.argouml.model.Model;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.kernel.Project;
 import org.apache.log4j.Logger;
 
 /**
@@ -75,92 +77,378 @@ public class PdfReport implements IReport {
     private boolean generateTitlePage       = true;
     private boolean generateTableOfContents = true;
     private boolean generateDiagrams        = true;
+    private boolean vectorDiagrams          = false;
+    private boolean tiledDiagrams           = false;
+    private ImagePolicy imagePolicy         = ImagePolicy.getDefault();
 
     private String path;
     private String logoPath;
     private String title;
     private String author;
 
-    private JTree reportTree;
+    private ReportSelection selection;
+
+    private ReportProgressListener progressListener;
+    private ReportMetricsListener metricsListener;
+    private ReportMetrics metrics;
+    private volatile boolean cancelled;
+    private int diagramCount;
+    private int processedDiagrams;
 
     private static final Logger LOG = Logger.getLogger(PdfReport.class);
-    private HashMap options = new HashMap();
+    //size of the buffer of the report file
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+    //fingerprint of the element index, which is written to the incremental report every time
+    private static final String INDEX_CHAPTER = "index";
+    //prefix of the temporary files, as prefix of a temporary file must be at least three characters long
+    private static final String TEMP_FILE_PREFIX = "argopdf-";
 
     private Document document;
+    private ReportContext context;
+    private ReportPipeline pipeline;
+    private int workerThreads = 1;
+    private boolean incremental;
+    private ChapterCache chapterCache;
+    private volatile ReportWalker walker;
+
+    /**
+     * Generates report and saves it to the path specified by the user
+     * @return result of the report generation
+     */
+    public ReportResult generateReport() {
+        metrics = new ReportMetrics();
+        metrics.setListener(metricsListener);
+
+        ReportResult result;
+        if(path == null || "".equals(path)) {
+            LOG.debug("Report path is not specified");
+            result = ReportResult.failure(Translator.localize("argopdf.report.error.file.path.is.not.specified"));
+        } else {
+            result = generateFile(new File(path));
+        }
+
+        return finish(result, true);
+    }
 
-    //represents current chapter number
-    private static int chapterNumber = 0;
+    /**
+     * @see org.argouml.argopdf.kernel.IReport#generateReport(java.io.OutputStream)
+     */
+    public ReportResult generateReport(OutputStream out) {
+        metrics = new ReportMetrics();
+        metrics.setListener(metricsListener);
+
+        return finish(generate(out), false);
+    }
+
+    /**
+     * @see org.argouml.argopdf.kernel.IReport#generateReport(java.nio.channels.WritableByteChannel)
+     */
+    public ReportResult generateReport(WritableByteChannel channel) {
+        return generateReport(Channels.newOutputStream(channel));
+    }
 
     /**
-     * Generates new chapter
+     * Completes the metrics of the report generation and notifies the progress listener
      *
-     * @param name      name of the chapter
-     * @param underline true, if chapter should be undelined, otherwise false
-     * @return an instance of new <i>Chapter</i> class with appropriate name
+     * @param result  result of the report generation
+     * @param summary true, if the summary of the metrics should be written next to the report file.
+     *                Report written to a stream has no file, even if the path was set.
+     * @return the same result
      */
-    public static Chapter generateNewChapter(String name, boolean underline) {
-        Chapter chapter = new Chapter(ReportUtils.generateTitle(name, 0, underline), ++chapterNumber);
-        chapter.setBookmarkOpen(false);
-        return chapter;
+    private ReportResult finish(ReportResult result, boolean summary) {
+        metrics.finish();
+        if(summary && path != null && !"".equals(path)) {
+            metrics.writeSummary(path, result);
+        }
+        result.setMetrics(metrics);
+
+        if(progressListener != null) {
+            progressListener.reportFinished(result);
+        }
+        return result;
     }
 
     /**
-     * Generates report and saves it to the path specified by the user
-     * @return null if report was generated successfully, otherwise error message
+     * Generates report to the temporary file in the directory of the report file. The temporary
+     * file replaces the report file only if report was generated successfully, so failed or cancelled
+     * generation does not leave truncated report. Otherwise the temporary file is removed, also if
+     * generation fails with an unexpected exception.
+     *
+     * @param file file of the report
+     * @return result of the report generation
      */
-    public String generateReport() {
+    private ReportResult generateFile(File file) {
+        File temp;
         try {
-            saveOptions();
-            if(path == null || "".equals(path)) {
-                LOG.debug("Report path is not specified");
-                return Translator.localize("argopdf.report.error.file.path.is.not.specified");
+            temp = File.createTempFile(TEMP_FILE_PREFIX + file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+            return ReportResult.failure(Translator.localize("argopdf.report.error.file.is.used.by.another.application"));
+        }
+
+        boolean replaced = false;
+        try {
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(temp), FILE_BUFFER_SIZE);
+            ReportResult result;
+            try {
+                result = generate(out);
+            } finally {
+                try {
+                    out.close();
+                } catch(IOException ex) {
+                    LOG.debug(ex.getMessage());
+                }
+            }
+
+            if(!result.isSuccessful()) {
+                return result;
+            }
+
+            if(!replaceFile(temp, file)) {
+                LOG.debug("Can not rename " + temp.getPath() + " to " + file.getPath());
+                return ReportResult.failure(Translator.localize("argopdf.report.error.file.is.used.by.another.application"));
             }
 
+            replaced = true;
+            return result;
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+            return ReportResult.failure(Translator.localize("argopdf.report.error.file.is.used.by.another.application"));
+        } finally {
+            if(!replaced) {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * Renames the file, replacing the target file, if it exists. On some platforms existing file is
+     * not replaced by rename, so it is renamed aside at first, and restored if the source file can not
+     * be renamed. So the existing report is not lost, but the replacement is not atomic: for a moment
+     * there is no file at the target path.
+     *
+     * @param source file, which will be renamed
+     * @param target new name of the file
+     * @return true, if file was renamed
+     */
+    private static boolean replaceFile(File source, File target) {
+        if(source.renameTo(target)) {
+            return true;
+        }
+        if(!target.exists()) {
+            return false;
+        }
+
+        File backup;
+        try {
+            backup = File.createTempFile(TEMP_FILE_PREFIX + target.getName(), ".bak", target.getAbsoluteFile().getParentFile());
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+            return false;
+        }
+        if(!backup.delete() || !target.renameTo(backup)) {
+            backup.delete();
+            return false;
+        }
+
+        if(source.renameTo(target)) {
+            backup.delete();
+            return true;
+        }
+
+        if(!backup.renameTo(target)) {
+            LOG.debug("Can not restore " + target.getPath() + " from " + backup.getPath());
+        }
+        return false;
+    }
+
+    /**
+     * Performs the main work of report generation. The stream is not closed, so report can be
+     * written e.g. to the response of the servlet. If generation fails or is cancelled, part of
+     * the report may have been already written to the stream.
+     *
+     * @param target stream, to which report will be written
+     * @return result of the report generation
+     */
+    private ReportResult generate(OutputStream target) {
+        processedDiagrams = 0;
+        if(selection != null) {
+            //packages, which were not expanded in the dialog, are explored now
+            long start = metrics.start();
+            selection = selection.getLoaded();
+            metrics.stop(ReportMetrics.MODEL_WALK, start);
+        }
+        ReportOutputStream out = new ReportOutputStream(target);
+        try {
             if(getLogoPath() != null && !"".equals(getLogoPath())) {
                 try {
                     Image.getInstance(getLogoPath());
                 } catch(Exception ex) {
                     LOG.debug("Report image path is incorrect");
-                    return Translator.localize("argopdf.report.error.image.logo.path.is.not.specified");
+                    return ReportResult.failure(Translator.localize("argopdf.report.error.image.logo.path.is.not.specified"));
                 }
             }
 
             document = new Document();
+            //incremental report is stitched together from chapter files, and title page is written to its own file.
+            //Chapter files are kept next to the report, so report written to the stream is generated completely.
+            chapterCache = incremental && path != null && !"".equals(path) ? new ChapterCache(path) : null;
+            File titlePageFile = chapterCache != null ? chapterCache.getTitlePageFile() : null;
 
             PdfWriter writer;
             try {
-                writer = PdfWriter.getInstance(document,new FileOutputStream(path));
+                writer = PdfWriter.getInstance(document, titlePageFile != null ? new FileOutputStream(titlePageFile) : out);
             } catch(FileNotFoundException ex) {
                 LOG.debug(ex.getMessage());
-                return Translator.localize("argopdf.report.error.file.is.used.by.another.application");
+                return ReportResult.failure(Translator.localize("argopdf.report.error.file.is.used.by.another.application"));
             } catch(DocumentException ex) {
                 LOG.debug("Can not create an instance of PdfWriter class.");
-                return Translator.localize("argopdf.report.error.file.is.used.by.another.application");
+                return ReportResult.failure(Translator.localize("argopdf.report.error.file.is.used.by.another.application"));
             }
 
+            if(chapterCache == null) {
+                writer.setPageEvent(new PageCounter());
+            }
+            //table of contents of the incremental report is collected from the chapter files
+            TableOfContents contents = null;
+            if(generateTableOfContents) {
+                contents = new TableOfContents();
+                if(chapterCache == null) {
+                    writer.setLinearPageMode();
+                    writer.setPageEvent(contents);
+                }
+            }
+
+            DiagramImageProvider imageProvider = new DiagramImageProvider(generateDiagrams, vectorDiagrams, writer, metrics,
+                                                                          imagePolicy, document);
+            imageProvider.setTiled(tiledDiagrams);
+            context = new ReportContext(document, imageProvider, createDiagramIndex(), metrics);
+
+            //diagrams are rendered on the event dispatch thread, so workers can not be used, if it is blocked by the report
+            int threads = SwingUtilities.isEventDispatchThread() ? 1 : workerThreads;
+            pipeline = new ReportPipeline(document, imageProvider, threads, new ReportPipeline.Callback() {
+                public void diagramWritten(Object diagram) {
+                    diagramProcessed(diagram);
+                }
+            }, metrics);
+
             generateMetadata();
             document.open();
             if(generateTitlePage) {
+                long start = metrics.start();
                 generateTitlePage(writer);
+                metrics.stop(ReportMetrics.DOCUMENT_WRITE, start);
             }
 
-            generateUseCaseDiagrams();
-            processAllClassDiagrams((TreeNode)reportTree.getModel().getRoot(), null);
-            processAllSequenceCollaborationActivityDiagrams((TreeNode)reportTree.getModel().getRoot(), null);
-            generatePackagesInfo();
-            generateDeploymentInfo();
+            //rendering of the diagrams, building of the tables and writing of the sections are measured
+            //by their own phases inside the walk, so they are excluded from it
+            long walkStart = metrics.start();
+            long walkThreadTime = metrics.getThreadTime();
+            diagramCount = selection != null ? selection.countSelected(ArgoDiagram.class) : 0;
+            if(progressListener != null) {
+                progressListener.reportStarted(diagramCount);
+            }
+
+            boolean contentsGenerated = generateContents();
+            pipeline.flush();
+            //index lists elements of all chapters, so it is generated after them
+            contentsGenerated = contentsGenerated && generateElementIndex();
+            metrics.stopExcluding(ReportMetrics.MODEL_WALK, walkStart, walkThreadTime);
 
+            long start = metrics.start();
+            if(contents != null && chapterCache == null) {
+                generateTableOfContents(writer, contents);
+            }
             beforeCloseOperations();
             document.close();
+            metrics.stop(ReportMetrics.DOCUMENT_WRITE, start);
+
+            if(cancelled) {
+                LOG.debug("Report generation was cancelled");
+                if(titlePageFile != null) {
+                    titlePageFile.delete();
+                }
+                return ReportResult.cancelled(processedDiagrams);
+            }
+
+            if(titlePageFile != null && !(contentsGenerated && writeIncrementalReport(titlePageFile, out, contents))) {
+                return ReportResult.failure(Translator.localize("argopdf.report.error.file.is.used.by.another.application"));
+            }
 
         } catch(OutOfMemoryError ex) {
             LOG.debug(ex.getMessage());
-            return Translator.localize("argopdf.outofmemoryerror");
+            return ReportResult.failure(Translator.localize("argopdf.outofmemoryerror"));
         } finally {
-            loadOptions();
+            if(pipeline != null) {
+                pipeline.shutdown();
+                pipeline = null;
+            }
+            walker = null;
+            metrics.increment(ReportMetrics.BYTES, out.getCount());
         }
         
-        return null;
+        return ReportResult.success(processedDiagrams);
+    }
+
+    /**
+     * Creates index of diagrams of the project, which report is generated for
+     *
+     * @return index of diagrams of the project
+     */
+    private DiagramIndex createDiagramIndex() {
+        Object root = selection != null ? selection.getElement(0) : null;
+        if(root instanceof Project) {
+            return new DiagramIndex((Project)root);
+        }
+
+        return DiagramIndex.forOpenProject();
+    }
+
+    /**
+     * Notifies progress listener, that one more diagram was processed
+     *
+     * @param diagram diagram, which was processed
+     */
+    private void diagramProcessed(Object diagram) {
+        ++processedDiagrams;
+        if(progressListener != null) {
+            progressListener.diagramProcessed(diagram, processedDiagrams, diagramCount);
+        }
+    }
+
+    /**
+     * Writes table of contents after the last chapter and moves its pages in front of the first chapter
+     *
+     * @param writer   writer of the report, which page mode is linear
+     * @param contents titles of the report, which were collected while the report was written
+     */
+    private void generateTableOfContents(PdfWriter writer, TableOfContents contents) {
+        if(cancelled || contents.isEmpty()) return;
+
+        int firstPage = contents.getFirstPage();
+        int pages = contents.getPageCount(document.getPageSize());
+        try {
+            document.newPage();
+            int contentsPage = writer.getPageNumber();
+            contents.write(document, pages);
+            document.newPage();
+
+            int total = writer.reorderPages(null);
+            int[] order = new int[total];
+            int n = 0;
+            for(int i = 1; i < firstPage; i++) {
+                order[n++] = i;
+            }
+            for(int i = contentsPage; i <= total; i++) {
+                order[n++] = i;
+            }
+            for(int i = firstPage; i < contentsPage; i++) {
+                order[n++] = i;
+            }
+            writer.reorderPages(order);
+        } catch(DocumentException ex) {
+            LOG.debug(ex.getMessage());
+        }
     }
 
     /**
@@ -204,7 +492,7 @@ public class PdfReport implements IReport {
                 imageHeight += 12;
             }
 
-            Paragraph paragraph = new Paragraph(getTitle(), new Font(Font.UNDEFINED, 25, Font.BOLD));
+            Paragraph paragraph = new Paragraph(getTitle(), context.getStyles().getReportTitleFont());
             //Sets before spacing, which depends, whether logo image was added to the report or not
             if(addLogoImage) {
                 if(imageHeight >= 200) {
@@ -238,179 +526,297 @@ public class PdfReport implements IReport {
     }
 
     /**
-     * Generates use case diagrams, which was selected by the user
+     * Generates contents of the report, which were selected by the user. Contents are
+     * walked by <i>ReportWalker</i> and written by <i>PdfRenderer</i>.
+     *
+     * @return false, if chapter of the incremental report could not be written
      */
-    private void generateUseCaseDiagrams() {
-        if(reportTree != null) {
-            TreeNode root = (TreeNode)reportTree.getModel().getRoot();
-            if(root.isSelected()) {
-                TreeNode node = (TreeNode)root.getFirstChild();
-
-                //process this node only if it is a folder, which contains all
-                //use case diagrams and it is selected
-                if(node != null && (node.getUserObject() instanceof UseCases) && node.isSelected()) {
-
-                    TreeNode useCaseDiagramNode = (TreeNode)node.getFirstChild();
-                    Chapter useCaseChapter = generateNewChapter(Translator.localize("argopdf.report.part.usecase.title"), false);
-
-                    boolean addUseCase = false;
-                    while(useCaseDiagramNode != null) {
-                        if(useCaseDiagramNode.isSelected()) {
-                            Object useCase = useCaseDiagramNode.getUserObject();
-                            if(useCase instanceof UMLUseCaseDiagram) {
-                                UseCasesDiagramHelper.addUseCaseDiagram(document, useCaseChapter, (UMLUseCaseDiagram)useCase, generateDiagrams);
-                                addUseCase = true;
-                            }
-                        }
-                        useCaseDiagramNode = (TreeNode)useCaseDiagramNode.getNextSibling();
-                    }
-
-                    if(addUseCase) {
-                        try {
-                            document.add(useCaseChapter);
-                        } catch(DocumentException ex) {
-                            LOG.debug(ex.getMessage());
-                        }
-                    }
+    private boolean generateContents() {
+        if(selection == null || !selection.isSelected(0)) return true;
 
-                }
+        walker = new ReportWalker(selection, new PdfRenderer());
+        if(cancelled) {
+            walker.cancel();
+        }
 
+        //each element of the top level is described by one chapter
+        int index = 1;
+        while(index < selection.size() && !cancelled) {
+            int end = selection.getSubtreeEnd(index);
+            if(selection.isSelected(index)) {
+                if(chapterCache == null) {
+                    walker.walk(index, end);
+                } else if(!generateChapter(index)) {
+                    return false;
+                }
             }
+            index = end;
         }
+
+        return true;
     }
 
     /**
-     * Generates packages info which was selected by the user
+     * Generates chapter of the incremental report, which describes the element of the top level.
+     * Chapter is written to its own file only if its fingerprint was changed since the last report,
+     * otherwise the file of the last report is used.
+     *
+     * @param index index of the element of the top level
+     * @return false, if chapter could not be written
      */
-    private void generatePackagesInfo() {
-        if(reportTree != null) {
-            TreeNode root = (TreeNode)reportTree.getModel().getRoot();
-            if(root.isSelected()) {
-                TreeNode node = (TreeNode)root.getFirstChild();
-
-                while(node != null && node.isSelected()) {
-                    processUmlPackage(null, node);
-                    node = (TreeNode)node.getNextSibling();
-                }
+    private boolean generateChapter(int index) {
+        int end = selection.getSubtreeEnd(index);
+        if(selection.getElement(index) instanceof UseCases && selection.countSelected(ArgoDiagram.class, index) == 0) {
+            //chapter of use case diagrams is not written without diagrams, but its number is used
+            context.skipChapter();
+            return true;
+        }
 
+        String options = ArgoPDFMenuPlugin.ARGO_PDF_VERSION + "," + generateDiagrams + "," + vectorDiagrams + "," + tiledDiagrams + "," +
+                         imagePolicy.getKey() + "," + imagePolicy.getDpi() + "," + imagePolicy.getMaxPixels();
+        String fingerprint = ReportFingerprint.getChapterFingerprint(selection, index, context.getChapterNumber() + 1,
+                                                                     options, context.getDiagramIndex());
+        if(chapterCache.contains(fingerprint)) {
+            context.skipChapter();
+            chapterCache.addChapter(fingerprint);
+            context.getElementIndex().restore(chapterCache.readElements(fingerprint));
+            for(int i = index; i < end; i = selection.isSelected(i) ? i + 1 : selection.getSubtreeEnd(i)) {
+                if(selection.isSelected(i) && selection.getElement(i) instanceof ArgoDiagram) {
+                    diagramProcessed(selection.getElement(i));
+                }
             }
+            return true;
+        }
+
+        Document reportDocument = document;
+        DiagramImageProvider reportImageProvider = context.getImageProvider();
+        List elements;
+        document = new Document();
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, new FileOutputStream(chapterCache.getTempFile(fingerprint)));
+            DiagramImageProvider imageProvider = new DiagramImageProvider(generateDiagrams, vectorDiagrams, writer, metrics,
+                                                                          imagePolicy, document);
+            imageProvider.setTiled(tiledDiagrams);
+            context.setDocument(document, imageProvider);
+            pipeline.setDocument(document, imageProvider);
+
+            document.open();
+            context.getElementIndex().startRecording();
+            walker.walk(index, end);
+            pipeline.flush();
+
+            long start = metrics.start();
+            document.close();
+            metrics.stop(ReportMetrics.DOCUMENT_WRITE, start);
+        } catch(FileNotFoundException ex) {
+            LOG.debug(ex.getMessage());
+            chapterCache.discard(fingerprint);
+            return false;
+        } catch(DocumentException ex) {
+            LOG.debug(ex.getMessage());
+            chapterCache.discard(fingerprint);
+            return false;
+        } finally {
+            elements = context.getElementIndex().stopRecording();
+            document = reportDocument;
+            context.setDocument(reportDocument, reportImageProvider);
+            pipeline.setDocument(reportDocument, reportImageProvider);
         }
+
+        if(cancelled) {
+            chapterCache.discard(fingerprint);
+            return true;
+        }
+
+        chapterCache.writeElements(fingerprint, elements);
+        return chapterCache.commit(fingerprint);
     }
 
     /**
-     * Generates deployment info which was selected by the user
+     * Generates index of the elements, which are described or referenced by the report. Chapter of
+     * the incremental report is written to its own file every time, because it depends on all chapters.
+     *
+     * @return false, if chapter of the incremental report could not be written
      */
-    private void generateDeploymentInfo() {
-        if(reportTree != null) {
-            TreeNode root = (TreeNode)reportTree.getModel().getRoot();
-            if(root.isSelected()) {
-                TreeNode node = (TreeNode)root.getFirstChild();
-
-                while(node != null && node.isSelected()) {
-                    if(node.getUserObject() instanceof UMLDeploymentDiagram) {
-                        DeploymentDiagramHelper.generateDiagramInfo(document, null, (UMLDeploymentDiagram)node.getUserObject(), generateDiagrams);
-                    }
-                    node = (TreeNode)node.getNextSibling();
-                }
+    private boolean generateElementIndex() {
+        if(cancelled) return true;
 
-            }
+        Chapter chapter = ReportUtils.createElementIndexChapter(context);
+        if(chapter == null) return true;
+
+        if(chapterCache == null) {
+            addSection(chapter);
+            return true;
         }
+
+        Document reportDocument = document;
+        document = new Document();
+        try {
+            PdfWriter.getInstance(document, new FileOutputStream(chapterCache.getTempFile(INDEX_CHAPTER)));
+            document.open();
+            document.add(chapter);
+            document.close();
+        } catch(FileNotFoundException ex) {
+            LOG.debug(ex.getMessage());
+            chapterCache.discard(INDEX_CHAPTER);
+            return false;
+        } catch(DocumentException ex) {
+            LOG.debug(ex.getMessage());
+            chapterCache.discard(INDEX_CHAPTER);
+            return false;
+        } finally {
+            document = reportDocument;
+        }
+
+        return chapterCache.commit(INDEX_CHAPTER);
     }
 
     /**
-     * Processes all class diagrams which are childrens in the content tree for <i>node</i>
+     * Writes the incremental report: stitches title page and chapters together and removes
+     * chapters, which are not used any more.
      *
-     * @param node    root node for class diagrams which will be processed
-     * @param section current section
+     * @param titlePageFile file, which contains title page of the report
+     * @param out           stream, to which report is written
+     * @param contents      table of contents, which is filled from the chapters, or null
+     * @return true, if report was written
      */
-    private void processAllClassDiagrams(TreeNode node, Section section) {
-        if(node == null) return;
-        TreeNode tNode = (TreeNode)node.getFirstChild();
-
-        while(tNode != null) {
-            Object el = tNode.getUserObject();
-            if(el instanceof UMLClassDiagram && tNode.isSelected()) {
-                ClassDiagramHelper.generateDiagramInfo(document, section, (UMLClassDiagram)el, generateDiagrams);
-                if(section != null) {
-                    section.add(Chunk.NEXTPAGE);
-                }
-            }
-            tNode = (TreeNode)tNode.getNextSibling();
+    private boolean writeIncrementalReport(File titlePageFile, OutputStream out, TableOfContents contents) {
+        document = new Document();
+        generateMetadata();
+        long start = metrics.start();
+        try {
+            int pages = chapterCache.writeReport(document, out, generateTitlePage ? titlePageFile : null, contents);
+            metrics.increment(ReportMetrics.PAGES, pages);
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+            return false;
+        } catch(DocumentException ex) {
+            LOG.debug(ex.getMessage());
+            return false;
+        } finally {
+            metrics.stop(ReportMetrics.DOCUMENT_WRITE, start);
+            titlePageFile.delete();
         }
 
+        chapterCache.removeUnused();
+        return true;
     }
 
     /**
-     * Processes all collaboration and sequence diagrams which are children in the content tree
-     * for <i>node</i>
+     * Generates section of the uml package. Package, which is not placed in another package,
+     * gets its own chapter.
      *
-     * @param node    root node for collaboration and sequence diagrams which will be processed
-     * @param section current section
+     * @param parent section of the parent package, or null
+     * @param pkg    uml package
+     * @return section of the package
      */
-    private void processAllSequenceCollaborationActivityDiagrams(TreeNode node, Section section) {
-        if(node == null) return;
-
-        TreeNode tNode = (TreeNode)node.getFirstChild();
-        while(tNode != null) {
-            Object el = tNode.getUserObject();
-            if(tNode.isSelected()) {
-                if(el instanceof UMLSequenceDiagram) {
-                    SequenceDiagramHelper.generateDiagramInfo(document, section, (UMLSequenceDiagram)el, generateDiagrams);
-                } else if(el instanceof UMLCollaborationDiagram) {
-                    CollaborationDiagramHelper.generateDiagramInfo(document, section, (UMLCollaborationDiagram)el, generateDiagrams);
-                } else if(el instanceof UMLActivityDiagram) {
-                    ActivityDiagramHelper.generateDiagramInfo(document, section, (UMLActivityDiagram)el, generateDiagrams);
-                }
-            }
-            tNode = (TreeNode)tNode.getNextSibling();
+    private Section generatePackageSection(Section parent, Object pkg) {
+        String name = Translator.localize("argopdf.report.part.package.title") + " " + ReportUtils.getElementName(pkg);
+
+        if(parent == null) {
+            Chapter chapter = context.createChapter(name, false);
+            addSection(chapter);
+            return chapter;
         }
 
+        Section section = parent.addSection(ReportUtils.generateTitle(name, 0, false), parent.depth() + 1);
+        flushSection(parent);
+        return section;
     }
 
     /**
-     * Recursively processes uml package: generates info of the selected uml package
-     * and explores its subpackages
+     * Creates section of the diagram and submits it to the pipeline, which fills the section
+     * on a worker thread and writes it to the document in the order of submission.
      *
-     * @param packageNode an instance of <i>TreeNode</i> class, which represents uml package to process
-     * @param section     current section
+     * @param parent  current section, or null if diagram should be placed in its own chapter
+     * @param diagram diagram, which info will be generated
      */
-    private void processUmlPackage(Section section, TreeNode packageNode) {
-        if(Model.getFacade().isAPackage(packageNode.getUserObject()) && packageNode.isSelected()) {
-            boolean firstChapter = section == null;
-            String name = ReportUtils.getElementName(packageNode.getUserObject());
+    private void submitDiagram(Section parent, final Object diagram) {
+        final Section section = ReportUtils.createDiagramSection(context, parent, diagram);
+        final boolean nextPage = parent != null && diagram instanceof UMLClassDiagram;
+        if(parent != null) {
+            //section keeps its number, but is written to the document by the pipeline
+            parent.remove(parent.size() - 1);
+        }
 
-            if(firstChapter) {
-                section = generateNewChapter(Translator.localize("argopdf.report.part.package.title") + " " + name, false);
-            } else {
-                Paragraph title = ReportUtils.generateTitle(Translator.localize("argopdf.report.part.package.title") + " " + name, 0, false);
-                section = section.addSection(title, section.depth() + 1);
+        pipeline.submit(section, diagram, new Runnable() {
+            public void run() {
+                //rendering of the diagram is measured separately, so it is excluded
+                long start = metrics.start();
+                long threadTime = metrics.getThreadTime();
+                fillDiagramSection(section, diagram, nextPage);
+                metrics.stopExcluding(ReportMetrics.TABLE_BUILD, start, threadTime);
+                metrics.increment(ReportMetrics.ELEMENTS, ((ArgoDiagram)diagram).getNodes().size());
             }
+        });
+    }
 
-            if(!packageNode.isLeaf()) {
-                processAllClassDiagrams(packageNode, section);
-                processAllSequenceCollaborationActivityDiagrams(packageNode, section);
+    /**
+     * Fills section of the diagram with the info of the diagram
+     *
+     * @param section  section of the diagram
+     * @param diagram  diagram, which info will be generated
+     * @param nextPage true, if next diagram should start on a new page
+     */
+    private void fillDiagramSection(Section section, Object diagram, boolean nextPage) {
+        if(diagram instanceof UMLUseCaseDiagram) {
+            UseCasesDiagramHelper.fillDiagramSection(context, section, (UMLUseCaseDiagram)diagram);
+        } else if(diagram instanceof UMLClassDiagram) {
+            ClassDiagramHelper.fillDiagramSection(context, section, (UMLClassDiagram)diagram);
+            if(nextPage) {
+                section.add(Chunk.NEXTPAGE);
             }
+        } else if(diagram instanceof UMLSequenceDiagram) {
+            SequenceDiagramHelper.fillDiagramSection(context, section, (UMLSequenceDiagram)diagram);
+        } else if(diagram instanceof UMLCollaborationDiagram) {
+            CollaborationDiagramHelper.fillDiagramSection(context, section, (UMLCollaborationDiagram)diagram);
+        } else if(diagram instanceof UMLActivityDiagram) {
+            ActivityDiagramHelper.fillDiagramSection(context, section, (UMLActivityDiagram)diagram);
+        } else if(diagram instanceof UMLDeploymentDiagram) {
+            DeploymentDiagramHelper.fillDiagramSection(context, section, (UMLDeploymentDiagram)diagram);
+        }
+    }
 
-            if(!packageNode.isLeaf()) {
-                TreeNode node = (TreeNode)packageNode.getFirstChild();
-                while(node != null) {
-                    if(Model.getFacade().isAPackage(node.getUserObject())) {
-                        processUmlPackage(section, node);
-                    }
-                    node = (TreeNode)node.getNextSibling();
-                }
-            }
+    /**
+     * Adds the section to the document. Only content, which the section contains at the moment,
+     * is written, so the section can be filled later and written by <i>flushSection(Section section)</i>.
+     *
+     * @param section section to add
+     */
+    private void addSection(Section section) {
+        pipeline.flush();
+        long start = metrics.start();
+        try {
+            document.add(section);
+        } catch(DocumentException ex) {
+            LOG.debug(ex.getMessage());
+        }
+        section.clear();
+        metrics.stop(ReportMetrics.DOCUMENT_WRITE, start);
+    }
 
+    /**
+     * Writes the content, which was added to the section since it was written last time, to the
+     * document and releases it. This way content of big packages is not held in memory until the
+     * whole chapter is generated, but is written as soon as each diagram is processed. The section
+     * itself must already be added to the document.
+     *
+     * @param section section, which content should be written
+     */
+    private void flushSection(Section section) {
+        if(section == null) return;
 
-            if(firstChapter) {
-                try {
-                    document.add(section);
-                } catch(DocumentException ex) {
-                    LOG.debug(ex.getMessage());
-                }
+        pipeline.flush();
+        long start = metrics.start();
+        for(Object el : section) {
+            try {
+                document.add((Element)el);
+            } catch(DocumentException ex) {
+                LOG.debug(ex.getMessage());
             }
-
         }
+        section.clear();
+        metrics.stop(ReportMetrics.DOCUMENT_WRITE, start);
     }
 
     /**
@@ -424,29 +830,36 @@ public class PdfReport implements IReport {
         document.addCreator(ArgoPDFMenuPlugin.ARGO_PDF_NAME + " " + ArgoPDFMenuPlugin.ARGO_PDF_VERSION);
     }
 
-    /**
-     * Saves options, which can be changed during report generation
-     */
-    private void saveOptions() {
-        chapterNumber = 0;
+    public void setSelection(ReportSelection selection) {
+        this.selection = selection;
+    }
 
-        TargetManager tm = TargetManager.getInstance();
+    public void setMetricsListener(ReportMetricsListener listener) {
+        this.metricsListener = listener;
+    }
 
-        options.put("tm.targets", tm.getTargets());
-        options.put("tm.target", tm.getTarget());
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
     }
 
-    /**
-     * Loads options, which was saved earlier
-     */
-    private void loadOptions() {
-        TargetManager tm = TargetManager.getInstance();
-        tm.setTargets((java.util.List)options.get("tm.targets"));
-        tm.setTarget(options.get("tm.target"));
+    public void setWorkerThreads(int count) {
+        this.workerThreads = count;
+    }
+
+    public void setProgressListener(ReportProgressListener listener) {
+        this.progressListener = listener;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        ReportWalker currentWalker = walker;
+        if(currentWalker != null) {
+            currentWalker.cancel();
+        }
     }
 
-    public void setTree(JTree tree) {
-        this.reportTree = tree;
+    public boolean isCancelled() {
+        return cancelled;
     }
 
     public String getLogoPath() {
@@ -504,4 +917,91 @@ public class PdfReport implements IReport {
     public void setGenerateDiagrams(boolean generateDiagrams) {
         this.generateDiagrams = generateDiagrams;
     }
+
+    public boolean isVectorDiagrams() {
+        return vectorDiagrams;
+    }
+
+    public void setVectorDiagrams(boolean vectorDiagrams) {
+        this.vectorDiagrams = vectorDiagrams;
+    }
+
+    public boolean isTiledDiagrams() {
+        return tiledDiagrams;
+    }
+
+    public void setTiledDiagrams(boolean tiledDiagrams) {
+        this.tiledDiagrams = tiledDiagrams;
+    }
+
+    public void setImagePolicy(ImagePolicy policy) {
+        this.imagePolicy = policy != null ? policy : ImagePolicy.getDefault();
+    }
+
+    /**
+     * Writes contents of the report to the document by iText. Sections of the diagrams are
+     * filled by the helpers on the worker threads of the pipeline.
+     */
+    private class PdfRenderer implements ReportRenderer {
+
+        //chapter of use case diagrams is added only if it contains at least one diagram
+        private Section pendingChapter;
+
+        public Object renderUseCases() {
+            pendingChapter = context.createChapter(Translator.localize("argopdf.report.part.usecase.title"), false);
+            return pendingChapter;
+        }
+
+        public Object renderPackage(Object parent, Object pkg) {
+            return generatePackageSection((Section)parent, pkg);
+        }
+
+        public void renderDiagram(Object parent, Object diagram) {
+            if(parent != null && parent == pendingChapter) {
+                addSection(pendingChapter);
+                pendingChapter = null;
+            }
+            submitDiagram((Section)parent, diagram);
+        }
+    }
+
+    /**
+     * Counts pages of the report
+     */
+    private class PageCounter extends PdfPageEventHelper {
+
+        public void onEndPage(PdfWriter writer, Document document) {
+            metrics.increment(ReportMetrics.PAGES, 1);
+        }
+    }
+
+    /**
+     * Counts bytes of the report and keeps the target stream opened, when document is closed
+     */
+    private static class ReportOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        public ReportOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        public void close() throws IOException {
+            flush();
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
 }
@@ -0,0 +1,169 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import com.lowagie.text.Chapter;
+import com.lowagie.text.Document;
+import com.lowagie.text.Image;
+
+import java.util.HashMap;
+
+/**
+ * ReportContext holds the state of one report generation: the document, which is written,
+ * numbering of the chapters, provider of the diagram images, index of the diagrams, destinations
+ * of the model elements, images of the icons, styles and metrics. Context is passed to the report helpers instead of keeping this state in static fields,
+ * so several reports can be generated at the same time on different threads.
+ *
+ * Chapters are created by the thread of the report. Sections of the diagrams can be filled
+ * on the worker threads, which only read the context.
+ *
+ * @version 0.1
+ */
+public class ReportContext {
+
+    private Document document;
+    private DiagramImageProvider imageProvider;
+    private DiagramIndex diagramIndex;
+    private ElementIndex elementIndex;
+    private ReportStyles styles;
+    private ReportMetrics metrics;
+
+    //number of the last created chapter
+    private int chapterNumber = 0;
+    //images of the standard icons by name. Images are not changed after creation.
+    private HashMap iconImages = new HashMap();
+
+    /**
+     * Creates context of the report
+     *
+     * @param document      document of the report
+     * @param imageProvider provides images of the diagrams
+     * @param diagramIndex  index of diagrams of the project
+     * @param metrics       metrics of the report, or null
+     */
+    public ReportContext(Document document, DiagramImageProvider imageProvider, DiagramIndex diagramIndex, ReportMetrics metrics) {
+        this.document      = document;
+        this.imageProvider = imageProvider;
+        this.diagramIndex  = diagramIndex;
+        this.elementIndex  = new ElementIndex();
+        this.styles        = ReportStyles.getInstance();
+        this.metrics       = metrics != null ? metrics : new ReportMetrics();
+    }
+
+    /**
+     * Generates new chapter, which gets the next number of the report
+     *
+     * @param name      name of the chapter
+     * @param underline true, if chapter should be undelined, otherwise false
+     * @return an instance of new <i>Chapter</i> class with appropriate name
+     */
+    public Chapter createChapter(String name, boolean underline) {
+        Chapter chapter = new Chapter(ReportUtils.generateTitle(name, 0, underline), ++chapterNumber);
+        chapter.setBookmarkOpen(false);
+        return chapter;
+    }
+
+    /**
+     * Skips the number of the chapter, which is not generated, e.g. because it is taken
+     * from the previous incremental report.
+     */
+    public void skipChapter() {
+        ++chapterNumber;
+    }
+
+    /**
+     * @return number of the last created or skipped chapter
+     */
+    public int getChapterNumber() {
+        return chapterNumber;
+    }
+
+    /**
+     * @return document, to which report is written
+     */
+    public Document getDocument() {
+        return document;
+    }
+
+    /**
+     * @return provider of the images of diagrams of the current document
+     */
+    public DiagramImageProvider getImageProvider() {
+        return imageProvider;
+    }
+
+    /**
+     * Changes the document, to which report is written, e.g. when chapter of the incremental report
+     * is written to its own file. Numbering of the chapters is kept.
+     *
+     * @param document      new document of the report
+     * @param imageProvider provider of the images of diagrams, which draws to the new document
+     */
+    public void setDocument(Document document, DiagramImageProvider imageProvider) {
+        this.document      = document;
+        this.imageProvider = imageProvider;
+    }
+
+    /**
+     * @return index of diagrams of the project
+     */
+    public DiagramIndex getDiagramIndex() {
+        return diagramIndex;
+    }
+
+    /**
+     * @return destinations of the model elements in the report
+     */
+    public ElementIndex getElementIndex() {
+        return elementIndex;
+    }
+
+    /**
+     * @return styles of the report
+     */
+    public ReportStyles getStyles() {
+        return styles;
+    }
+
+    /**
+     * @return metrics of the report
+     */
+    public ReportMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns an image of the standard ArgoUML icon. Image of each icon is created only once for
+     * the report, and all returned images share one image object in the pdf document, so the icon
+     * is embedded into the report only once. Icons can be requested on the worker threads.
+     *
+     * @param iconName standard name of the icon
+     * @return a new instance of <i>Image</i> class, which can be changed by the caller, or null
+     *         if icon was not found
+     */
+    public Image getIconImage(String iconName) {
+        if(iconName == null) return null;
+
+        Image im;
+        synchronized(iconImages) {
+            if(iconImages.containsKey(iconName)) {
+                im = (Image)iconImages.get(iconName);
+            } else {
+                im = ReportUtils.createIconImage(iconName);
+                iconImages.put(iconName, im);
+            }
+        }
+
+        return im != null ? Image.getInstance(im) : null;
+    }
+}
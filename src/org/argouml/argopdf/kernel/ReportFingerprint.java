@@ -0,0 +1,387 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import org.argouml.argopdf.kernel.helpers.ClassDiagramHelper;
+import org.argouml.argopdf.kernel.helpers.UseCasesDiagramHelper;
+import org.argouml.model.Model;
+import org.argouml.uml.UseCases;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.kernel.Project;
+import org.argouml.kernel.ProjectSettings;
+import org.tigris.gef.presentation.Fig;
+import org.tigris.gef.presentation.FigEdge;
+import org.tigris.gef.presentation.FigGroup;
+import org.tigris.gef.presentation.FigText;
+import org.apache.log4j.Logger;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * ReportFingerprint calculates fingerprints of the report contents. Fingerprint changes, when
+ * anything, which is shown in the report, is changed: layout and look of the diagram, names, documentation,
+ * attributes, operations and relationships of its elements. So the parts of the report with
+ * unchanged fingerprints do not need to be generated again.
+ *
+ * @version 0.1
+ */
+public class ReportFingerprint {
+
+    private static final Logger LOG = Logger.getLogger(ReportFingerprint.class);
+
+    /**
+     * Calculates fingerprint of the chapter, which describes the element of the selection
+     * with all its selected children.
+     *
+     * Numbers of the chapter and of its sections are written to the cached chapter, and chapters
+     * are not renumbered, when they are stitched together. So number of the chapter is a part of
+     * the fingerprint, and insertion or removal of a chapter changes fingerprints of all the
+     * following chapters, which are generated again.
+     *
+     * @param selection     selection of the report contents
+     * @param index         index of the element, which is described by the chapter
+     * @param chapterNumber number of the chapter
+     * @param options       options of the report, which change the chapter, e.g. whether
+     *                      images of diagrams are generated
+     * @param diagramIndex  index of diagrams of the project
+     * @return fingerprint of the chapter as a hexadecimal string
+     */
+    public static String getChapterFingerprint(ReportSelection selection, int index, int chapterNumber,
+                                               String options, DiagramIndex diagramIndex) {
+        MessageDigest digest = createDigest();
+        update(digest, String.valueOf(chapterNumber));
+        update(digest, options);
+
+        int end = selection.getSubtreeEnd(index);
+        int i = index;
+        while(i < end) {
+            if(!selection.isSelected(i)) {
+                i = selection.getSubtreeEnd(i);
+                continue;
+            }
+
+            //structure of the contents changes numbers of the sections
+            update(digest, String.valueOf(i - index) + ":" + String.valueOf(selection.getParent(i) - index));
+            Object element = selection.getElement(i);
+            if(element instanceof ArgoDiagram) {
+                updateDiagram(digest, (ArgoDiagram)element, diagramIndex);
+            } else if(element instanceof UseCases) {
+                //folder of the use case diagrams is not a model element, it is identified by its class
+                update(digest, element.getClass().getName());
+            } else {
+                update(digest, element.getClass().getName());
+                update(digest, ReportUtils.getElementName(element));
+            }
+            ++i;
+        }
+
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Calculates fingerprint of the diagram
+     *
+     * @param diagram      diagram
+     * @param diagramIndex index of diagrams of the project
+     * @return fingerprint of the diagram as a hexadecimal string
+     */
+    public static String getDiagramFingerprint(ArgoDiagram diagram, DiagramIndex diagramIndex) {
+        MessageDigest digest = createDigest();
+        updateDiagram(digest, diagram, diagramIndex);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Updates digest with the layout of the diagram and all its elements. State chart diagrams
+     * of the elements are included too, as they are described together with the elements.
+     *
+     * @param digest       digest to update
+     * @param diagram      diagram
+     * @param diagramIndex index of diagrams of the project, or null if state chart diagrams
+     *                     should not be included
+     */
+    private static void updateDiagram(MessageDigest digest, ArgoDiagram diagram, DiagramIndex diagramIndex) {
+        update(digest, diagram.getClass().getName());
+        update(digest, diagram.getName());
+        updateSettings(digest, diagram.getProject());
+
+        HashSet owners = new HashSet();
+        List figs = diagram.getLayer().getContents();
+        for(Object o : figs) {
+            Fig fig = (Fig)o;
+            updateFig(digest, fig);
+
+            Object owner = fig.getOwner();
+            if(owner != null && owners.add(owner)) {
+                updateElement(digest, owner);
+                if(diagramIndex != null) {
+                    for(Object stateDiagram : diagramIndex.getStateChartDiagrams(owner)) {
+                        updateDiagram(digest, (ArgoDiagram)stateDiagram, null);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates digest with the settings of the project, which change the way figs are drawn:
+     * notation, fonts and visibility of the details.
+     *
+     * @param digest  digest to update
+     * @param project project of the diagram, or null
+     */
+    private static void updateSettings(MessageDigest digest, Project project) {
+        if(project == null) return;
+
+        ProjectSettings settings = project.getProjectSettings();
+        update(digest, settings.getNotationLanguage());
+        update(digest, settings.getFontName() + "," + settings.getFontSize() + "," + settings.getDefaultShadowWidthValue());
+        update(digest, String.valueOf(settings.getShowBoldNamesValue()) + settings.getUseGuillemotsValue()
+                       + settings.getShowVisibilityValue() + settings.getShowMultiplicityValue()
+                       + settings.getShowInitialValueValue() + settings.getShowPropertiesValue()
+                       + settings.getShowTypesValue() + settings.getShowStereotypesValue()
+                       + settings.getShowSingularMultiplicitiesValue() + settings.getHideBidirectionalArrowsValue());
+    }
+
+    /**
+     * Updates digest with the visual state of the fig and of all its nested figs: bounds, colors,
+     * line, visibility, points of the edges, texts and fonts.
+     *
+     * @param digest digest to update
+     * @param fig    fig of the diagram
+     */
+    private static void updateFig(MessageDigest digest, Fig fig) {
+        Rectangle bounds = fig.getBounds();
+        update(digest, fig.getClass().getName() + bounds.x + "," + bounds.y + "," + bounds.width + "," + bounds.height);
+        update(digest, String.valueOf(fig.isVisible()) + fig.isFilled() + fig.getDashed() + fig.getLineWidth()
+                       + fig.getLineColor() + fig.getFillColor());
+
+        Point[] points = fig.getPoints();
+        if(points != null) {
+            StringBuffer buffer = new StringBuffer();
+            for(int i = 0; i < points.length; i++) {
+                buffer.append(points[i].x).append(',').append(points[i].y).append(';');
+            }
+            update(digest, buffer.toString());
+        }
+
+        if(fig instanceof FigText) {
+            FigText text = (FigText)fig;
+            update(digest, text.getText());
+            update(digest, String.valueOf(text.getFont()) + text.getTextColor());
+        }
+        if(fig instanceof FigGroup) {
+            for(Object o : ((FigGroup)fig).getFigs()) {
+                updateFig(digest, (Fig)o);
+            }
+        }
+        if(fig instanceof FigEdge) {
+            for(Object o : ((FigEdge)fig).getPathItemFigs()) {
+                updateFig(digest, (Fig)o);
+            }
+        }
+    }
+
+    /**
+     * Updates digest with the model element: its name, documentation, stereotypes, modifiers,
+     * attributes, operations and relationships. Modifiers and relationships are taken by the same
+     * methods of the helpers, which print them to the report.
+     *
+     * @param digest  digest to update
+     * @param element model element
+     */
+    private static void updateElement(MessageDigest digest, Object element) {
+        update(digest, element.getClass().getName());
+        update(digest, Model.getFacade().getName(element));
+        update(digest, ReportUtils.getElementsDocumentation(element));
+        updateNames(digest, Model.getFacade().getStereotypes(element));
+        update(digest, ReportUtils.createCommonModifiersString(element));
+        if(Model.getFacade().isAComment(element)) {
+            update(digest, Model.getFacade().getBody(element));
+        }
+
+        if(Model.getFacade().isAClass(element) || Model.getFacade().isAInterface(element)
+           || Model.getFacade().isAEnumeration(element)) {
+            update(digest, ClassDiagramHelper.getClassModifiersInfo(element));
+            if(!Model.getFacade().isAInterface(element)) {
+                for(Object attribute : Model.getFacade().getAttributes(element)) {
+                    updateFeature(digest, attribute);
+                    update(digest, Model.getFacade().getType(attribute));
+                }
+            }
+            for(Object operation : Model.getFacade().getOperations(element)) {
+                updateFeature(digest, operation);
+                update(digest, String.valueOf(Model.getFacade().isAbstract(operation)));
+                for(Object parameter : Model.getFacade().getParameters(operation)) {
+                    update(digest, Model.getFacade().getName(parameter));
+                    update(digest, Model.getFacade().getType(parameter));
+                    update(digest, Model.getFacade().getKind(parameter));
+                    updateExpression(digest, Model.getFacade().getDefaultValue(parameter));
+                }
+            }
+            updateNames(digest, Model.getFacade().getSpecifications(element));
+        }
+
+        if(Model.getFacade().isAEnumeration(element)) {
+            updateNames(digest, Model.getFacade().getEnumerationLiterals(element));
+        }
+
+        for(Object dependency : Model.getFacade().getClientDependencies(element)) {
+            updateRelationship(digest, dependency);
+        }
+        for(Object dependency : Model.getFacade().getSupplierDependencies(element)) {
+            updateRelationship(digest, dependency);
+        }
+        for(Object generalization : Model.getFacade().getGeneralizations(element)) {
+            updateRelationship(digest, generalization);
+        }
+        for(Object specialization : Model.getFacade().getSpecializations(element)) {
+            updateRelationship(digest, specialization);
+        }
+        for(Object end : Model.getFacade().getAssociationEnds(element)) {
+            updateRelationship(digest, end);
+        }
+
+        if(Model.getFacade().isAUseCase(element)) {
+            for(Object relationship : UseCasesDiagramHelper.getAllUseCaseRelationShips(element)) {
+                updateRelationship(digest, relationship);
+            }
+        }
+    }
+
+    /**
+     * Updates digest with the relationship and its ends, in the same extent as relationships are
+     * printed by the helpers.
+     *
+     * @param digest       digest to update
+     * @param relationship dependency, generalization, association end, extend, include or
+     *                     extension point
+     */
+    private static void updateRelationship(MessageDigest digest, Object relationship) {
+        update(digest, relationship.getClass().getName());
+        update(digest, Model.getFacade().getName(relationship));
+        update(digest, ReportUtils.getElementsDocumentation(relationship));
+
+        if(Model.getFacade().isADependency(relationship)) {
+            updateNames(digest, Model.getFacade().getSuppliers(relationship));
+            updateNames(digest, Model.getFacade().getClients(relationship));
+        } else if(Model.getFacade().isAGeneralization(relationship)) {
+            update(digest, Model.getFacade().getGeneral(relationship));
+            update(digest, Model.getFacade().getSpecific(relationship));
+        } else if(Model.getFacade().isAAssociationEnd(relationship)) {
+            Object association = Model.getFacade().getAssociation(relationship);
+            update(digest, association);
+            update(digest, String.valueOf(Model.getFacade().isAbstract(association)) + Model.getFacade().isLeaf(association)
+                           + Model.getFacade().isRoot(association));
+            for(Object connection : Model.getFacade().getConnections(association)) {
+                update(digest, Model.getFacade().getType(connection));
+                update(digest, Model.getFacade().getName(connection));
+                update(digest, Model.getFacade().getMultiplicity(connection));
+                update(digest, UseCasesDiagramHelper.getAssosiationEndVisibility(connection));
+                update(digest, UseCasesDiagramHelper.getAggregationKindEndVisibility(connection));
+                update(digest, String.valueOf(Model.getFacade().isNavigable(connection)));
+                update(digest, ReportUtils.getElementsDocumentation(connection));
+            }
+        } else if(Model.getFacade().isAExtend(relationship)) {
+            update(digest, Model.getFacade().getBase(relationship));
+            update(digest, Model.getFacade().getExtension(relationship));
+            updateExpression(digest, Model.getFacade().getCondition(relationship));
+        } else if(Model.getFacade().isAInclude(relationship)) {
+            update(digest, Model.getFacade().getBase(relationship));
+            update(digest, Model.getFacade().getAddition(relationship));
+        } else if(Model.getFacade().isAExtensionPoint(relationship)) {
+            update(digest, Model.getFacade().getUseCase(relationship));
+        }
+    }
+
+    /**
+     * Updates digest with the body of the expression, e.g. default value or condition
+     *
+     * @param digest     digest to update
+     * @param expression expression, can be null
+     */
+    private static void updateExpression(MessageDigest digest, Object expression) {
+        update(digest, expression != null ? Model.getFacade().getBody(expression) : null);
+    }
+
+    private static void updateFeature(MessageDigest digest, Object feature) {
+        update(digest, Model.getFacade().getName(feature));
+        update(digest, Model.getFacade().getVisibility(feature));
+        update(digest, String.valueOf(Model.getFacade().isStatic(feature)));
+        update(digest, ReportUtils.getElementsDocumentation(feature));
+    }
+
+    private static void updateNames(MessageDigest digest, Collection elements) {
+        if(elements == null) return;
+
+        for(Iterator it = elements.iterator(); it.hasNext();) {
+            update(digest, it.next());
+        }
+    }
+
+    /**
+     * Updates digest with the value. Model elements are represented by their names.
+     *
+     * @param digest digest to update
+     * @param value  value, can be null
+     */
+    private static void update(MessageDigest digest, Object value) {
+        String text;
+        if(value == null) {
+            text = "";
+        } else if(value instanceof String) {
+            text = (String)value;
+        } else if(Model.getFacade().isAModelElement(value)) {
+            text = Model.getFacade().getName(value);
+        } else {
+            text = Model.getFacade().toString(value);
+        }
+
+        try {
+            digest.update((text != null ? text : "").getBytes("UTF-8"));
+        } catch(java.io.UnsupportedEncodingException ex) {
+            LOG.debug(ex.getMessage());
+        }
+        //separator, so concatenated values can not be confused
+        digest.update((byte)0);
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch(NoSuchAlgorithmException ex) {
+            //every Java platform is required to support MD5
+            throw new IllegalStateException(ex.getMessage());
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuffer buffer = new StringBuffer(bytes.length * 2);
+        for(int i = 0; i < bytes.length; i++) {
+            String hex = Integer.toHexString(bytes[i] & 0xff);
+            if(hex.length() == 1) {
+                buffer.append('0');
+            }
+            buffer.append(hex);
+        }
+
+        return buffer.toString();
+    }
+}
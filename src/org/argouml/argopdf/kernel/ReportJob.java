@@ -0,0 +1,112 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import org.argouml.i18n.Translator;
+import org.apache.log4j.Logger;
+
+/**
+ * ReportJob runs <i>IReport.generateReport()</i> on a separate worker thread, so the
+ * caller (usually the event dispatch thread) is not blocked while report is generated.
+ * Progress of the job is reported to the <i>ReportProgressListener</i>, and the job can be
+ * cancelled at any time by calling <i>cancel()</i>. Cancellation is cooperative: the report
+ * stops between two diagrams.
+ *
+ * @version 0.1
+ * @see org.argouml.argopdf.kernel.IReport
+ */
+public class ReportJob implements Runnable {
+
+    private static final Logger LOG = Logger.getLogger(ReportJob.class);
+
+    private IReport report;
+    private ReportProgressListener listener;
+    private Thread thread;
+    private volatile ReportResult result;
+
+    /**
+     * @param report   report to generate. All options of the report should be already set.
+     * @param listener listener, which will be notified about the progress. Can be null.
+     */
+    public ReportJob(IReport report, ReportProgressListener listener) {
+        this.report = report;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts report generation on a new worker thread
+     */
+    public synchronized void start() {
+        if(thread != null) return;
+
+        thread = new Thread(this, "ArgoPDF report");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        thread.start();
+    }
+
+    /**
+     * Generates the report. Normally is called on the worker thread created by <i>start()</i>.
+     */
+    public void run() {
+        report.setProgressListener(listener);
+        try {
+            result = report.generateReport();
+        } catch(Throwable ex) {
+            //errors, e.g. missing classes of the libraries, must not leave the listener waiting forever
+            LOG.error("Report generation failed", ex);
+            result = ReportResult.failure(Translator.localize("argopdf.report.error.unknown"));
+            if(listener != null) {
+                listener.reportFinished(result);
+            }
+        }
+    }
+
+    /**
+     * Asks the report to stop. Report is stopped after the diagram, which is being processed now.
+     */
+    public void cancel() {
+        report.cancel();
+    }
+
+    /**
+     * @return true, if report generation was started and is not finished yet
+     */
+    public synchronized boolean isRunning() {
+        return thread != null && thread.isAlive();
+    }
+
+    /**
+     * Waits until report generation is finished
+     *
+     * @return result of the report generation
+     * @throws InterruptedException if current thread was interrupted while waiting
+     */
+    public ReportResult waitFor() throws InterruptedException {
+        Thread t;
+        synchronized(this) {
+            t = thread;
+        }
+        if(t != null) {
+            t.join();
+        }
+        return result;
+    }
+
+    /**
+     * @return result of the report generation, or null if report is not generated yet
+     */
+    public ReportResult getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,276 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ReportMetrics collects timers and counters of one report generation, so it can be found out,
+ * where the time of a slow report is spent.
+ *
+ * Timers accumulate durations of the phases. A phase can be measured on several threads at the same
+ * time, so the sum of the phases can exceed the total time of the report. Time of the phases,
+ * which are measured inside another phase on the same thread (e.g. rendering of the diagram while its
+ * tables are built), can be excluded from the outer phase, see <i>stopExcluding</i>.
+ *
+ * After the report is generated, metrics are written next to the report as a JSON summary.
+ *
+ * @version 0.1
+ */
+public class ReportMetrics {
+
+    private static final Logger LOG = Logger.getLogger(ReportMetrics.class);
+
+    //phases of report generation
+    public static final String MODEL_WALK     = "modelWalk";
+    public static final String DIAGRAM_RENDER = "diagramRender";
+    public static final String IMAGE_DECODE   = "imageDecode";
+    public static final String TABLE_BUILD    = "tableBuild";
+    public static final String DOCUMENT_WRITE = "documentWrite";
+
+    //counters of report generation
+    public static final String DIAGRAMS = "diagrams";
+    public static final String ELEMENTS = "elements";
+    public static final String PAGES    = "pages";
+    public static final String IMAGES   = "images";
+    public static final String BYTES    = "bytes";
+
+    private static final String[] PHASES   = {MODEL_WALK, DIAGRAM_RENDER, IMAGE_DECODE, TABLE_BUILD, DOCUMENT_WRITE};
+    private static final String[] COUNTERS = {DIAGRAMS, ELEMENTS, PAGES, IMAGES, BYTES};
+
+    private Map times  = new LinkedHashMap();
+    private Map counts = new LinkedHashMap();
+    private long peakHeap;
+    private long startTime = System.currentTimeMillis();
+    private long totalTime;
+    private ReportMetricsListener listener;
+
+    //time of the phases measured by the current thread, which is excluded from outer phases
+    private ThreadLocal threadTime = new ThreadLocal() {
+        protected Object initialValue() {
+            return new long[1];
+        }
+    };
+
+    public ReportMetrics() {
+        for(int i = 0; i < PHASES.length; i++) {
+            times.put(PHASES[i], new long[1]);
+        }
+        for(int i = 0; i < COUNTERS.length; i++) {
+            counts.put(COUNTERS[i], new long[1]);
+        }
+        sampleHeap();
+    }
+
+    /**
+     * Sets the listener, which will be notified about finished phases
+     *
+     * @param listener listener, or null
+     */
+    public void setListener(ReportMetricsListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts measuring of a phase
+     *
+     * @return start time, which should be passed to <i>stop</i> method
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * @return time of all phases, which were measured by the current thread so far
+     */
+    public long getThreadTime() {
+        return ((long[])threadTime.get())[0];
+    }
+
+    /**
+     * Finishes measuring of a phase
+     *
+     * @param phase name of the phase
+     * @param start start time, which was returned by <i>start()</i> method
+     */
+    public void stop(String phase, long start) {
+        add(phase, System.nanoTime() - start);
+    }
+
+    /**
+     * Finishes measuring of a phase. Time of the phases, which were measured inside this phase on the
+     * current thread, is excluded.
+     *
+     * @param phase           name of the phase
+     * @param start           start time, which was returned by <i>start()</i> method
+     * @param threadTimeStart thread time, which was returned by <i>getThreadTime()</i> method,
+     *                        when the phase was started
+     */
+    public void stopExcluding(String phase, long start, long threadTimeStart) {
+        long nested = getThreadTime() - threadTimeStart;
+        add(phase, Math.max(0, System.nanoTime() - start - nested));
+    }
+
+    private void add(String phase, long nanos) {
+        long[] time = (long[])times.get(phase);
+        synchronized(time) {
+            time[0] += nanos;
+        }
+        ((long[])threadTime.get())[0] += nanos;
+        sampleHeap();
+
+        ReportMetricsListener l = listener;
+        if(l != null) {
+            l.phaseFinished(phase, nanos);
+        }
+    }
+
+    /**
+     * Increases the counter
+     *
+     * @param counter name of the counter
+     * @param value   value, which is added to the counter
+     */
+    public void increment(String counter, long value) {
+        long[] count = (long[])counts.get(counter);
+        synchronized(count) {
+            count[0] += value;
+        }
+    }
+
+    /**
+     * @param phase name of the phase
+     * @return total time of the phase in nanoseconds
+     */
+    public long getTime(String phase) {
+        long[] time = (long[])times.get(phase);
+        synchronized(time) {
+            return time[0];
+        }
+    }
+
+    /**
+     * @param counter name of the counter
+     * @return value of the counter
+     */
+    public long getCount(String counter) {
+        long[] count = (long[])counts.get(counter);
+        synchronized(count) {
+            return count[0];
+        }
+    }
+
+    /**
+     * @return the biggest amount of used heap memory, which was noticed during report generation, in bytes
+     */
+    public synchronized long getPeakHeap() {
+        return peakHeap;
+    }
+
+    /**
+     * Notices current amount of used heap memory
+     */
+    public void sampleHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        synchronized(this) {
+            if(used > peakHeap) {
+                peakHeap = used;
+            }
+        }
+    }
+
+    /**
+     * Finishes measuring of the whole report
+     */
+    public void finish() {
+        sampleHeap();
+        totalTime = System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * @return total time of the report generation in milliseconds
+     */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    /**
+     * Returns summary of the metrics in JSON format. Times are given in milliseconds.
+     *
+     * @param result result of the report generation
+     * @return JSON summary
+     */
+    public String toJSON(ReportResult result) {
+        StringBuffer json = new StringBuffer("{\n");
+        json.append("  \"status\": \"").append(result.isSuccessful() ? "success" : (result.isCancelled() ? "cancelled" : "failed")).append("\",\n");
+        json.append("  \"totalTimeMs\": ").append(totalTime).append(",\n");
+        json.append("  \"phasesMs\": {");
+        for(Iterator it = times.keySet().iterator(); it.hasNext();) {
+            String phase = (String)it.next();
+            json.append("\n    \"").append(phase).append("\": ").append(getTime(phase) / 1000000);
+            json.append(it.hasNext() ? "," : "\n  ");
+        }
+        json.append("},\n");
+        json.append("  \"counters\": {");
+        for(Iterator it = counts.keySet().iterator(); it.hasNext();) {
+            String counter = (String)it.next();
+            json.append("\n    \"").append(counter).append("\": ").append(getCount(counter));
+            json.append(it.hasNext() ? "," : "\n  ");
+        }
+        json.append("},\n");
+        json.append("  \"peakHeapBytes\": ").append(getPeakHeap()).append("\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes JSON summary of the metrics next to the report: <i>report.pdf</i> gets
+     * <i>report.metrics.json</i> summary.
+     *
+     * @param reportPath path of the report
+     * @param result     result of the report generation
+     */
+    public void writeSummary(String reportPath, ReportResult result) {
+        String path = reportPath;
+        if(path.toLowerCase().endsWith(".pdf")) {
+            path = path.substring(0, path.length() - 4);
+        }
+        File file = new File(path + ".metrics.json");
+
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            writer.write(toJSON(result));
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+        } finally {
+            if(writer != null) {
+                try {
+                    writer.close();
+                } catch(IOException ex) {
+                    LOG.debug(ex.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+/**
+ * ReportMetricsListener is notified about each measured phase of report generation, e.g. to
+ * show or collect timings while the report is generated. Notifications come from the thread,
+ * which performed the phase, which can be a worker thread of the report.
+ *
+ * @see ReportMetrics
+ * @version 0.1
+ */
+public interface ReportMetricsListener {
+
+    /**
+     * Is called every time, when a phase of report generation is finished
+     *
+     * @param phase name of the phase, one of the phase constants of <i>ReportMetrics</i> class
+     * @param nanos duration of the phase in nanoseconds
+     */
+    void phaseFinished(String phase, long nanos);
+}
@@ -0,0 +1,214 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Section;
+import org.apache.log4j.Logger;
+
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * ReportPipeline prepares sections of diagrams on a bounded pool of worker threads and
+ * writes them to the document in the order, in which they were submitted.
+ *
+ * Section of each diagram should be created by the caller, so its number is assigned in
+ * the order of the report contents, and then submitted together with a task, which fills
+ * the section. Task must change only its own section. Finished sections are appended to
+ * the document by the thread, which submits the tasks, so the document is never accessed
+ * by several threads at a time. Not more than a limited number of sections is kept in
+ * memory at once. Images of the diagrams, which must be drawn by the writer, are completed
+ * on the same thread right before their section is written, see <i>DiagramImageProvider</i>.
+ *
+ * If the pipeline is created with one worker thread, tasks are executed immediately
+ * on the calling thread.
+ *
+ * @version 0.1
+ */
+public class ReportPipeline {
+
+    private static final Logger LOG = Logger.getLogger(ReportPipeline.class);
+
+    /**
+     * Is notified, when section of the diagram was written to the document
+     */
+    public interface Callback {
+
+        /**
+         * @param diagram diagram, which section was written to the document
+         */
+        void diagramWritten(Object diagram);
+    }
+
+    private Document document;
+    private DiagramImageProvider imageProvider;
+    private Callback callback;
+    private ReportMetrics metrics;
+    private ExecutorService executor;
+    private int window;
+
+    //sections, which are prepared at the moment, in the order of submission
+    private LinkedList pending = new LinkedList();
+
+    /**
+     * Creates pipeline
+     *
+     * @param document      document, to which sections will be written
+     * @param imageProvider provider of the images of diagrams, which draws to the document
+     * @param workerThreads amount of worker threads. If it is less than two, tasks are executed
+     *                      on the calling thread.
+     * @param callback      callback, which will be notified about written sections. Can be null.
+     * @param metrics       metrics of the report, which measure writing of the sections. Can be null.
+     */
+    public ReportPipeline(Document document, DiagramImageProvider imageProvider, int workerThreads, Callback callback,
+                          ReportMetrics metrics) {
+        this.document      = document;
+        this.imageProvider = imageProvider;
+        this.callback      = callback;
+        this.metrics       = metrics != null ? metrics : new ReportMetrics();
+
+        if(workerThreads > 1) {
+            executor = Executors.newFixedThreadPool(workerThreads, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ArgoPDF worker");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            window = workerThreads * 2;
+        }
+    }
+
+    /**
+     * Submits the section of the diagram. Section must not be contained in other sections, as it
+     * is added to the document directly.
+     *
+     * @param section section, which will be written to the document, when the task is finished
+     * @param diagram diagram, which is represented by the section
+     * @param task    task, which fills the section
+     */
+    public void submit(Section section, Object diagram, Runnable task) {
+        if(executor == null) {
+            task.run();
+            write(section, diagram);
+            return;
+        }
+
+        pending.addLast(new PendingSection(section, diagram, executor.submit(task)));
+        while(pending.size() > window) {
+            writeNext();
+        }
+    }
+
+    /**
+     * Waits for all submitted tasks and writes their sections to the document.
+     * Should be called before anything else is added to the document.
+     */
+    public void flush() {
+        while(!pending.isEmpty()) {
+            writeNext();
+        }
+    }
+
+    /**
+     * Writes all submitted sections to the current document and sets another document, to which
+     * next sections will be written.
+     *
+     * @param document      document, to which sections will be written
+     * @param imageProvider provider of the images of diagrams, which draws to the document
+     */
+    public void setDocument(Document document, DiagramImageProvider imageProvider) {
+        flush();
+        this.document      = document;
+        this.imageProvider = imageProvider;
+    }
+
+    /**
+     * Stops worker threads. Sections, which were not written yet, are discarded.
+     */
+    public void shutdown() {
+        while(!pending.isEmpty()) {
+            PendingSection entry = (PendingSection)pending.removeFirst();
+            entry.future.cancel(true);
+        }
+
+        if(executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for the first submitted task and writes its section. Task can not be stopped in the middle
+     * of the section, so the wait is not interrupted, and the interrupt is kept for the caller.
+     */
+    private void writeNext() {
+        PendingSection entry = (PendingSection)pending.removeFirst();
+        boolean interrupted = false;
+        while(true) {
+            try {
+                entry.future.get();
+                break;
+            } catch(ExecutionException ex) {
+                LOG.error("Section of the diagram was not generated", ex.getCause());
+                break;
+            } catch(InterruptedException ex) {
+                LOG.debug(ex.getMessage());
+                interrupted = true;
+            }
+        }
+
+        write(entry.section, entry.diagram);
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(Section section, Object diagram) {
+        if(imageProvider != null) {
+            imageProvider.completeImages();
+        }
+
+        long start = metrics.start();
+        try {
+            document.add(section);
+        } catch(DocumentException ex) {
+            LOG.debug(ex.getMessage());
+        }
+        metrics.stop(ReportMetrics.DOCUMENT_WRITE, start);
+
+        if(callback != null) {
+            callback.diagramWritten(diagram);
+        }
+    }
+
+    /**
+     * Section, which is being prepared by a worker thread
+     */
+    private static class PendingSection {
+        private Section section;
+        private Object diagram;
+        private Future future;
+
+        private PendingSection(Section section, Object diagram, Future future) {
+            this.section = section;
+            this.diagram = diagram;
+            this.future  = future;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+/**
+ * Listener, which is notified about the progress of report generation. Methods of
+ * the listener are called from the thread, which generates the report, so a listener,
+ * which updates Swing components, should pass the work to the event dispatch thread.
+ *
+ * @version 0.1
+ * @see org.argouml.argopdf.kernel.ReportJob
+ */
+public interface ReportProgressListener {
+
+    /**
+     * Is called before the first diagram is processed
+     *
+     * @param diagramCount amount of diagrams, which were selected for the report
+     */
+    void reportStarted(int diagramCount);
+
+    /**
+     * Is called every time, when info of one more diagram was added to the report
+     *
+     * @param diagram      diagram, which was processed
+     * @param processed    amount of diagrams, which were processed so far
+     * @param diagramCount amount of diagrams, which were selected for the report
+     */
+    void diagramProcessed(Object diagram, int processed, int diagramCount);
+
+    /**
+     * Is called when report generation is finished, failed or was cancelled
+     *
+     * @param result result of the report generation
+     */
+    void reportFinished(ReportResult result);
+}
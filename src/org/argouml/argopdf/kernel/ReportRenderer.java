@@ -0,0 +1,51 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+/**
+ * ReportRenderer writes contents of the report in some output format. Contents are walked by
+ * <i>ReportWalker</i> in the order of the report, and each element is passed to the renderer
+ * together with the section of its parent, so renderer can write the element immediately.
+ *
+ * Sections are opaque for the walker: renderer returns section of the package or folder, and
+ * gets it back as the parent of the nested elements. Top level elements have null parent.
+ *
+ * @see ReportWalker
+ * @version 0.1
+ */
+public interface ReportRenderer {
+
+    /**
+     * Renders chapter of use case diagrams
+     *
+     * @return section of the chapter
+     */
+    Object renderUseCases();
+
+    /**
+     * Renders section of the uml package
+     *
+     * @param parent section of the parent package, or null
+     * @param pkg    uml package
+     * @return section of the package
+     */
+    Object renderPackage(Object parent, Object pkg);
+
+    /**
+     * Renders the diagram with info of its elements
+     *
+     * @param parent  section of the package or folder, or null if diagram is placed on the top level
+     * @param diagram diagram, which info will be rendered
+     */
+    void renderDiagram(Object parent, Object diagram);
+}
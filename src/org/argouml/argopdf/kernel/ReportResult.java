@@ -0,0 +1,103 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+/**
+ * ReportResult represents the outcome of one run of <i>IReport.generateReport()</i>.
+ * A run either succeeds, fails with a localized error message which can be shown
+ * to the user, or is cancelled by the user before it has finished.
+ *
+ * @version 0.1
+ * @see org.argouml.argopdf.kernel.IReport
+ */
+public class ReportResult {
+
+    public static final int SUCCESS   = 0;
+    public static final int FAILED    = 1;
+    public static final int CANCELLED = 2;
+
+    private int status;
+    private String message;
+    private int processedDiagrams;
+    private ReportMetrics metrics;
+
+    private ReportResult(int status, String message, int processedDiagrams) {
+        this.status = status;
+        this.message = message;
+        this.processedDiagrams = processedDiagrams;
+    }
+
+    /**
+     * Creates result of the successfully generated report
+     *
+     * @param processedDiagrams amount of diagrams, which were added to the report
+     * @return an instance of <i>ReportResult</i> class
+     */
+    public static ReportResult success(int processedDiagrams) {
+        return new ReportResult(SUCCESS, null, processedDiagrams);
+    }
+
+    /**
+     * Creates result of the report, which was not generated
+     *
+     * @param message localized error message, which can be shown to the user
+     * @return an instance of <i>ReportResult</i> class
+     */
+    public static ReportResult failure(String message) {
+        return new ReportResult(FAILED, message, 0);
+    }
+
+    /**
+     * Creates result of the report, which generation was cancelled
+     *
+     * @param processedDiagrams amount of diagrams, which were processed before cancellation
+     * @return an instance of <i>ReportResult</i> class
+     */
+    public static ReportResult cancelled(int processedDiagrams) {
+        return new ReportResult(CANCELLED, null, processedDiagrams);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public boolean isSuccessful() {
+        return status == SUCCESS;
+    }
+
+    public boolean isCancelled() {
+        return status == CANCELLED;
+    }
+
+    /**
+     * @return localized error message, if report was not generated. Otherwise null.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    public int getProcessedDiagrams() {
+        return processedDiagrams;
+    }
+
+    /**
+     * @return metrics of the report generation, or null if they were not collected
+     */
+    public ReportMetrics getMetrics() {
+        return metrics;
+    }
+
+    void setMetrics(ReportMetrics metrics) {
+        this.metrics = metrics;
+    }
+}
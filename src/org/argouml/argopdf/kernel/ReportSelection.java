@@ -0,0 +1,426 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import org.argouml.kernel.Project;
+import org.argouml.model.Model;
+import org.argouml.ui.explorer.rules.GoModelToElements;
+import org.argouml.uml.UseCases;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * ReportSelection represents the contents of the report, which were selected by the user.
+ *
+ * Elements of the contents (project, folder of use case diagrams, packages and diagrams) are
+ * indexed in the order, in which they are written to the report: each element is followed by all
+ * its children. So the whole contents can be processed in a single pass over the indexes, and an
+ * element with all its children is a continuous range of indexes, see <i>getSubtreeEnd(int index)</i>.
+ * Selected elements are kept in a bitset. The element with index 0 is the root of the contents,
+ * usually an instance of <i>org.argouml.kernel.Project</i> class.
+ *
+ * An element is included in the report only if it and all its parents are selected.
+ *
+ * Contents of the packages can be loaded lazily, e.g. when the package is expanded in the dialog, so
+ * the packages of a big model are not explored before the dialog is shown. Package, which is not
+ * loaded, has no children yet. When it is loaded, its children are inserted after it and get its
+ * selection state, and indexes of the following elements are moved, see <i>load(int index)</i>.
+ * Reports are generated from the selection, in which all packages are loaded, see <i>getLoaded()</i>.
+ *
+ * Selection does not depend on Swing, so it can be created by the contents tree of the dialog as
+ * well as without GUI.
+ *
+ * @version 0.1
+ */
+public class ReportSelection {
+
+    private ArrayList elements = new ArrayList();
+    private int[] parents = new int[64];
+    private int[] ends    = new int[64];
+    private BitSet selected = new BitSet();
+    //packages, which contents are not loaded yet
+    private BitSet unloaded = new BitSet();
+    //index of diagrams, by which contents of the packages are loaded
+    private DiagramIndex diagramIndex;
+
+    /**
+     * Creates selection, which contains only the root element
+     *
+     * @param root root element of the contents
+     */
+    public ReportSelection(Object root) {
+        elements.add(root);
+        parents[0] = -1;
+        ends[0] = 1;
+    }
+
+    /**
+     * Creates copy of the selection
+     */
+    private ReportSelection(ReportSelection selection) {
+        elements     = new ArrayList(selection.elements);
+        parents      = (int[])selection.parents.clone();
+        ends         = (int[])selection.ends.clone();
+        selected     = (BitSet)selection.selected.clone();
+        unloaded     = (BitSet)selection.unloaded.clone();
+        diagramIndex = selection.diagramIndex;
+    }
+
+    /**
+     * Creates selection, which contains all the project data, which can be included in the report.
+     * No elements are selected.
+     *
+     * @param project project, which data will be included in the report
+     * @return selection of the report contents
+     */
+    public static ReportSelection create(Project project) {
+        ReportSelection selection = createLazy(project);
+        selection.loadAll();
+        return selection;
+    }
+
+    /**
+     * Creates selection, which contains the top level of the project data. Packages are not loaded,
+     * see <i>load(int index)</i>. No elements are selected.
+     *
+     * @param project project, which data will be included in the report
+     * @return selection of the report contents
+     */
+    public static ReportSelection createLazy(Project project) {
+        //all diagrams of the project are explored only once, but the model is explored by packages
+        ReportSelection selection = new ReportSelection(project);
+        selection.diagramIndex = new DiagramIndex(project);
+
+        int useCases = selection.add(0, new UseCases());
+        for(Object diagram : selection.diagramIndex.getUseCaseDiagrams()) {
+            selection.add(useCases, diagram);
+        }
+
+        for(Object el : selection.getPackageContents(project.getModel())) {
+            int index = selection.add(0, el);
+            if(Model.getFacade().isAPackage(el)) {
+                selection.unloaded.set(index);
+            }
+        }
+
+        for(Object diagram : selection.diagramIndex.getDeploymentDiagrams()) {
+            selection.add(0, diagram);
+        }
+
+        return selection;
+    }
+
+    /**
+     * Returns diagrams and subpackages of the package in the order of the report
+     *
+     * @param pkg package to explore
+     * @return children of the package in the selection
+     */
+    private List getPackageContents(Object pkg) {
+        List contents = new ArrayList();
+        contents.addAll(diagramIndex.getClassDiagrams(pkg));
+        contents.addAll(diagramIndex.getSequenceCollaborationActivityDiagrams(pkg));
+
+        Collection children = (new GoModelToElements()).getChildren(pkg);
+        for(Object el : children) {
+            if(Model.getFacade().isAPackage(el)) {
+                contents.add(el);
+            }
+        }
+
+        return contents;
+    }
+
+    /**
+     * @param index index of the element
+     * @return false, if element is a package, which contents are not loaded yet
+     */
+    public boolean isLoaded(int index) {
+        return !unloaded.get(index);
+    }
+
+    /**
+     * Loads contents of the package. Children of the package are inserted right after it and get the
+     * selection state of the package, subpackages are not loaded. Indexes of the elements, which follow
+     * the package, are increased by the amount of the inserted children.
+     *
+     * @param index index of the package
+     * @return amount of the inserted children, or 0 if package was already loaded
+     */
+    public int load(int index) {
+        if(!unloaded.get(index)) return 0;
+
+        unloaded.clear(index);
+        List children = getPackageContents(elements.get(index));
+        int count = children.size();
+        if(count == 0) return 0;
+
+        //package, which is not loaded, has no children, so they are inserted right after it
+        int position = index + 1;
+        int size = elements.size();
+        ensureCapacity(size + count);
+        System.arraycopy(parents, position, parents, position + count, size - position);
+        System.arraycopy(ends, position, ends, position + count, size - position);
+        for(int i = 0; i < size + count; i++) {
+            if(i == position) {
+                i += count - 1;
+                continue;
+            }
+            if(parents[i] >= position) {
+                parents[i] += count;
+            }
+            if(ends[i] >= position) {
+                ends[i] += count;
+            }
+        }
+        elements.addAll(position, children);
+        selected = insert(selected, position, count, selected.get(index));
+        unloaded = insert(unloaded, position, count, false);
+
+        for(int i = 0; i < count; i++) {
+            int child = position + i;
+            parents[child] = index;
+            ends[child] = child + 1;
+            if(Model.getFacade().isAPackage(children.get(i))) {
+                unloaded.set(child);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Loads contents of all packages
+     */
+    public void loadAll() {
+        //children of the loaded package follow it, so they are loaded by the next iterations
+        for(int i = unloaded.nextSetBit(0); i >= 0; i = unloaded.nextSetBit(i)) {
+            load(i);
+        }
+    }
+
+    /**
+     * Returns selection, in which contents of all packages are loaded, e.g. for the report. Indexes
+     * of this selection, which can be used by the contents tree, are not changed.
+     *
+     * @return this selection, if all packages are loaded, otherwise its loaded copy
+     */
+    public ReportSelection getLoaded() {
+        if(unloaded.isEmpty()) return this;
+
+        ReportSelection copy = new ReportSelection(this);
+        copy.loadAll();
+        return copy;
+    }
+
+    /**
+     * Inserts bits into the bitset, moving the following bits
+     *
+     * @param bits     bitset
+     * @param position index of the first inserted bit
+     * @param count    amount of the inserted bits
+     * @param value    value of the inserted bits
+     * @return new bitset
+     */
+    private static BitSet insert(BitSet bits, int position, int count, boolean value) {
+        BitSet result = bits.get(0, position);
+        for(int i = bits.nextSetBit(position); i >= 0; i = bits.nextSetBit(i + 1)) {
+            result.set(i + count);
+        }
+        result.set(position, position + count, value);
+        return result;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if(capacity <= parents.length) return;
+
+        int length = Math.max(capacity, parents.length * 2);
+        int[] newParents = new int[length];
+        int[] newEnds    = new int[length];
+        System.arraycopy(parents, 0, newParents, 0, parents.length);
+        System.arraycopy(ends, 0, newEnds, 0, ends.length);
+        parents = newParents;
+        ends    = newEnds;
+    }
+
+    /**
+     * Adds element to the selection as the last child of the parent. Elements should be added in
+     * the order of the report, i.e. parent should be the last added element or one of its parents.
+     * Added element is not selected.
+     *
+     * @param parent  index of the parent element
+     * @param element element to add
+     * @return index of the added element
+     */
+    public int add(int parent, Object element) {
+        int index = elements.size();
+        if(parent < 0 || parent >= index || ends[parent] != index) {
+            throw new IllegalArgumentException("Element can be added only to the last added element or its parents");
+        }
+
+        ensureCapacity(index + 1);
+        elements.add(element);
+        parents[index] = parent;
+        ends[index] = index + 1;
+        for(int i = parent; i >= 0; i = parents[i]) {
+            ends[i] = index + 1;
+        }
+
+        return index;
+    }
+
+    /**
+     * Creates selection, which contains only the element with all its children, e.g. for the preview
+     * of the element. Parents of the element are kept, so the element is placed in the same chapter
+     * as in the whole report. All elements of the new selection are selected. Packages, which are
+     * not loaded, are copied without contents, see <i>getLoaded()</i>.
+     *
+     * @param index index of the element
+     * @return selection of the element
+     */
+    public ReportSelection getSubtree(int index) {
+        ReportSelection subtree = new ReportSelection(elements.get(0));
+        subtree.diagramIndex = diagramIndex;
+
+        int depth = 0;
+        for(int i = index; i > 0; i = parents[i]) {
+            ++depth;
+        }
+        int[] path = new int[depth];
+        for(int i = index; i > 0; i = parents[i]) {
+            path[--depth] = i;
+        }
+
+        int parent = 0;
+        for(int i = 0; i < path.length - 1; i++) {
+            parent = subtree.add(parent, elements.get(path[i]));
+        }
+
+        //indexes of the copied elements in the new selection
+        int[] copied = new int[ends[index] - index];
+        copied[0] = index > 0 ? subtree.add(parent, elements.get(index)) : 0;
+        for(int i = index + 1; i < ends[index]; i++) {
+            copied[i - index] = subtree.add(copied[parents[i] - index], elements.get(i));
+        }
+        for(int i = unloaded.nextSetBit(index); i >= 0 && i < ends[index]; i = unloaded.nextSetBit(i + 1)) {
+            subtree.unloaded.set(copied[i - index]);
+        }
+        subtree.setSubtreeSelected(0, true);
+
+        return subtree;
+    }
+
+    /**
+     * @return amount of elements in the selection
+     */
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * @param index index of the element
+     * @return element with the specified index
+     */
+    public Object getElement(int index) {
+        return elements.get(index);
+    }
+
+    /**
+     * @param index index of the element
+     * @return index of the parent element, or -1 for the root element
+     */
+    public int getParent(int index) {
+        return parents[index];
+    }
+
+    /**
+     * Returns index, which follows the last child of the element. So children of the element
+     * have indexes from <i>index + 1</i> to <i>getSubtreeEnd(index) - 1</i>, and the next sibling
+     * of the element, if any, has index <i>getSubtreeEnd(index)</i>.
+     *
+     * @param index index of the element
+     * @return index, which follows the element and all its children
+     */
+    public int getSubtreeEnd(int index) {
+        return ends[index];
+    }
+
+    /**
+     * @param index index of the element
+     * @return true, if element was selected
+     */
+    public boolean isSelected(int index) {
+        return selected.get(index);
+    }
+
+    /**
+     * Selects only the specified element
+     *
+     * @param index      index of the element
+     * @param isSelected true, if element should be selected
+     */
+    public void setSelected(int index, boolean isSelected) {
+        selected.set(index, isSelected);
+    }
+
+    /**
+     * Selects the element with all its children
+     *
+     * @param index      index of the element
+     * @param isSelected true, if elements should be selected
+     */
+    public void setSubtreeSelected(int index, boolean isSelected) {
+        selected.set(index, ends[index], isSelected);
+    }
+
+    /**
+     * Counts elements of the specified type, which are included in the report, i.e. which are
+     * selected together with all their parents.
+     *
+     * @param type type of elements to count
+     * @return amount of included elements of the specified type
+     */
+    public int countSelected(Class type) {
+        return countSelected(type, 0);
+    }
+
+    /**
+     * Counts selected elements of the specified type among the element and all its children.
+     * Parents of the element are not checked.
+     *
+     * @param type  type of elements to count
+     * @param start index of the element
+     * @return amount of selected elements of the specified type
+     */
+    public int countSelected(Class type, int start) {
+        int count = 0;
+        int index = start;
+        int end = ends[start];
+        while(index < end) {
+            if(!selected.get(index)) {
+                index = ends[index];
+                continue;
+            }
+
+            if(type.isInstance(elements.get(index))) {
+                ++count;
+            }
+            ++index;
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,158 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import com.lowagie.text.Font;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PdfPCell;
+
+import java.awt.Color;
+
+/**
+ * ReportStyles is the registry of fonts, header cells and table widths, which are shared by
+ * the helpers of the report, so the same objects are not created again for every cell and title.
+ *
+ * Fonts and width arrays, which are returned by the registry, are shared and must not be modified.
+ * Width arrays can be passed to <i>PdfPTable.setWidths</i>, because the table copies them. If the font
+ * with another style is needed, new font should be created. Registry is not changed after creation,
+ * so it can be used by several threads at the same time.
+ *
+ * @version 0.1
+ */
+public class ReportStyles {
+
+    private static final ReportStyles INSTANCE = new ReportStyles();
+
+    private final Font[] titleFonts;
+    private final Font reportTitleFont;
+    private final Font headerFont;
+    private final Font textFont;
+    private final Font abstractTextFont;
+    private final Font staticTextFont;
+
+    private final PdfPCell headerCell;
+
+    private final float[] iconLabelWidths     = new float[]{1, 7};
+    private final float[] propertyWidths      = new float[]{1f, 3f};
+    private final float[] documentationWidths = new float[]{2f, 3f};
+    private final float[] relationshipWidths  = new float[]{2f, 6f};
+    private final float[] elementsInfoWidths  = new float[]{1f, 2f};
+
+    private ReportStyles() {
+        int[] titleSizes = new int[]{25, 20, 18, 16, 14, 12};
+        titleFonts = new Font[titleSizes.length];
+        for(int i = 0; i < titleSizes.length; i++) {
+            titleFonts[i] = new Font(Font.HELVETICA, titleSizes[i], Font.BOLD);
+        }
+
+        reportTitleFont  = new Font(Font.UNDEFINED, 25, Font.BOLD);
+        headerFont       = new Font(Font.HELVETICA, 12, Font.BOLD, Color.WHITE);
+        textFont         = new Font(Font.HELVETICA, 12);
+        abstractTextFont = new Font(Font.HELVETICA, 12, Font.ITALIC);
+        staticTextFont   = new Font(Font.HELVETICA, 12, Font.UNDERLINE);
+
+        headerCell = new PdfPCell();
+        headerCell.setBackgroundColor(TableUtils.TABLE_HEADER_COLOR);
+    }
+
+    /**
+     * @return styles of the report
+     */
+    public static ReportStyles getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param depth depth of the title. The deeper title is, the smaller font it has.
+     * @return bold font of the title
+     */
+    public Font getTitleFont(int depth) {
+        return depth >= 0 && depth < titleFonts.length ? titleFonts[depth] : titleFonts[titleFonts.length - 1];
+    }
+
+    /**
+     * @return font of the title on the title page
+     */
+    public Font getReportTitleFont() {
+        return reportTitleFont;
+    }
+
+    /**
+     * @return font of the text in the header cells of tables
+     */
+    public Font getHeaderFont() {
+        return headerFont;
+    }
+
+    /**
+     * Returns font of the text of an element. Abstract elements are shown in italic, static elements
+     * are underlined. If element is both abstract and static, it is underlined.
+     *
+     * @param isAbstract defines, whether element is abstract
+     * @param isStatic   defines, whether element is static
+     * @return font of the text
+     */
+    public Font getTextFont(boolean isAbstract, boolean isStatic) {
+        return isStatic ? staticTextFont : isAbstract ? abstractTextFont : textFont;
+    }
+
+    /**
+     * Creates a header cell of a table. The cell is copied from the prototype, which has the table cap color.
+     *
+     * @param text    text of a cell
+     * @param colspan colspan of a cell
+     * @return a header cell of a table
+     */
+    public PdfPCell createHeaderCell(String text, int colspan) {
+        PdfPCell cell = new PdfPCell(headerCell);
+        cell.setColspan(colspan);
+        cell.setPhrase(new Paragraph(text, headerFont));
+
+        return cell;
+    }
+
+    /**
+     * @return widths of the table with an icon and a label
+     */
+    public float[] getIconLabelWidths() {
+        return iconLabelWidths;
+    }
+
+    /**
+     * @return widths of the table with property and value columns
+     */
+    public float[] getPropertyWidths() {
+        return propertyWidths;
+    }
+
+    /**
+     * @return widths of the table with name and documentation columns
+     */
+    public float[] getDocumentationWidths() {
+        return documentationWidths;
+    }
+
+    /**
+     * @return widths of the table with info of the relationship
+     */
+    public float[] getRelationshipWidths() {
+        return relationshipWidths;
+    }
+
+    /**
+     * @return widths of the table, which is created by <i>TableUtils.generateElementsInfo</i>
+     */
+    public float[] getElementsInfoWidths() {
+        return elementsInfoWidths;
+    }
+}
@@ -45,31 +45,41 @@ import org.argouml.uml.diagram.state.ui.UMLStateDiagram;
 import org.argouml.uml.diagram.ui.UMLDiagram;
 import org.argouml.uml.diagram.static_structure.ui.UMLClassDiagram;
 import org.argouml.uml.diagram.use_case.ui.UMLUseCaseDiagram;
-import org.argouml.uml.ui.SaveGraphicsManager;
 import org.argouml.uml.ui.foundation.core.ActionSetAssociationEndAggregation;
-import org.argouml.ui.targetmanager.TargetManager;
 import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.uml.UseCases;
 import org.argouml.application.helpers.ResourceLoaderWrapper;
-import org.argouml.configuration.Configuration;
 import org.argouml.i18n.Translator;
 import org.argouml.model.Model;
 import org.argouml.model.Facade;
 import org.argouml.argopdf.kernel.helpers.UseCasesDiagramHelper;
-import org.tigris.gef.base.SaveGraphicsAction;
-import org.tigris.gef.base.CmdSaveGraphics;
+import org.tigris.gef.base.Layer;
+import org.tigris.gef.presentation.Fig;
 import org.apache.log4j.Logger;
 import com.lowagie.text.*;
 import com.lowagie.text.Image;
 import com.lowagie.text.Font;
-import com.lowagie.text.pdf.codec.PngImage;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
-
+import com.lowagie.text.pdf.PdfAction;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
 import javax.swing.*;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.awt.*;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * Contains helper methods for report generation
@@ -80,6 +90,10 @@ import java.util.ArrayList;
 public class ReportUtils {
 
     private static final Logger LOG = Logger.getLogger(ReportUtils.class);
+    private static final ReportStyles STYLES = ReportStyles.getInstance();
+
+    //empty border around vector image of the diagram
+    private static final int DIAGRAM_BORDER = 8;
 
     /**
      * Finds the image name of the uml object according to the instance of parameter class.
@@ -107,13 +121,18 @@ public class ReportUtils {
 
     /**
      * Returns element name. If element does not have a name, returns string 'Unnamed elementType',
-     * where elemenType is a type of element: Actor, UseCase and etc. 
+     * where elemenType is a type of element: Actor, UseCase and etc. The folder of the use case
+     * diagrams is not a model element, so it gets the same title as in the tree of the dialog.
      *
-     * @param element uml element
+     * @param element uml element, diagram or folder of the use case diagrams
      * @return elements name, or string 'Unnamed elementType', if element does not have a name or it
      *         is empty
      */
     public static String getElementName(Object element) {
+        if(element instanceof UseCases) {
+            return Translator.localize("argopdf.dialog.tab.general.tree.usecases");
+        }
+
         String name;
 
         if(element instanceof UMLUseCaseDiagram       || element instanceof UMLClassDiagram    ||
@@ -170,44 +189,91 @@ public class ReportUtils {
     }
 
     /**
-     * Generates element name with referenced anchor.
+     * Generates element name with referenced anchor. Anchor defines destination of the element,
+     * so it should be placed at the beginning of the details of the element.
      *
+     * @param context context of the report
      * @param element any uml element
      * @return an instance of <i>Anchor</i> class, which contains elements name and referenced anchor
      */
-    public static Anchor getAnchorElementName(Object element) {
+    public static Anchor getAnchorElementName(ReportContext context, Object element) {
         String elementName = getElementName(element);
         Anchor anchor = new Anchor(elementName);
-        anchor.setName(element.getClass() + "_" + element.hashCode());
+        anchor.setName(context.getElementIndex().define(element));
 
         return anchor;
     }
 
     /**
-     * Generates element name with reference to this element.
+     * Generates element name with reference to this element. Reference goes to the named destination,
+     * so it is resolved, even if details of the element are written later or to another chapter
+     * of the incremental report.
      *
+     * @param context context of the report
      * @param element any uml element
      * @return an instance of <i>Anchor</i> class, which contains elements name and reference
      *         to this element
      */
-    public static Anchor getElementNameWithReference(Object element) {
-        String elementName = getElementName(element);
-        Anchor anchor = new Anchor(elementName);
+    public static Anchor getElementNameWithReference(ReportContext context, Object element) {
+        return createReference(getElementName(element), context.getElementIndex().reference(element));
+    }
 
-        //TODO check
-        //anchor.setReference("#" + element.getClass() + "_" + element.hashCode());
+    /**
+     * Creates text with reference to the named destination
+     *
+     * @param text        text of the reference
+     * @param destination name of the destination
+     * @return an instance of <i>Anchor</i> class, which contains the text and the reference
+     */
+    public static Anchor createReference(String text, String destination) {
+        Chunk chunk = new Chunk(text);
+        chunk.setAction(PdfAction.gotoLocalPage(destination, false));
 
+        Anchor anchor = new Anchor();
+        anchor.add(chunk);
         return anchor;
     }
 
     /**
-     * Generates text font according to the depth parameter.
+     * Creates chapter, which lists all elements defined or referenced by the report. Described
+     * elements are listed with reference to their details. Elements, which are only referenced,
+     * define their destinations in this chapter, so all references of the report have a target.
+     *
+     * @param context context of the report
+     * @return chapter of the element index, or null if report does not contain any element
+     */
+    public static Chapter createElementIndexChapter(ReportContext context) {
+        List entries = context.getElementIndex().getEntries();
+        if(entries.isEmpty()) return null;
+
+        Chapter chapter = context.createChapter(Translator.localize("argopdf.report.index.title"), false);
+        PdfPTable table = TableUtils.generateTableCap(1);
+        table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.name")));
+        for(Object o : entries) {
+            ElementIndex.Entry entry = (ElementIndex.Entry)o;
+            Anchor anchor;
+            if(entry.isDefined()) {
+                anchor = createReference(entry.getLabel(), entry.getDestination());
+            } else {
+                anchor = new Anchor(entry.getLabel());
+                anchor.setName(entry.getDestination());
+                anchor.add(new Chunk(" " + Translator.localize("argopdf.report.index.not.described")));
+            }
+            table.addCell(TableUtils.createCell(context, anchor, 1, null, entry.getImageName(), null));
+        }
+        chapter.add(table);
+
+        return chapter;
+    }
+
+    /**
+     * Returns text font according to the depth parameter. Font is shared, so it must not be modified.
      *
      * @param depth parameter, according to which font size is determined.
      * @return an instance of <i>Font</i> class with appropriate size
      */
     public static Font getTextFont(int depth) {
-        return new Font(Font.HELVETICA, depth == 0 ? 25 : depth == 1 ? 20 : depth == 2 ? 18 : depth == 3 ? 16 : depth == 4 ? 14 : 12, Font.BOLD);
+        return STYLES.getTitleFont(depth);
     }
 
     /**
@@ -267,6 +333,25 @@ public class ReportUtils {
         return documentation;
     }
 
+    /**
+     * Creates section of the diagram. If parent section is defined, a new subsection is added to it,
+     * otherwise a new chapter is created. Number of the section is assigned at this moment, so sections
+     * should be created in the order of the report contents.
+     *
+     * @param context context of the report, which numbers the chapters
+     * @param parent  parent section, or null if diagram should be placed in its own chapter
+     * @param diagram diagram, which will be described in the section
+     * @return a new section, which title is the name of the diagram
+     */
+    public static Section createDiagramSection(ReportContext context, Section parent, Object diagram) {
+        String name = getElementName(diagram);
+        if(parent != null) {
+            return parent.addSection(generateTitle(name, 1, false), parent.depth() + 1);
+        }
+
+        return context.createChapter(name, false);
+    }
+
     /**
      * Creates an image of the diagram, which goes as parameter
      *
@@ -274,30 +359,362 @@ public class ReportUtils {
      * @return an instance of <i>Image</i> class, which contains an image of diagram
      */
     public static Image makeImageOfDiagram(ArgoDiagram diagram) {
-        TargetManager tm = TargetManager.getInstance();
-        tm.setTarget(diagram);
+        ImagePolicy policy = ImagePolicy.getDefault();
+        float scale = getImageScale(diagram, policy, 0, 0);
+        return decodeImageOfDiagram(renderImageOfDiagram(diagram, policy, scale), scale);
+    }
+
+    /**
+     * Decodes image of the diagram. Size of the returned image equals to the size of the diagram
+     * at scale 1, so it can be adjusted to the page by <i>adjustImageSizeToDocumentPageSize</i>.
+     *
+     * @param data  PNG or JPEG image, which was rendered by <i>renderImageOfDiagram</i> method
+     * @param scale scale, with which image was rendered
+     * @return an instance of <i>Image</i> class, or null if image can not be decoded
+     */
+    public static Image decodeImageOfDiagram(byte[] data, float scale) {
+        if(data == null) return null;
+
+        try {
+            Image im = Image.getInstance(data);
+            if(scale > 0) {
+                im.scalePercent(100f / scale);
+            }
+            return im;
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+        } catch(BadElementException ex) {
+            LOG.debug(ex.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Calculates scale, with which the diagram should be rendered according to the image policy,
+     * so that its image has the resolution of the policy on the page.
+     *
+     * @param diagram   diagram, which image needs to be rendered
+     * @param policy    image policy of the report
+     * @param maxWidth  width of the page area, where image is placed, or 0 if it is not limited
+     * @param maxHeight height of the page area, where image is placed, or 0 if it is not limited
+     * @return scale of the image
+     */
+    public static float getImageScale(ArgoDiagram diagram, ImagePolicy policy, float maxWidth, float maxHeight) {
+        Dimension size = getDiagramSize(diagram);
+        if(size == null) return 1f;
+
+        return policy.getScale(size.width, size.height, maxWidth, maxHeight);
+    }
+
+    /**
+     * Calculates size of the diagram image at scale 1, including the border around the figs
+     *
+     * @param diagram diagram, which image needs to be rendered
+     * @return size of the image, or null if diagram does not contain visible figs
+     */
+    public static Dimension getDiagramSize(final ArgoDiagram diagram) {
+        final Rectangle[] area = new Rectangle[1];
+        runOnEventThread(new Runnable() {
+            public void run() {
+                Layer layer = diagram.getLayer();
+                area[0] = layer != null ? calcDrawingArea(layer) : null;
+            }
+        });
+        if(area[0] == null) return null;
+
+        return new Dimension(area[0].width + 2 * DIAGRAM_BORDER, area[0].height + 2 * DIAGRAM_BORDER);
+    }
+
+    /**
+     * Renders image of the diagram and encodes it according to the image policy. If the diagram
+     * was not changed since its image was rendered last time, image is taken from <i>DiagramImageCache</i>
+     * of the policy.
+     *
+     * @param diagram diagram, which image needs to be rendered
+     * @param policy  image policy of the report
+     * @param scale   scale of the image, see <i>getImageScale</i>
+     * @return PNG or JPEG image of the diagram, or null if diagram can not be rendered
+     */
+    public static byte[] renderImageOfDiagram(ArgoDiagram diagram, ImagePolicy policy, float scale) {
+        return renderTileOfDiagram(diagram, policy, scale, null, null);
+    }
+
+    /**
+     * Renders only the given area of the diagram image, see <i>DiagramTiling</i>. Figs outside of
+     * the area are clipped, so the memory is needed only for the image of the area.
+     *
+     * @param diagram     diagram, which image needs to be rendered
+     * @param policy      image policy of the report
+     * @param scale       scale of the image
+     * @param tile        area of the diagram image at scale 1, or null if the whole image should be rendered
+     * @param fingerprint fingerprint of the diagram, see <i>getFingerprintOfDiagram</i>, or null if
+     *                    it should be calculated. Tiles of one diagram share its fingerprint.
+     * @return PNG or JPEG image of the area, or null if diagram can not be rendered
+     */
+    public static byte[] renderTileOfDiagram(final ArgoDiagram diagram, ImagePolicy policy, final float scale,
+                                             final Rectangle tile, String fingerprint) {
+        DiagramImageCache cache = policy.getCache();
+        String key = null;
+        if(cache != null) {
+            if(fingerprint == null) {
+                fingerprint = getFingerprintOfDiagram(diagram);
+            }
+
+            String format = policy.getKey();
+            if(tile != null) {
+                format += "-" + tile.x + "_" + tile.y + "_" + tile.width + "_" + tile.height;
+            }
+            key = DiagramImageCache.getKey(fingerprint, scale, format);
+            byte[] cached = cache.get(key);
+            if(cached != null) {
+                return cached;
+            }
+        }
+
+        //figs of the diagram belong to ArgoUML GUI, so they are painted on the event dispatch thread.
+        //GEF layer is painted directly, so the target of ArgoUML is not changed and no listeners are notified.
+        final BufferedImage[] image = new BufferedImage[1];
+        runOnEventThread(new Runnable() {
+            public void run() {
+                image[0] = paintImageOfDiagram(diagram, scale, tile);
+            }
+        });
+        if(image[0] == null) return null;
+
+        byte[] data = encodeImage(image[0], policy);
+        if(data != null && key != null) {
+            cache.put(key, data);
+        }
+        return data;
+    }
+
+    /**
+     * Calculates fingerprint of the diagram, which is the key of its images in <i>DiagramImageCache</i>.
+     * Figs of the diagram are explored on the event dispatch thread, as they are changed there.
+     *
+     * @param diagram diagram, which fingerprint is needed
+     * @return fingerprint of the diagram
+     */
+    public static String getFingerprintOfDiagram(final ArgoDiagram diagram) {
+        final String[] fingerprint = new String[1];
+        runOnEventThread(new Runnable() {
+            public void run() {
+                fingerprint[0] = ReportFingerprint.getDiagramFingerprint(diagram, null);
+            }
+        });
+        return fingerprint[0];
+    }
+
+    /**
+     * Encodes the image as PNG with the compression level of the policy, or as JPEG with
+     * the quality of the policy.
+     *
+     * @param image  image to encode
+     * @param policy image policy of the report
+     * @return encoded image, or null if image can not be encoded
+     */
+    private static byte[] encodeImage(BufferedImage image, ImagePolicy policy) {
+        Iterator writers = ImageIO.getImageWritersByFormatName(policy.isLossy() ? "jpeg" : "png");
+        if(!writers.hasNext()) return null;
+
+        ImageWriter writer = (ImageWriter)writers.next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if(param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            //higher quality means weaker compression
+            param.setCompressionQuality(policy.isLossy() ? policy.getQuality() : 1f - policy.getCompressionLevel() / 9f);
+        }
 
-        //SaveGraphicsAction cmd = SaveGraphicsManager.getInstance().getSaveActionBySuffix("png");
-        //CmdSaveGraphics sg = SaveGraphicsManager.getInstance().getSaveCommandBySuffix("png");
-        SaveGraphicsAction sg = SaveGraphicsManager.getInstance().getSaveActionBySuffix("png");
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        //cmd.setStream(outputStream);
-        sg.setStream(outputStream);
-        //cmd.setScale(Configuration.getInteger(SaveGraphicsManager.KEY_GRAPHICS_RESOLUTION, 1));
-        sg.setScale(Configuration.getInteger(SaveGraphicsManager.KEY_GRAPHICS_RESOLUTION, 1));
-        //cmd.actionPerformed(null);
-        sg.actionPerformed(null);
+        try {
+            ImageOutputStream ios = ImageIO.createImageOutputStream(outputStream);
+            try {
+                writer.setOutput(ios);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                ios.close();
+            }
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+            return null;
+        } finally {
+            writer.dispose();
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Paints GEF layer of the diagram into a new raster image. Only visible figs are painted,
+     * and image has a white border around them. This method should be called on the event dispatch thread.
+     *
+     * @param diagram diagram, which image needs to be painted
+     * @param scale   scale of the image
+     * @param tile    area of the diagram image at scale 1, which should be painted, or null
+     *                if the whole image should be painted
+     * @return image of the diagram, or null if diagram does not contain visible figs
+     */
+    private static BufferedImage paintImageOfDiagram(ArgoDiagram diagram, float scale, Rectangle tile) {
+        Layer layer = diagram.getLayer();
+        if(layer == null) return null;
+
+        Rectangle area = calcDrawingArea(layer);
+        if(area == null) return null;
+
+        if(tile == null) {
+            tile = new Rectangle(0, 0, area.width + 2 * DIAGRAM_BORDER, area.height + 2 * DIAGRAM_BORDER);
+        }
+        int width  = Math.max(1, Math.round(tile.width  * scale));
+        int height = Math.max(1, Math.round(tile.height * scale));
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.scale(scale, scale);
+            //GEF layer paints only figs, which intersect the clip
+            g.translate(-tile.x, -tile.y);
+            g.clip(tile);
+            g.translate(DIAGRAM_BORDER - area.x, DIAGRAM_BORDER - area.y);
+            layer.paint(g);
+        } catch(RuntimeException ex) {
+            LOG.debug(ex.getMessage());
+            return null;
+        } finally {
+            g.dispose();
+        }
+
+        return image;
+    }
+
+    /**
+     * Draws the diagram as vector graphics into a new template of the current document.
+     * GEF layer of the diagram is painted directly, so no intermediate raster image is created.
+     *
+     * @param diagram an instance of <i>ArgoDiagram</i> class, which image needs to be generated
+     * @param cb      direct content of the current document
+     * @return an instance of <i>Image</i> class, which wraps the template with the diagram,
+     *         or null if diagram can not be drawn
+     */
+    public static Image makeVectorImageOfDiagram(final ArgoDiagram diagram, final PdfContentByte cb) {
+        final PdfTemplate[] template = new PdfTemplate[1];
+
+        //figs of the diagram belong to ArgoUML GUI, so they are painted on the event dispatch thread
+        runOnEventThread(new Runnable() {
+            public void run() {
+                Layer layer = diagram.getLayer();
+                if(layer == null) return;
+
+                Rectangle area = calcDrawingArea(layer);
+                if(area == null) return;
+
+                float width  = area.width  + 2 * DIAGRAM_BORDER;
+                float height = area.height + 2 * DIAGRAM_BORDER;
+                PdfTemplate tp = cb.createTemplate(width, height);
+                Graphics2D g = tp.createGraphics(width, height);
+                try {
+                    g.translate(DIAGRAM_BORDER - area.x, DIAGRAM_BORDER - area.y);
+                    layer.paint(g);
+                } catch(RuntimeException ex) {
+                    LOG.debug(ex.getMessage());
+                    return;
+                } finally {
+                    g.dispose();
+                }
+                template[0] = tp;
+            }
+        });
+
+        if(template[0] == null) return null;
 
         Image im = null;
         try {
-            im = PngImage.getImage(outputStream.toByteArray());
+            im = Image.getInstance(template[0]);
+        } catch(BadElementException ex) {
+            LOG.debug(ex.getMessage());
+        }
+
+        return im;
+    }
+
+    /**
+     * Calculates the area, which is occupied by visible figs of the layer
+     *
+     * @param layer layer of the diagram
+     * @return area of the layer, or null if layer does not contain visible figs
+     */
+    private static Rectangle calcDrawingArea(Layer layer) {
+        Rectangle area = null;
+        List figs = layer.getContents();
+        if(figs == null) return null;
+
+        for(Object el : figs) {
+            Fig fig = (Fig)el;
+            if(!fig.isVisible()) continue;
+
+            Rectangle bounds = fig.getBounds();
+            if(area == null) {
+                area = new Rectangle(bounds);
+            } else {
+                area.add(bounds);
+            }
+        }
+
+        if(area == null || area.width <= 0 || area.height <= 0) return null;
+        return area;
+    }
+
+    /**
+     * Creates an image of the standard ArgoUML icon
+     *
+     * @param iconName standard name of the icon
+     * @return an instance of <i>Image</i> class, or null if icon was not found
+     * @see ReportContext#getIconImage(String)
+     */
+    static Image createIconImage(String iconName) {
+        ImageIcon icon = ResourceLoaderWrapper.lookupIconResource(iconName);
+        if(icon == null && iconName.length() > 1) {
+            icon = ResourceLoaderWrapper.lookupIconResource(iconName.substring(0, 1).toUpperCase() + iconName.substring(1));
+        }
+        if(icon == null) return null;
+
+        Image im = null;
+        try {
+            im = Image.getInstance(icon.getImage(), null);
         } catch(IOException ex) {
             LOG.debug(ex.getMessage());
+        } catch(BadElementException ex) {
+            LOG.debug(ex.getMessage());
         }
 
         return im;
     }
 
+    /**
+     * Runs the task on the event dispatch thread and waits until it will be finished.
+     * If current thread is the event dispatch thread, task is run immediately.
+     *
+     * @param task task to run
+     */
+    public static void runOnEventThread(Runnable task) {
+        if(SwingUtilities.isEventDispatchThread()) {
+            task.run();
+            return;
+        }
+
+        try {
+            SwingUtilities.invokeAndWait(task);
+        } catch(InterruptedException ex) {
+            LOG.debug(ex.getMessage());
+            Thread.currentThread().interrupt();
+        } catch(InvocationTargetException ex) {
+            LOG.debug(ex.getMessage());
+        }
+    }
+
     /**
      * Changes the image size, that it can be placed on one page
      *
@@ -307,21 +724,62 @@ public class ReportUtils {
     public static void adjustImageSizeToDocumentPageSize(Image image, Document document) {
         if(image == null || document == null) return;
 
-        float imageWidth = document.getPageSize().width() - document.rightMargin() - document.leftMargin();
-        float imageHeight = document.getPageSize().height() - document.topMargin() - document.bottomMargin();
+        float imageWidth = getPageAreaWidth(document);
+        float imageHeight = getPageAreaHeight(document);
 
-        if(image.height() > imageHeight || image.width() > imageWidth) {
-            float coeff1 = imageWidth / image.width();
-            float coeff2 = imageHeight / image.height();
+        if(image.scaledHeight() > imageHeight || image.scaledWidth() > imageWidth) {
+            float coeff1 = imageWidth / image.scaledWidth();
+            float coeff2 = imageHeight / image.scaledHeight();
 
             if(coeff2 < coeff1) {
                 coeff1 = coeff2;
             }
 
-            image.scaleAbsolute(image.width() * coeff1, image.height() * coeff1);
+            image.scaleAbsolute(image.scaledWidth() * coeff1, image.scaledHeight() * coeff1);
+        }
+    }
+
+    /**
+     * Adds images of the diagram to the section. First image is placed on the current page, each of
+     * the next images (tiles of the diagram, see <i>DiagramImageProvider.getImages</i>) is placed
+     * on its own page with the caption.
+     *
+     * @param document current document
+     * @param section  section, where images are added
+     * @param images   images of the diagram
+     */
+    public static void addDiagramImages(Document document, Section section, List images) {
+        for(int i = 0; i < images.size(); i++) {
+            Image im = (Image)images.get(i);
+            adjustImageSizeToDocumentPageSize(im, document);
+            if(i > 0) {
+                section.add(Chunk.NEXTPAGE);
+                section.add(new Paragraph(Translator.localize("argopdf.report.diagram.part",
+                                                              new Object[] {new Integer(i), new Integer(images.size() - 1)}),
+                                          STYLES.getTextFont(false, false)));
+            }
+            section.add(Chunk.NEWLINE);
+            section.add(new Chunk(im, 0, 0, true));
+            section.add(Chunk.NEWLINE);
         }
     }
 
+    /**
+     * @param document current document
+     * @return width of the page without margins
+     */
+    public static float getPageAreaWidth(Document document) {
+        return document.getPageSize().width() - document.rightMargin() - document.leftMargin();
+    }
+
+    /**
+     * @param document current document
+     * @return height of the page without margins
+     */
+    public static float getPageAreaHeight(Document document) {
+        return document.getPageSize().height() - document.topMargin() - document.bottomMargin();
+    }
+
     /**
      * Generates info of modifiers which are common to every uml element. This info is
      * presented as a string with a comma separator.
@@ -373,9 +831,9 @@ public class ReportUtils {
         PdfPTable table = new PdfPTable(2);
         try {
             table.setWidthPercentage(100);
-            table.setWidths(new float[]{1f, 3f});
+            table.setWidths(STYLES.getPropertyWidths());
 
-            Font captionFont = new Font(Font.HELVETICA, 12, Font.BOLD, Color.WHITE);
+            Font captionFont = STYLES.getHeaderFont();
 /*
             table.addCell(createCell(Translator.localize("argopdf.report.modifiers.table.name"),
                                      1, TABLE_HEADER_COLOR, captionFont));
@@ -424,6 +882,7 @@ public class ReportUtils {
      * At the beginning text parameter is checked. If it is null, anchor parameter is used. If
      * both parameters are null, method returns empty <i>Phrase</i>.
      *
+     * @param context   context of the report, which provides the image
      * @param imageName name of the image
      * @param text      label of the image
      * @param anchor    anchor of the image
@@ -431,26 +890,20 @@ public class ReportUtils {
      * @return an instance of <i>Phrase</i> class, with image and its label. Returns empty <i>Phrase</i> if both
      *         parameters: text and anchor are null.
      */
-    public static Phrase createImageLabelPhrase(String imageName, String text, Anchor anchor, int textDepth) {
+    public static Phrase createImageLabelPhrase(ReportContext context, String imageName, String text, Anchor anchor, int textDepth) {
         Phrase phrase = new Phrase();
         if(text == null && anchor == null) return phrase;
 
-        try {
-            ImageIcon icon = ResourceLoaderWrapper.lookupIconResource(imageName);
-            com.lowagie.text.Image im = com.lowagie.text.Image.getInstance(icon.getImage(), null);
+        com.lowagie.text.Image im = context.getIconImage(imageName);
+        if(im != null) {
             im.setAlignment(com.lowagie.text.Image.ALIGN_BOTTOM);
-
             phrase.add(new Chunk(im, 0, 0, true));
-            if(text != null) {
-                phrase.add(ReportUtils.generateTitle(text, textDepth, false));
-            } else {
-                phrase.add(ReportUtils.generateTitle(anchor, textDepth, false));
-            }
+        }
 
-        } catch(IOException ex) {
-            LOG.debug(ex.getMessage());
-        } catch(BadElementException ex) {
-            LOG.debug(ex.getMessage());
+        if(text != null) {
+            phrase.add(ReportUtils.generateTitle(text, textDepth, false));
+        } else {
+            phrase.add(ReportUtils.generateTitle(anchor, textDepth, false));
         }
 
         return phrase;
@@ -459,32 +912,34 @@ public class ReportUtils {
     /**
      * Generates an instance of <i>Phrase</i> class, with image and label in it.
      *
+     * @param context   context of the report, which provides the image
      * @param imageName name of the standard image
      * @param text      text to be inserted
      * @return an instance of <i>Phrase</i> class, with image and label in it
      */
-    protected static Phrase createImageLabelPhrase(String imageName, String text) {
-        return createImageLabelPhrase(imageName, text, null, 3);
+    protected static Phrase createImageLabelPhrase(ReportContext context, String imageName, String text) {
+        return createImageLabelPhrase(context, imageName, text, null, 3);
     }
 
     /**
      * Generates information of assosiation end.
      *
+     * @param context       context of the report
      * @param assEnd        an instance of <i>AssociationEnd</i> class, which info will be generated
      * @return An instance of <i>PdfPTable</i> class, which contains info of assosiation end.
      *         If <i>assEnd</i> is not an instance of AssociationEnd class, returns null.
      */
-    public static PdfPTable generateAssosiatedEndInfo(Object assEnd) {
+    public static PdfPTable generateAssosiatedEndInfo(ReportContext context, Object assEnd) {
         if(Model.getFacade().isAAssociationEnd(assEnd)) {
             PdfPTable table = new PdfPTable(2);
             table.setWidthPercentage(100);
 
             try {
-                table.setWidths(new float[]{2f, 6f});
+                table.setWidths(context.getStyles().getRelationshipWidths());
                 Object element = Model.getFacade().getType(assEnd);
 
                 String imageName = getImageName(element);
-                table.addCell(TableUtils.createCell(ReportUtils.getElementNameWithReference(element), 2, null, imageName, null, new float[]{1, 20}));
+                table.addCell(TableUtils.createCell(context, ReportUtils.getElementNameWithReference(context, element), 2, null, imageName, null));
 
                 table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.part.usecase.assosiation.table.assosiation.end")));
                 table.addCell(TableUtils.createCell(Model.getFacade().getName(assEnd)));
@@ -0,0 +1,93 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import org.argouml.model.Model;
+import org.argouml.uml.UseCases;
+import org.argouml.uml.diagram.ArgoDiagram;
+
+/**
+ * ReportWalker walks contents of the report, which were selected by the user, and passes them
+ * to the renderer. Elements of the selection are ordered in the same way as they are written to
+ * the report, so contents are processed in a single pass. Walk does not depend on the output
+ * format, see <i>ReportRenderer</i>.
+ *
+ * Selection can be walked in several ranges, e.g. one range for each chapter of the incremental
+ * report. Sections, which were returned by the renderer, are kept between ranges.
+ *
+ * @version 0.1
+ */
+public class ReportWalker {
+
+    private ReportSelection selection;
+    private ReportRenderer renderer;
+    //sections of the processed packages and folders by index of the element
+    private Object[] sections;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates walker of the selection
+     *
+     * @param selection contents of the report
+     * @param renderer  renderer, which writes the contents
+     */
+    public ReportWalker(ReportSelection selection, ReportRenderer renderer) {
+        this.selection = selection;
+        this.renderer  = renderer;
+        this.sections  = new Object[selection.size()];
+    }
+
+    /**
+     * Walks all selected contents
+     */
+    public void walk() {
+        if(!selection.isSelected(0)) return;
+
+        walk(1, selection.size());
+    }
+
+    /**
+     * Walks contents of the report from the range of the selection
+     *
+     * @param from index of the first element of the range
+     * @param to   index, which follows the last element of the range
+     */
+    public void walk(int from, int to) {
+        int index = from;
+        while(index < to && !cancelled) {
+            if(!selection.isSelected(index)) {
+                //element is not included in the report together with all its children
+                index = selection.getSubtreeEnd(index);
+                continue;
+            }
+
+            Object element = selection.getElement(index);
+            Object parent = sections[selection.getParent(index)];
+            if(element instanceof UseCases) {
+                sections[index] = renderer.renderUseCases();
+            } else if(Model.getFacade().isAPackage(element)) {
+                sections[index] = renderer.renderPackage(parent, element);
+            } else if(element instanceof ArgoDiagram) {
+                renderer.renderDiagram(parent, element);
+            }
+            ++index;
+        }
+    }
+
+    /**
+     * Stops the walk. Element, which is rendered at the moment, is completed.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+}
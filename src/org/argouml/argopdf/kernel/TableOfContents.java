@@ -0,0 +1,264 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.kernel;
+
+import org.argouml.i18n.Translator;
+import org.apache.log4j.Logger;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfDestination;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfPageEventHelper;
+import com.lowagie.text.pdf.PdfWriter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TableOfContents collects titles of chapters and sections together with their pages, while the
+ * report is written, and then writes the table of contents. Table is written after all chapters,
+ * because their pages are known only at that moment, and is moved in front of them by reordering
+ * pages, so contents of the report are generated only one time.
+ *
+ * Titles are collected by the page events of the writer. Chapters of the incremental report, which
+ * are taken from the previous report, are not written again, so their titles are collected from
+ * the bookmarks of the chapter files, see <i>addBookmarks</i>.
+ *
+ * Each entry of the table refers to the named destination of its title, so table can be written
+ * to another file than the chapters.
+ *
+ * @version 0.1
+ */
+public class TableOfContents extends PdfPageEventHelper {
+
+    private static final Logger LOG = Logger.getLogger(TableOfContents.class);
+
+    private static final String PREFIX = "toc-";
+    private static final float INDENTATION = 20;
+    private static final float[] WIDTHS = new float[]{9f, 1f};
+    //table of contents is written again, if amount of its pages was changed by the page numbers
+    private static final int MAX_LAYOUTS = 3;
+
+    private List entries = new ArrayList();
+
+    /**
+     * @see com.lowagie.text.pdf.PdfPageEvent#onChapter(PdfWriter, Document, float, Paragraph)
+     */
+    public void onChapter(PdfWriter writer, Document document, float position, Paragraph title) {
+        addTitle(writer, position, 1, title);
+    }
+
+    /**
+     * @see com.lowagie.text.pdf.PdfPageEvent#onSection(PdfWriter, Document, float, int, Paragraph)
+     */
+    public void onSection(PdfWriter writer, Document document, float position, int depth, Paragraph title) {
+        addTitle(writer, position, depth, title);
+    }
+
+    /**
+     * Adds titles of the bookmarks, e.g. of the chapter file of the incremental report
+     *
+     * @param bookmarks bookmarks as they are returned by <i>SimpleBookmark</i>. Pages of the bookmarks
+     *                  should be numbered from the first page of the report without table of contents.
+     */
+    public void addBookmarks(List bookmarks) {
+        addBookmarks(bookmarks, 1);
+    }
+
+    /**
+     * @return true, if report does not contain any chapter
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * @return page of the first chapter, before which table of contents should be placed
+     */
+    public int getFirstPage() {
+        return isEmpty() ? 1 : ((Entry)entries.get(0)).page;
+    }
+
+    /**
+     * Returns named destinations of the titles, which were collected from the bookmarks
+     *
+     * @param pageOffset amount of pages of table of contents
+     * @return destinations by name, as they are used by <i>SimpleNamedDestination</i>
+     */
+    public Map getDestinations(int pageOffset) {
+        HashMap destinations = new HashMap();
+        for(int i = 0; i < entries.size(); i++) {
+            Entry entry = (Entry)entries.get(i);
+            if(entry.position != null) {
+                destinations.put(PREFIX + i, (entry.page + pageOffset) + entry.position);
+            }
+        }
+
+        return destinations;
+    }
+
+    /**
+     * Returns amount of pages of table of contents. Table is written to a document, which is
+     * thrown away, so it is written again after page numbers are known.
+     *
+     * @param pageSize size of the pages of the report
+     * @return amount of pages of table of contents
+     */
+    public int getPageCount(Rectangle pageSize) {
+        int pages = 0;
+        for(int i = 0; i < MAX_LAYOUTS; i++) {
+            Document document = new Document(pageSize);
+            try {
+                PdfWriter writer = PdfWriter.getInstance(document, new NullOutputStream());
+                document.open();
+                write(document, pages);
+                int count = writer.getPageNumber();
+                document.close();
+
+                if(count == pages) break;
+                pages = count;
+            } catch(DocumentException ex) {
+                LOG.debug(ex.getMessage());
+                break;
+            }
+        }
+
+        return pages;
+    }
+
+    /**
+     * Writes table of contents to the opened document
+     *
+     * @param document   document, to which table is written
+     * @param pageOffset amount of pages of table of contents, which are placed before the chapters
+     * @throws DocumentException if table can not be written
+     */
+    public void write(Document document, int pageOffset) throws DocumentException {
+        document.add(ReportUtils.generateTitle(Translator.localize("argopdf.report.contents.title"), 1, false));
+
+        PdfPTable table = TableUtils.generateTableCap(2);
+        table.setWidths(WIDTHS);
+        for(int i = 0; i < entries.size(); i++) {
+            Entry entry = (Entry)entries.get(i);
+            PdfPCell title = new PdfPCell(ReportUtils.createReference(entry.title, PREFIX + i));
+            title.setBorder(Rectangle.NO_BORDER);
+            title.setPaddingLeft(title.getPaddingLeft() + (entry.depth - 1) * INDENTATION);
+            table.addCell(title);
+
+            PdfPCell page = new PdfPCell(new Paragraph(String.valueOf(entry.page + pageOffset)));
+            page.setBorder(Rectangle.NO_BORDER);
+            page.setHorizontalAlignment(Element.ALIGN_RIGHT);
+            table.addCell(page);
+        }
+        document.add(table);
+    }
+
+    /**
+     * Writes table of contents to its own file, e.g. when the incremental report is stitched together
+     *
+     * @param file     file, to which table is written
+     * @param pageSize size of the pages of the report
+     * @return amount of pages of table of contents
+     * @throws IOException       if file can not be written
+     * @throws DocumentException if table can not be written
+     */
+    public int writeFile(File file, Rectangle pageSize) throws IOException, DocumentException {
+        int pages = getPageCount(pageSize);
+        Document document = new Document(pageSize);
+        OutputStream out = new FileOutputStream(file);
+        try {
+            PdfWriter.getInstance(document, out);
+            document.open();
+            write(document, pages);
+            document.close();
+        } finally {
+            out.close();
+        }
+
+        return pages;
+    }
+
+    /**
+     * Adds the title and defines its destination on the current page
+     */
+    private void addTitle(PdfWriter writer, float position, int depth, Paragraph title) {
+        String destination = PREFIX + entries.size();
+        writer.getDirectContent().localDestination(destination, new PdfDestination(PdfDestination.FITH, position));
+        entries.add(new Entry(title.content().trim(), depth, writer.getPageNumber(), null));
+    }
+
+    private void addBookmarks(List bookmarks, int depth) {
+        for(Object o : bookmarks) {
+            Map bookmark = (Map)o;
+            String page = (String)bookmark.get("Page");
+            String title = (String)bookmark.get("Title");
+            if(page != null && title != null) {
+                //destination starts with the number of the page
+                page = page.trim();
+                int space = page.indexOf(' ');
+                try {
+                    int number = Integer.parseInt(space > 0 ? page.substring(0, space) : page);
+                    entries.add(new Entry(title.trim(), depth, number, space > 0 ? page.substring(space) : ""));
+                } catch(NumberFormatException ex) {
+                    LOG.debug(ex.getMessage());
+                }
+            }
+
+            List kids = (List)bookmark.get("Kids");
+            if(kids != null) {
+                addBookmarks(kids, depth + 1);
+            }
+        }
+    }
+
+    /**
+     * Title of a chapter or section
+     */
+    private static class Entry {
+
+        private String title;
+        private int depth;
+        private int page;
+        //position on the page of the bookmark, or null if destination is defined by the page event
+        private String position;
+
+        private Entry(String title, int depth, int page, String position) {
+            this.title    = title;
+            this.depth    = depth;
+            this.page     = page;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Stream, which discards all data, so pages of the table can be counted without writing it
+     */
+    private static class NullOutputStream extends OutputStream {
+
+        public void write(int b) {
+        }
+
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -45,11 +45,9 @@ import com.lowagie.text.Font;
 
 import java.awt.*;
 import java.util.ArrayList;
-import java.io.IOException;
 
 import org.apache.log4j.Logger;
 import org.argouml.i18n.Translator;
-import org.argouml.application.helpers.ResourceLoaderWrapper;
 
 import javax.swing.*;
 
@@ -62,9 +60,13 @@ import javax.swing.*;
 public class TableUtils {
 
     private static final Logger LOG = Logger.getLogger(TableUtils.class);
+    private static final ReportStyles STYLES = ReportStyles.getInstance();
 
     public static Color TABLE_HEADER_COLOR = Color.BLUE;
 
+    //vertical offset of the icon, which is placed in the line of the text
+    private static final float ICON_OFFSET_Y = -3;
+
     /**
      * Generates standard table 'cap'.
      *
@@ -86,26 +88,25 @@ public class TableUtils {
 
     /**
      * Generates info of elements. Info is presented in a table, with name and documentation columns.
+     * Names of the elements link to their details.
      *
+     * @param context  context of the report
      * @param elements ArraList of alements, info of which will be generated
      * @return and instance of <i>PdfPTable</i> class, which contains elements info.
      *         null, if size of elements array == 0
      */
-    public static PdfPTable generateElementsInfo(ArrayList elements) {
+    public static PdfPTable generateElementsInfo(ReportContext context, ArrayList elements) {
         if (elements != null && elements.size() > 0 ) {
             PdfPTable table = generateTableCap(2);
 
             try {
-                table.setWidths(new float[]{1f, 2f});
+                table.setWidths(context.getStyles().getElementsInfoWidths());
 
-                com.lowagie.text.Font captionFont = new com.lowagie.text.Font(com.lowagie.text.Font.HELVETICA, 12, com.lowagie.text.Font.BOLD, Color.WHITE);
-                table.addCell(createCell(Translator.localize("argopdf.report.name"),
-                                                     1, TABLE_HEADER_COLOR, captionFont));
-                table.addCell(createCell(Translator.localize("argopdf.report.documentation"),
-                                                     1, TABLE_HEADER_COLOR, captionFont));
+                table.addCell(createHeaderCellWithFont(Translator.localize("argopdf.report.name")));
+                table.addCell(createHeaderCellWithFont(Translator.localize("argopdf.report.documentation")));
 
                 for (Object elem : elements) {
-                    table.addCell(createCell(ReportUtils.getElementNameWithReference(elem), 1, null, ReportUtils.getImageName(elem), null));
+                    table.addCell(createReferenceCell(context, elem));
                     table.addCell(createCell(ReportUtils.getElementsDocumentation(elem)));
                 }
 
@@ -119,32 +120,48 @@ public class TableUtils {
     }
 
     /**
-     * Creates a cell with a table inside of it, which contains an image and a label.
+     * Creates a cell, which contains icon and name of the element, which links to the details of the element.
+     *
+     * @param context context of the report
+     * @param element uml element
+     * @return a cell, which contains image and reference, or an empty cell if element is null
+     */
+    public static PdfPCell createReferenceCell(ReportContext context, Object element) {
+        if(element == null) return createCell("");
+
+        return createCell(context, ReportUtils.getElementNameWithReference(context, element), 1, null, ReportUtils.getImageName(element), null);
+    }
+
+    /**
+     * Creates a cell, which contains an image and a label.
      *
+     * @param context    context of the report, which provides the image
      * @param text       text of a cell
-     * @param imageName  standard name of an image, which should be placed in the first cell
-     * @return           a table, which contains image in the first cell and text in the second one
+     * @param imageName  standard name of an image, which should be placed before the text
+     * @return           a cell, which contains image and text
      */
-    public static PdfPCell createCell(String text, String imageName) {
-        return createCell(text, 1, null, imageName, null);
+    public static PdfPCell createCell(ReportContext context, String text, String imageName) {
+        return createCell(context, text, 1, null, imageName, null);
     }
 
     /**
-     * Creates a cell with a table inside of it, which contains an image and a label.
+     * Creates a cell, which contains an image and a label. If widths are defined, image and label are
+     * placed in the nested table, otherwise image is placed in the line of the text.
      *
+     * @param context     context of the report, which provides the image
      * @param text        text of a cell
-     * @param imageName   standard name of an image, which should be placed in the first cell
-     * @param tableWidths array of relative widths of table cells
-     * @return            a table, which contains image in the first cell and text in the second one
+     * @param imageName   standard name of an image, which should be placed before the text
+     * @param tableWidths array of relative widths of nested table cells, or null
+     * @return            a cell, which contains image and text
      */
-    public static PdfPCell createCell(String text, String imageName, float[] tableWidths) {
-        if(tableWidths == null) tableWidths = new float[] {1, 7};
-        return createCell(text, 1, null, imageName, null, tableWidths);
+    public static PdfPCell createCell(ReportContext context, String text, String imageName, float[] tableWidths) {
+        return createCell(context, text, 1, null, imageName, null, tableWidths);
     }
 
     /**
-     * Creates a cell with a table inside of it, which contains an image and a label.
+     * Creates a cell, which contains an image and a label.
      *
+     * @param context   context of the report, which provides the image
      * @param text      text of a cell
      * @param colspan   colspan of a cell
      * @param color     color of a cell
@@ -152,14 +169,15 @@ public class TableUtils {
      * @param cellFont  font of a cell text
      * @return cell of a table
      */
-    public static PdfPCell createCell(String text, int colspan, Color color, String imageName, com.lowagie.text.Font cellFont) {
-        return createCell(text, colspan, color, imageName, cellFont, null);
+    public static PdfPCell createCell(ReportContext context, String text, int colspan, Color color, String imageName, com.lowagie.text.Font cellFont) {
+        return createCell(context, text, colspan, color, imageName, cellFont, null);
     }
 
     /**
-     * Creates a cell with a table inside of it, which contains an image and a label. Label can contain
+     * Creates a cell, which contains an image and a label. Label can contain
      * a reference or a reference anchor.
      *
+     * @param context   context of the report, which provides the image
      * @param anchor    anchor of a cell
      * @param colspan   colspan of a cell
      * @param color     color of a cell
@@ -167,48 +185,63 @@ public class TableUtils {
      * @param cellFont  font of a cell text
      * @return cell of a table
      */
-    public static PdfPCell createCell(Anchor anchor, int colspan, Color color, String imageName, com.lowagie.text.Font cellFont) {
-        return createCell(anchor, colspan, color, imageName, cellFont, null);
+    public static PdfPCell createCell(ReportContext context, Anchor anchor, int colspan, Color color, String imageName, com.lowagie.text.Font cellFont) {
+        return createCell(context, anchor, colspan, color, imageName, cellFont, null);
     }
 
     /**
-     * Creates a cell with a table inside of it, which contains an image and a label.
+     * Creates a cell, which contains an image and a label. If widths are defined, image and label are
+     * placed in the nested table, otherwise image is placed in the line of the text, which is
+     * much cheaper for the layout of big tables.
      *
+     * @param context   context of the report, which provides the image
      * @param text      text of a cell
      * @param colspan   colspan of a cell
      * @param color     color of a cell
      * @param imageName name of image to insert
      * @param cellFont  font of a cell text
-     * @param tableWidth array of relative widths of table cells
+     * @param tableWidth array of relative widths of nested table cells, or null
      * @return cell of a table
      */
-    public static PdfPCell createCell(String text, int colspan, Color color, String imageName, com.lowagie.text.Font cellFont, float[] tableWidth) {
-        if(tableWidth == null) tableWidth = new float[] {1, 7};
+    public static PdfPCell createCell(ReportContext context, String text, int colspan, Color color, String imageName, com.lowagie.text.Font cellFont, float[] tableWidth) {
+        if(tableWidth == null) {
+            PdfPCell cell = createImageLabelCell(context, text, null, imageName, color, cellFont);
+            cell.setColspan(colspan);
+            return cell;
+        }
+
         PdfPCell retCell = new PdfPCell();
         retCell.setColspan(colspan);
-        retCell.addElement(createImageLabelTable(text, null, imageName, color, tableWidth, cellFont));
+        retCell.addElement(createImageLabelTable(context, text, null, imageName, color, tableWidth, cellFont));
         retCell.setHorizontalAlignment(Element.ALIGN_LEFT);
 
         return retCell;
     }
 
     /**
-     * Creates a cell with a table inside of it, which contains an image and a label. Label can contain
-     * a reference or a reference anchor.
+     * Creates a cell, which contains an image and a label. Label can contain
+     * a reference or a reference anchor. If widths are defined, image and label are
+     * placed in the nested table, otherwise image is placed in the line of the text.
      *
+     * @param context   context of the report, which provides the image
      * @param anchor    anchor of a cell
      * @param colspan   colspan of a cell
      * @param color     color of a cell
      * @param imageName name of image to insert
      * @param cellFont  font of a cell text
-     * @param tableWidth array of relative widths of table cells
+     * @param tableWidth array of relative widths of nested table cells, or null
      * @return cell of a table
      */
-    public static PdfPCell createCell(Anchor anchor, int colspan, Color color, String imageName, com.lowagie.text.Font cellFont, float[] tableWidth) {
-        if(tableWidth == null) tableWidth = new float[] {1, 7};
+    public static PdfPCell createCell(ReportContext context, Anchor anchor, int colspan, Color color, String imageName, com.lowagie.text.Font cellFont, float[] tableWidth) {
+        if(tableWidth == null) {
+            PdfPCell cell = createImageLabelCell(context, null, anchor, imageName, color, cellFont);
+            cell.setColspan(colspan);
+            return cell;
+        }
+
         PdfPCell retCell = new PdfPCell();
         retCell.setColspan(colspan);
-        retCell.addElement(createImageLabelTable(null, anchor, imageName, color, tableWidth, cellFont));
+        retCell.addElement(createImageLabelTable(context, null, anchor, imageName, color, tableWidth, cellFont));
         retCell.setHorizontalAlignment(Element.ALIGN_LEFT);
 
         return retCell;
@@ -266,7 +299,7 @@ public class TableUtils {
      * @return         a cap cell of a table
      */
     public static PdfPCell createHeaderCellWithFont(String text) {
-        return createHeaderCell(text, new Font(Font.HELVETICA, 12, Font.BOLD, Color.WHITE));
+        return STYLES.createHeaderCell(text, 1);
     }
 
     /**
@@ -277,7 +310,7 @@ public class TableUtils {
      * @return         a cap cell of a table
      */
     public static PdfPCell createHeaderCellWithFont(String text, int colspan) {
-        return createHeaderCell(text, colspan, new Font(Font.HELVETICA, 12, Font.BOLD, Color.WHITE));
+        return STYLES.createHeaderCell(text, colspan);
     }
 
     /**
@@ -334,28 +367,73 @@ public class TableUtils {
         return cell;
     }
 
+    /**
+     * Creates a cell, which contains image and text or anchor in one line. Image is added as an inline
+     * chunk, so unlike <i>createImageLabelTable</i> no nested table is created.
+     * If text parameter is not null, cell will contain this text, otherwise anchor parameter is used.
+     *
+     * @param context   context of the report, which provides the image
+     * @param text      text of a cell
+     * @param anchor    anchor of a cell
+     * @param imageName standard name of an image, which should be placed before the text
+     * @param colorName color of a cell, if null, will be white
+     * @param cellFont  font of a cell text
+     * @return a cell, which contains image and text or anchor
+     */
+    public static PdfPCell createImageLabelCell(ReportContext context, String text, Anchor anchor, String imageName, Color colorName, com.lowagie.text.Font cellFont) {
+        Paragraph paragraph = new Paragraph();
+
+        Image im = context.getIconImage(imageName);
+        if(im != null) {
+            paragraph.add(new Chunk(im, 0, ICON_OFFSET_Y, true));
+            paragraph.add(new Chunk(" "));
+        }
+
+        if(text != null) {
+            paragraph.add(cellFont != null ? new Chunk(text, cellFont) : new Chunk(text));
+        } else if(anchor != null) {
+            if(cellFont != null) {
+                for(Object el : anchor.getChunks()) {
+                    ((Chunk)el).setFont(cellFont);
+                }
+            }
+            paragraph.add(anchor);
+        }
+
+        PdfPCell cell = new PdfPCell(paragraph);
+        cell.setHorizontalAlignment(Element.ALIGN_LEFT);
+        cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+        if(colorName != null) {
+            cell.setBackgroundColor(colorName);
+        }
+
+        return cell;
+    }
+
     /**
      * Creates a table, which contains image in the first cell and text in the second one.
      *
+     * @param context    context of the report, which provides the image
      * @param text       text of a cell
      * @param imageName  standard name of an image, which should be placed in the first cell
      * @return           a table, which contains image in the first cell and text in the second one
      */
-    public static PdfPTable createImageLabelTable(String text, String imageName) {
-        return createImageLabelTable(text, imageName, null, null);
+    public static PdfPTable createImageLabelTable(ReportContext context, String text, String imageName) {
+        return createImageLabelTable(context, text, imageName, null, null);
     }
 
     /**
      * Creates a table, which contains image in the first cell and text in the second one.
      *
+     * @param context   context of the report, which provides the image
      * @param text      text of a second cell
      * @param imageName standard name of an image, which should be placed in the first cell
      * @param colorName color of a table, if null, will be white
      * @param cellFont  font of a table text
      * @return a table, which contains image in the first cell and text in the second one
      */
-    public static PdfPTable createImageLabelTable(String text, String imageName, Color colorName, com.lowagie.text.Font cellFont) {
-        return createImageLabelTable(text, null, imageName, colorName, new float[]{1, 7}, cellFont);
+    public static PdfPTable createImageLabelTable(ReportContext context, String text, String imageName, Color colorName, com.lowagie.text.Font cellFont) {
+        return createImageLabelTable(context, text, null, imageName, colorName, context.getStyles().getIconLabelWidths(), cellFont);
     }
 
     /**
@@ -363,6 +441,7 @@ public class TableUtils {
      * If text parameter is not null, second cell will contain this text, otherwise anchor
      * parameter is used. If both parameters is null, null is returned.
      *
+     * @param context    context of the report, which provides the image
      * @param text       text of a second cell
      * @param anchor     anchor of a second cell
      * @param imageName  standard name of an image, which should be placed in the first cell
@@ -372,22 +451,15 @@ public class TableUtils {
      * @return           a table, which contains image in the first cell and text or anchor in the second one.
      *                   Returns null if both parameters: text and anchor are null.
      */
-    public static PdfPTable createImageLabelTable(String text, Anchor anchor, String imageName, Color colorName, float[] tableWidth, com.lowagie.text.Font cellFont) {
+    public static PdfPTable createImageLabelTable(ReportContext context, String text, Anchor anchor, String imageName, Color colorName, float[] tableWidth, com.lowagie.text.Font cellFont) {
         if(text == null && anchor == null) return null;
         try {
             PdfPTable nestedTable = new PdfPTable(2);
             nestedTable.setWidthPercentage(100);
             nestedTable.setWidths(tableWidth);
 
-            ImageIcon icon = ResourceLoaderWrapper.lookupIconResource(imageName);
-            if (icon == null) {
-                if (imageName != null && imageName.length() > 1) {
-                    icon = ResourceLoaderWrapper.lookupIconResource(imageName.substring(0, 1).toUpperCase() + imageName.substring(1));
-                }
-            }
-            Image im = null;
-            if (icon != null) {
-                im = Image.getInstance(icon.getImage(), null);
+            Image im = context.getIconImage(imageName);
+            if (im != null) {
                 im.setAlignment(Image.ALIGN_LEFT);
             }
             PdfPCell nestCell_1 = null;
@@ -419,8 +491,6 @@ public class TableUtils {
             return nestedTable;
         } catch(DocumentException ex) {
             LOG.debug(ex.getMessage());
-        } catch(IOException ex) {
-            LOG.debug(ex.getMessage());
         }
 
         return null;
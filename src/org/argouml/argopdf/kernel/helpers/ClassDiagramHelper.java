@@ -39,7 +39,6 @@ package org.argouml.argopdf.kernel.helpers;
 
 import com.lowagie.text.*;
 import com.lowagie.text.Font;
-import com.lowagie.text.Image;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfPCell;
 import org.argouml.uml.diagram.static_structure.ui.UMLClassDiagram;
@@ -48,7 +47,7 @@ import org.argouml.uml.ui.foundation.core.ActionSetParameterDirectionKind;
 import org.argouml.i18n.Translator;
 import org.argouml.model.Model;
 import org.argouml.argopdf.kernel.ReportUtils;
-import org.argouml.argopdf.kernel.PdfReport;
+import org.argouml.argopdf.kernel.ReportContext;
 import org.argouml.argopdf.kernel.TableUtils;
 import org.apache.log4j.Logger;
 import org.omg.uml.foundation.core.*;
@@ -125,54 +124,57 @@ public class ClassDiagramHelper {
     /**
      * Generates info of the class diagram
      *
-     * @param document current document instance
+     * @param context  context of the report
      * @param section  an instance of <i>Section</i> class, where diagram info will be situated
      * @param diagram  an instance of <i>UMLClassDiagram</i> class, which info will be generated
-     * @param generateDiagrams defines, whether diagram image should be generated
      */
-    public static void generateDiagramInfo(Document document, Section section, UMLClassDiagram diagram, boolean generateDiagrams) {
+    public static void generateDiagramInfo(ReportContext context, Section section, UMLClassDiagram diagram) {
         if(diagram == null) return;
-        LOG.debug("generate info of class diagram: " + diagram.getName());
-
-        boolean addSection = false;
-        if(section != null) {
-            Paragraph title = ReportUtils.generateTitle(ReportUtils.getElementName(diagram), 1, false);
-            section = section.addSection(title, section.depth() + 1);
-        } else {
-            addSection = true;
-            section = PdfReport.generateNewChapter(ReportUtils.getElementName(diagram), false);
-        }
-
-        Image im = ReportUtils.makeImageOfDiagram(diagram);
-        if(im != null && generateDiagrams) {
-            ReportUtils.adjustImageSizeToDocumentPageSize(im, document);
-            section.add(Chunk.NEWLINE);
-            section.add(new Chunk(im, 0, 0, true));
-            section.add(Chunk.NEWLINE);
-        }
 
-        generateSummaryInfo(section, diagram);
-        generateDetailedInfo(document, section, diagram, generateDiagrams);
+        boolean addSection = section == null;
+        section = ReportUtils.createDiagramSection(context, section, diagram);
+        fillDiagramSection(context, section, diagram);
 
         if(addSection) {
             try {
-                document.add(section);
+                context.getDocument().add(section);
             } catch(DocumentException ex) {
                 LOG.debug(ex.getMessage());
             }
         }
     }
 
+    /**
+     * Generates contents of the section of the class diagram. Only the given section is changed,
+     * so this method can be called on a worker thread.
+     *
+     * @param context  context of the report
+     * @param section  section of the diagram, which was created by <i>ReportUtils.createDiagramSection</i>
+     * @param diagram  an instance of <i>UMLClassDiagram</i> class, which info will be generated
+     */
+    public static void fillDiagramSection(ReportContext context, Section section, UMLClassDiagram diagram) {
+        LOG.debug("generate info of class diagram: " + diagram.getName());
+
+        List images = context.getImageProvider().getImages(diagram);
+        if(images.size() > 0) {
+            ReportUtils.addDiagramImages(context.getDocument(), section, images);
+        }
+
+        generateSummaryInfo(context, section, diagram);
+        generateDetailedInfo(context, section, diagram);
+    }
+
     /**
      * Generates class diagram summary info
      *
+     * @param context context of the report
      * @param section section, to which summary info block will be added
      * @param diagram current diagarm, which summary info will be generated
      */
-    public static void generateSummaryInfo(Section section, UMLClassDiagram diagram) {
+    public static void generateSummaryInfo(ReportContext context, Section section, UMLClassDiagram diagram) {
         if(diagram == null) return;
 
-        PdfPTable table = generateClassesSummaryInfo(diagram);
+        PdfPTable table = generateClassesSummaryInfo(context, diagram);
 
         if(table != null) {
             Section subSect = section.addSection(ReportUtils.generateTitle(
@@ -187,18 +189,17 @@ public class ClassDiagramHelper {
     /**
      * Generates class diagram detailed info
      *
-     * @param document current document instance
+     * @param context  context of the report
      * @param section section, to which detailed info block will be added
      * @param diagram current diagarm, which detailed info will be generated
-     * @param generateDiagrams defines, whether diagram image should be generated
      */
-    public static void generateDetailedInfo(Document document, Section section, UMLClassDiagram diagram, boolean generateDiagrams) {
+    public static void generateDetailedInfo(ReportContext context, Section section, UMLClassDiagram diagram) {
         if(diagram == null) return;
 
         ArrayList elements = ClassDiagramHelper.getClassDiagramUmlElements(diagram);
 
         if(elements.size() > 0) {
-            generateClassesDetailedInfo(document, section, diagram, elements, generateDiagrams);
+            generateClassesDetailedInfo(context, section, diagram, elements);
         }
 
     }
@@ -229,26 +230,26 @@ public class ClassDiagramHelper {
     /**
      * Generates summary info of class diagram
      *
+     * @param context context of the report
      * @param diagram an instance of current class diagram
      * @return an instance of <i>PdfPTable</i> class with summary info
      *         null, if diagram does not have any components
      */
-    private static PdfPTable generateClassesSummaryInfo(UMLClassDiagram diagram) {
+    private static PdfPTable generateClassesSummaryInfo(ReportContext context, UMLClassDiagram diagram) {
         ArrayList elements = ClassDiagramHelper.getClassDiagramUmlElements(diagram);
 
-        return TableUtils.generateElementsInfo(elements);
+        return TableUtils.generateElementsInfo(context, elements);
     }
 
     /**
      * Generates detailed info of every component of class diagram
      *
-     * @param document current document instance
+     * @param context  context of the report
      * @param section  section where diagram detailed info will be situated
      * @param diagram  an instance of current class diagram
      * @param elements elements of current class diagram. If null, elements will be collected in the method
-     * @param generateDiagrams defines, whether diagram image should be generated
      */
-    private static void generateClassesDetailedInfo(Document document, Section section, UMLClassDiagram diagram, ArrayList elements, boolean generateDiagrams) {
+    private static void generateClassesDetailedInfo(ReportContext context, Section section, UMLClassDiagram diagram, ArrayList elements) {
         if(elements == null) {
             elements = ClassDiagramHelper.getClassDiagramUmlElements(diagram);
         }
@@ -259,11 +260,11 @@ public class ClassDiagramHelper {
                                                      0);
             for(Object el : elements) {
                 if(Model.getFacade().isAClass(el)) {
-                    generateClassDetailedInfo(document, subSect, (UmlClass)el, generateDiagrams);
+                    generateClassDetailedInfo(context, subSect, (UmlClass)el);
                 } else if(Model.getFacade().isAInterface(el)) {
-                    generateInterfaceDetailedInfo(subSect, (Interface)el);
+                    generateInterfaceDetailedInfo(context, subSect, (Interface)el);
                 } else if(Model.getFacade().isAEnumeration(el)) {
-                    generateEnumerationDetailedInfo(subSect, (Enumeration)el);
+                    generateEnumerationDetailedInfo(context, subSect, (Enumeration)el);
                 }
                 subSect.add(Chunk.NEWLINE);
             }
@@ -274,82 +275,84 @@ public class ClassDiagramHelper {
     /**
      * Generates detailed info of class of class diagram
      *
-     * @param document current document instance
+     * @param context  context of the report
      * @param section  section where detailed info will be situated
      * @param umlClass an instance of <i>UmlClass</i>
-     * @param generateDiagrams defines, whether diagram image should be generated
      */
-    private static void generateClassDetailedInfo(Document document, Section section, UmlClass umlClass, boolean generateDiagrams) {
+    private static void generateClassDetailedInfo(ReportContext context, Section section, UmlClass umlClass) {
         if(umlClass == null) return;
 
         Section subSect = section.addSection("", 0);
         subSect.setBookmarkTitle(ReportUtils.getElementName(umlClass));
         
-        Paragraph details = new Paragraph(ReportUtils.createImageLabelPhrase(ReportUtils.getImageName(umlClass), null, ReportUtils.getAnchorElementName(umlClass), 2));
+        Paragraph details = new Paragraph(ReportUtils.createImageLabelPhrase(context, ReportUtils.getImageName(umlClass), null, ReportUtils.getAnchorElementName(context, umlClass), 2));
         subSect.add(details);
 
-        createClassModifiersInfo(subSect, umlClass);
-        createClassAttributesInfo(subSect, umlClass);
-        createClassOperationsInfo(subSect, umlClass);
-        generateRelationshipsInfo(subSect, umlClass);
-        generateStateChartDiagrams(document, subSect, umlClass, generateDiagrams);
+        createClassModifiersInfo(context, subSect, umlClass);
+        createClassAttributesInfo(context, subSect, umlClass);
+        createClassOperationsInfo(context, subSect, umlClass);
+        generateRelationshipsInfo(context, subSect, umlClass);
+        generateStateChartDiagrams(context, subSect, umlClass);
     }
 
     /**
      * Generates detailed info of interface of class diagram
      *
+     * @param context context of the report
      * @param section section where detailed info will be situated
      * @param interf  an instance of <i>Interface</i> class
      */
-    private static void generateInterfaceDetailedInfo(Section section, Interface interf) {
+    private static void generateInterfaceDetailedInfo(ReportContext context, Section section, Interface interf) {
         if(interf == null) return;
 
         Section subSect = section.addSection("", 0);
         subSect.setBookmarkTitle(ReportUtils.getElementName(interf));
 
-        Paragraph details = new Paragraph(ReportUtils.createImageLabelPhrase(ReportUtils.getImageName(interf), null, ReportUtils.getAnchorElementName(interf), 2));
+        Paragraph details = new Paragraph(ReportUtils.createImageLabelPhrase(context, ReportUtils.getImageName(interf), null, ReportUtils.getAnchorElementName(context, interf), 2));
         subSect.add(details);
 
-        createClassModifiersInfo(subSect, interf);
-        createClassOperationsInfo(subSect, interf);
-        generateRelationshipsInfo(subSect, interf);
+        createClassModifiersInfo(context, subSect, interf);
+        createClassOperationsInfo(context, subSect, interf);
+        generateRelationshipsInfo(context, subSect, interf);
     }
 
     /**
      * Generates detailed info of enumeration of class diagram
      *
+     * @param context     context of the report
      * @param section     section where detailed info will be situated
      * @param enumeration an instance of <i>Enumeration</i> class
      */
-    private static void generateEnumerationDetailedInfo(Section section, Enumeration enumeration) {
+    private static void generateEnumerationDetailedInfo(ReportContext context, Section section, Enumeration enumeration) {
         if(enumeration == null) return;
 
         Section subSect = section.addSection("", 0);
         subSect.setBookmarkTitle(ReportUtils.getElementName(enumeration));
 
-        Paragraph details = new Paragraph(ReportUtils.createImageLabelPhrase(ReportUtils.getImageName(enumeration), null, ReportUtils.getAnchorElementName(enumeration), 2));
+        Paragraph details = new Paragraph(ReportUtils.createImageLabelPhrase(context, ReportUtils.getImageName(enumeration), null, ReportUtils.getAnchorElementName(context, enumeration), 2));
         subSect.add(details);
 
-        createClassModifiersInfo(subSect, enumeration);
-        createEnumerationLiterals(subSect, enumeration);
-        createClassOperationsInfo(subSect, enumeration);
-        generateRelationshipsInfo(subSect, enumeration);
+        createClassModifiersInfo(context, subSect, enumeration);
+        createEnumerationLiterals(context, subSect, enumeration);
+        createClassOperationsInfo(context, subSect, enumeration);
+        generateRelationshipsInfo(context, subSect, enumeration);
     }
 
     /**
      * Generates info of modifiers of uml class, interface
      *
+     * @param context context of the report
      * @param section section where modifiers info will be situated
      * @param umlObject an instance of uml object: <i>umlClass</i>, <i>Interface<i/>, <i>Enumeration</i>
      */
-    private static void createClassModifiersInfo(Section section, Object umlObject) {
+    private static void createClassModifiersInfo(ReportContext context, Section section, Object umlObject) {
         if(!Model.getFacade().isAClass(umlObject) && !Model.getFacade().isAInterface(umlObject) &&
            !Model.getFacade().isAEnumeration(umlObject)) {
             return;
         }
         PdfPTable table = TableUtils.generateTableCap(2);
         try {
-            table.setWidths(new float[]{1f, 3f});
+            table.setWidths(context.getStyles().getPropertyWidths());
 
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.property")));
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.value")));
@@ -404,14 +407,15 @@ public class ClassDiagramHelper {
     /**
      * Generates info of attributes of uml class
      *
+     * @param context context of the report
      * @param section section where attributes info will be situated
      * @param umlClass an instance of <i>UmlClass</i>
      */
-    public static void createClassAttributesInfo(Section section, UmlClass umlClass) {
+    public static void createClassAttributesInfo(ReportContext context, Section section, UmlClass umlClass) {
         PdfPTable table = TableUtils.generateTableCap(2);
 
         try {
-            table.setWidths(new float[]{1f, 3f});
+            table.setWidths(context.getStyles().getPropertyWidths());
 
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.attribute")));
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.documentation")));
@@ -450,10 +454,11 @@ public class ClassDiagramHelper {
     /**
      * Creates info of operations of uml class diagram
      *
+     * @param context context of the report
      * @param section section where operations info will be situated
      * @param umlObject an instance of uml object: <i>umlClass</i>, <i>Interface<i/>, <i>Enumeration</i>
      */
-    public static void createClassOperationsInfo(Section section, Object umlObject) {
+    public static void createClassOperationsInfo(ReportContext context, Section section, Object umlObject) {
         List operations = Model.getFacade().getOperations(umlObject);
         if(operations.size() == 0) {
             return;
@@ -462,7 +467,7 @@ public class ClassDiagramHelper {
         PdfPTable table = TableUtils.generateTableCap(2);
 
         try {
-            table.setWidths(new float[]{2f, 3f});
+            table.setWidths(context.getStyles().getDocumentationWidths());
 
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.operation")));
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.documentation")));
@@ -472,17 +477,13 @@ public class ClassDiagramHelper {
 
                 String operation = generatesOperationString(op);
 
-                Font operationFont = new Font(Font.HELVETICA, 12);
-                if(Model.getFacade().isAbstract(op)) {
-                    operationFont.setStyle(Font.ITALIC);
-                }
+                boolean isStatic = false;
                 try {
-                    if(Model.getFacade().isStatic(op)) {
-                        operationFont.setStyle(Font.UNDERLINE);
-                    }
+                    isStatic = Model.getFacade().isStatic(op);
                 } catch(NullPointerException ex) {
                     LOG.debug("Operation is not static");
                 }
+                Font operationFont = context.getStyles().getTextFont(Model.getFacade().isAbstract(op), isStatic);
 
                 table.addCell(TableUtils.createCell(operation, 1, null, operationFont));
                 table.addCell(TableUtils.createCell(ReportUtils.getElementsDocumentation(op), 1, null, null));
@@ -504,10 +505,11 @@ public class ClassDiagramHelper {
     /**
      * Creates info of literals of enumeration
      *
+     * @param context   context of the report
      * @param section   section where operations info will be situated
      * @param umlObject an instance of uml object: <i>Enumeration</i>
      */
-    public static void createEnumerationLiterals(Section section, Object umlObject) {
+    public static void createEnumerationLiterals(ReportContext context, Section section, Object umlObject) {
         PdfPTable table = TableUtils.generateTableCap(2);
 
         List literals = Model.getFacade().getEnumerationLiterals(umlObject);
@@ -516,7 +518,7 @@ public class ClassDiagramHelper {
         }
 
         try {
-            table.setWidths(new float[]{2f, 3f});
+            table.setWidths(context.getStyles().getDocumentationWidths());
 
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.literal")));
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.documentation")));
@@ -584,38 +586,39 @@ public class ClassDiagramHelper {
     /**
      * Generates relationships info of uml class.
      *
+     * @param context   context of the report
      * @param section   section where relationships info will be situated
      * @param umlObject an instance of uml object: <i>UmlClass</i>, <i>Interface</i>, <i>Enumeration</i>
      */
-    private static void generateRelationshipsInfo(Section section, Object umlObject) {
+    private static void generateRelationshipsInfo(ReportContext context, Section section, Object umlObject) {
         if(umlObject == null) return;
 
         if(Model.getFacade().isAClass(umlObject)) {
-            generateClassDependenciesInfo(section, umlObject);
+            generateClassDependenciesInfo(context, section, umlObject);
         }
-        generateClassGeneralizationsInfo(section, umlObject);
-        generateClassAssosiationsInfo(section, umlObject);
+        generateClassGeneralizationsInfo(context, section, umlObject);
+        generateClassAssosiationsInfo(context, section, umlObject);
     }
 
     /**
      * Generates state chart diagrams of uml class
      *
-     * @param document  current document instance
+     * @param context  context of the report
      * @param section   section where relationships info will be situated
      * @param umlClass  an instance of <i>UmlClass</i>
-     * @param generateDiagrams defines, whether diagram image should be generated
      */
-    private static void generateStateChartDiagrams(Document document, Section section, UmlClass umlClass, boolean generateDiagrams) {
-        StateChartDiagramHelper.generateStateChartDiagrams(document, section, umlClass, generateDiagrams);
+    private static void generateStateChartDiagrams(ReportContext context, Section section, UmlClass umlClass) {
+        StateChartDiagramHelper.generateStateChartDiagrams(context, section, umlClass);
     }
 
     /**
      * Generates dependencies info of uml class
      *
+     * @param context  context of the report
      * @param section  section where dependencies info will be situated
      * @param umlObject an instance of uml object: <i>UmlClass</i>
      */
-    private static void generateClassDependenciesInfo(Section section, Object umlObject) {
+    private static void generateClassDependenciesInfo(ReportContext context, Section section, Object umlObject) {
         if(!Model.getFacade().isAClass(umlObject)) return;
         Collection clientDepend = Model.getFacade().getClientDependencies(umlObject);
         Collection supplierDepend = Model.getFacade().getSupplierDependencies(umlObject);
@@ -628,7 +631,7 @@ public class ClassDiagramHelper {
                 Paragraph paragraph = new Paragraph();
                 paragraph.add(Chunk.NEWLINE);
                 paragraph.add(ReportUtils.generateTitle(Translator.localize("argopdf.report.depend_on"), 3, false));
-                paragraph.add(generateClientDependenciesInfo((UmlClass)umlObject, clientDepend));
+                paragraph.add(generateClientDependenciesInfo(context, (UmlClass)umlObject, clientDepend));
                 subSect.add(paragraph);
             }
 
@@ -636,7 +639,7 @@ public class ClassDiagramHelper {
                 Paragraph paragraph = new Paragraph();
                 paragraph.add(Chunk.NEWLINE);
                 paragraph.add(ReportUtils.generateTitle(Translator.localize("argopdf.report.directs"), 3, false));
-                paragraph.add(generateSupplierDependenciesInfo((UmlClass)umlObject, supplierDepend));
+                paragraph.add(generateSupplierDependenciesInfo(context, (UmlClass)umlObject, supplierDepend));
                 subSect.add(paragraph);
             }
 
@@ -647,10 +650,11 @@ public class ClassDiagramHelper {
     /**
      * Generates class generalizations and specializations info.
      *
+     * @param context  context of the report
      * @param section  section where dependencies info will be situated
      * @param umlObject an instance of uml object: <i>UmlClass</i>, <i>Interface</i>
      */
-    private static void generateClassGeneralizationsInfo(Section section, Object umlObject) {
+    private static void generateClassGeneralizationsInfo(ReportContext context, Section section, Object umlObject) {
         Collection generalizations = Model.getFacade().getGeneralizations(umlObject);
         Collection specializations  = Model.getFacade().getSpecializations(umlObject);
 
@@ -662,7 +666,7 @@ public class ClassDiagramHelper {
                 Paragraph paragraph = new Paragraph();
                 paragraph.add(Chunk.NEWLINE);
                 paragraph.add(ReportUtils.generateTitle(Translator.localize("argopdf.report.generalizes"), 3, false));
-                paragraph.add(generateGeneralizationsInfo(umlObject, generalizations));
+                paragraph.add(generateGeneralizationsInfo(context, umlObject, generalizations));
                 subSect.add(paragraph);                
             }
 
@@ -672,7 +676,7 @@ public class ClassDiagramHelper {
                 Paragraph paragraph = new Paragraph();
                 paragraph.add(Chunk.NEWLINE);
                 paragraph.add(ReportUtils.generateTitle(Translator.localize("argopdf.report.specializes"), 3, false));
-                paragraph.add(generateSpecializationsInfo(umlObject, specializations));
+                paragraph.add(generateSpecializationsInfo(context, umlObject, specializations));
                 subSect.add(paragraph);
             }
         }
@@ -681,10 +685,11 @@ public class ClassDiagramHelper {
     /**
      * Generates class assosiations info
      *
+     * @param context  context of the report
      * @param section  section where dependencies info will be situated
      * @param umlObject an instance of uml object: <i>UmlClass</i>, <i>Interface</i>
      */
-    private static void generateClassAssosiationsInfo(Section section, Object umlObject) {
+    private static void generateClassAssosiationsInfo(ReportContext context, Section section, Object umlObject) {
         Collection assEnds = Model.getFacade().getAssociationEnds(umlObject);
 
         if(assEnds.size() > 0) {
@@ -697,7 +702,7 @@ public class ClassDiagramHelper {
 
             for(Object el : assEnds) {
                 if(Model.getFacade().isAAssociationEnd(el)) {
-                    par.add(generateAssociatedElementsInfo(el));
+                    par.add(generateAssociatedElementsInfo(context, el));
                 }
             }
             subSect.add(par);
@@ -707,17 +712,18 @@ public class ClassDiagramHelper {
     /**
      * Generates info of client dependencies info.
      *
+     * @param context  context of the report
      * @param umlClass an instance of <i>UmlClass</i>
      * @param clientDepend collection which contains client dependencies
      * @return an instance of <i>PdfPTable</i> where client dependecies info is situated
      */
-    private static PdfPTable generateClientDependenciesInfo(UmlClass umlClass, Collection clientDepend) {
+    private static PdfPTable generateClientDependenciesInfo(ReportContext context, UmlClass umlClass, Collection clientDepend) {
         if(clientDepend == null) {
             clientDepend = Model.getFacade().getClientDependencies(umlClass);
         }
         PdfPTable table = TableUtils.generateTableCap(2);
         try {
-            table.setWidths(new float[]{2f, 3f});
+            table.setWidths(context.getStyles().getDocumentationWidths());
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.name")));
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.dependency_documentation")));
 
@@ -727,11 +733,11 @@ public class ClassDiagramHelper {
                     if(suppliers.size() > 0) {
                         for (Object supplier : suppliers) {
                             if (Model.getFacade().isAClass(supplier) || Model.getFacade().isAInterface(supplier)) {
-                                Anchor anchor = ReportUtils.getElementNameWithReference(supplier);
+                                Anchor anchor = ReportUtils.getElementNameWithReference(context, supplier);
                                 String imageName = "";
                                 if(Model.getFacade().isAClass(supplier)) imageName = "class";
                                 if(Model.getFacade().isAInterface(supplier)) imageName = "interface";
-                                table.addCell(TableUtils.createImageLabelTable(null, anchor, imageName, null, new float[]{1, 7}, null));
+                                table.addCell(TableUtils.createImageLabelCell(context, null, anchor, imageName, null, null));
                                 table.addCell(ReportUtils.getElementsDocumentation(el));
                             }
                         }
@@ -749,17 +755,18 @@ public class ClassDiagramHelper {
     /**
      * Generates info of supplier dependencies info.
      *
+     * @param context  context of the report
      * @param umlClass an instance of <i>UmlClass</i>
      * @param supplierDepend collection which contains supplier dependencies
      * @return an instance of <i>PdfPTable</i> where supplier dependecies info is situated
      */
-    private static PdfPTable generateSupplierDependenciesInfo(UmlClass umlClass, Collection supplierDepend) {
+    private static PdfPTable generateSupplierDependenciesInfo(ReportContext context, UmlClass umlClass, Collection supplierDepend) {
         if(supplierDepend == null) {
             supplierDepend = Model.getFacade().getSupplierDependencies(umlClass);
         }
         PdfPTable table = TableUtils.generateTableCap(2);
         try {
-            table.setWidths(new float[]{2f, 3f});
+            table.setWidths(context.getStyles().getDocumentationWidths());
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.name")));
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.dependency_documentation")));
 
@@ -769,11 +776,11 @@ public class ClassDiagramHelper {
                     if(clients.size() > 0) {
                         for(Object client : clients) {
                             if (Model.getFacade().isAClass(client) || Model.getFacade().isAInterface(client)) {
-                                Anchor anchor = ReportUtils.getElementNameWithReference(client);
+                                Anchor anchor = ReportUtils.getElementNameWithReference(context, client);
                                 String imageName = "";
                                 if(Model.getFacade().isAClass(client)) imageName = "class";
                                 if(Model.getFacade().isAInterface(client)) imageName = "interface";
-                                table.addCell(TableUtils.createImageLabelTable(null, anchor, imageName, null, new float[]{1, 7}, null));
+                                table.addCell(TableUtils.createImageLabelCell(context, null, anchor, imageName, null, null));
                                 table.addCell(ReportUtils.getElementsDocumentation(el));
                             }
                         }
@@ -790,17 +797,18 @@ public class ClassDiagramHelper {
     /**
      * Generates info of generalizations info.
      *
+     * @param context   context of the report
      * @param umlObject an instance of uml object: <i>UmlClass</i>, <i>Interface</i>
      * @param generalizations collection which contains generalizations
      * @return an instance of <i>PdfPTable</i> where generalizations info is situated
      */
-    private static PdfPTable generateGeneralizationsInfo(Object umlObject, Collection generalizations) {
+    private static PdfPTable generateGeneralizationsInfo(ReportContext context, Object umlObject, Collection generalizations) {
         if(generalizations == null) {
             generalizations = Model.getFacade().getGeneralizations(umlObject);
         }
         PdfPTable table = TableUtils.generateTableCap(2);
         try {
-            table.setWidths(new float[]{2f, 3f});
+            table.setWidths(context.getStyles().getDocumentationWidths());
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.name")));
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.generalization_documentation")));
 
@@ -810,8 +818,8 @@ public class ClassDiagramHelper {
                     Object parent = Model.getFacade().getGeneral(el);//getParent(el);
                     if(Model.getFacade().isAClass(parent) || Model.getFacade().isAInterface(parent) ||
                        Model.getFacade().isAEnumeration(parent)) {
-                        Anchor anchor = ReportUtils.getElementNameWithReference(parent);
-                        table.addCell(TableUtils.createImageLabelTable(null, anchor, ReportUtils.getImageName(parent), null, new float[]{1, 7}, null));
+                        Anchor anchor = ReportUtils.getElementNameWithReference(context, parent);
+                        table.addCell(TableUtils.createImageLabelCell(context, null, anchor, ReportUtils.getImageName(parent), null, null));
                         table.addCell(ReportUtils.getElementsDocumentation(el));
                     }
                 }
@@ -826,17 +834,18 @@ public class ClassDiagramHelper {
     /**
      * Generates info of specializations info
      *
+     * @param context   context of the report
      * @param umlObject an instance of uml object: <i>UmlClass</i>, <i>Interface</i>
      * @param specializations collection which contains specializations
      * @return an instance of <i>PdfPTable</i> where specializations info is situated
      */
-    private static PdfPTable generateSpecializationsInfo(Object umlObject, Collection specializations) {
+    private static PdfPTable generateSpecializationsInfo(ReportContext context, Object umlObject, Collection specializations) {
         if(specializations == null) {
             specializations = Model.getFacade().getSpecifications(umlObject);
         }
         PdfPTable table = TableUtils.generateTableCap(2);
         try {
-            table.setWidths(new float[]{2f, 3f});
+            table.setWidths(context.getStyles().getDocumentationWidths());
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.name")));
             table.addCell(TableUtils.createHeaderCellWithFont(Translator.localize("argopdf.report.specialization_documentation")));
 
@@ -846,8 +855,8 @@ public class ClassDiagramHelper {
                     Object child = Model.getFacade().getSpecific(el);//getChild(el);
                     if(Model.getFacade().isAClass(child) || Model.getFacade().isAInterface(child) ||
                        Model.getFacade().isAEnumeration(child)) {
-                        Anchor anchor = ReportUtils.getElementNameWithReference(child);
-                        table.addCell(TableUtils.createImageLabelTable(null, anchor, ReportUtils.getImageName(child), null, new float[]{1, 7}, null));
+                        Anchor anchor = ReportUtils.getElementNameWithReference(context, child);
+                        table.addCell(TableUtils.createImageLabelCell(context, null, anchor, ReportUtils.getImageName(child), null, null));
                         table.addCell(ReportUtils.getElementsDocumentation(el));
                     }
                 }
@@ -862,13 +871,14 @@ public class ClassDiagramHelper {
     /**
      * Generates info of assosiation relationship
      *
+     * @param context context of the report
      * @param assEnd an instance of object which represents assosiation
      * @return an instance of <i>PdfPTable</i> where assosiation relationship info is situated
      */
-    private static PdfPTable generateAssociatedElementsInfo(Object assEnd) {
+    private static PdfPTable generateAssociatedElementsInfo(ReportContext context, Object assEnd) {
         PdfPTable table = TableUtils.generateTableCap(2);
         try {
-            table.setWidths(new float[]{2f, 6f});
+            table.setWidths(context.getStyles().getRelationshipWidths());
         } catch(DocumentException ex) {
             LOG.debug(ex.getMessage());
         }
@@ -887,7 +897,7 @@ public class ClassDiagramHelper {
                 if(Model.getFacade().isAClass(type) || Model.getFacade().isAInterface(type) ||
                    Model.getFacade().isAEnumeration(type)) {
                     table.addCell(TableUtils.createCell("   ", 2));
-                    PdfPTable assToTable = ReportUtils.generateAssosiatedEndInfo(el);
+                    PdfPTable assToTable = ReportUtils.generateAssosiatedEndInfo(context, el);
                     PdfPCell cell2 = new PdfPCell(assToTable);
                     cell2.setColspan(2);
                     table.addCell(cell2);
@@ -897,7 +907,7 @@ public class ClassDiagramHelper {
             if(Model.getFacade().isAAssociationClass(assosiation)) {
                 table.addCell(TableUtils.createCell("   ", 2));
                 table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.association_class")));
-                table.addCell(TableUtils.createCell(ReportUtils.getElementNameWithReference(assosiation), 2, null, "class", null, new float[]{1, 20}));
+                table.addCell(TableUtils.createCell(context, ReportUtils.getElementNameWithReference(context, assosiation), 2, null, "class", null));
             }
         }
 
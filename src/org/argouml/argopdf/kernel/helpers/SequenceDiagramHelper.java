@@ -40,9 +40,11 @@ package org.argouml.argopdf.kernel.helpers;
 import com.lowagie.text.*;
 import org.argouml.uml.diagram.sequence.ui.UMLSequenceDiagram;
 import org.argouml.argopdf.kernel.ReportUtils;
-import org.argouml.argopdf.kernel.PdfReport;
+import org.argouml.argopdf.kernel.ReportContext;
 import org.apache.log4j.Logger;
 
+import java.util.List;
+
 /**
  * Contains helper methods for processing sequence diagrams
  *
@@ -56,40 +58,42 @@ public class SequenceDiagramHelper {
     /**
      * Generates info of the sequence diagram
      *
-     * @param document current document instance
+     * @param context  context of the report
      * @param section  an instance of <i>Section</i> class, where diagram info will be situated
      * @param diagram  an instance of <i>UMLSequenceDiagram</i> class, which info will be generated
-     * @param generateDiagrams defines, whether diagram image should be generated
      */
-    public static void generateDiagramInfo(Document document, Section section, UMLSequenceDiagram diagram, boolean generateDiagrams) {
+    public static void generateDiagramInfo(ReportContext context, Section section, UMLSequenceDiagram diagram) {
         if(diagram == null) return;
-        LOG.debug("generate info of sequence diagram: " + diagram.getName());
 
-        boolean addSection = false;
-        if(section != null) {
-            Paragraph title = ReportUtils.generateTitle(ReportUtils.getElementName(diagram), 1, false);
-            section = section.addSection(title, section.depth() + 1);
-        } else {
-            addSection = true;
-            section = PdfReport.generateNewChapter(ReportUtils.getElementName(diagram), false);
-        }
+        boolean addSection = section == null;
+        section = ReportUtils.createDiagramSection(context, section, diagram);
+        fillDiagramSection(context, section, diagram);
 
-        Image im = ReportUtils.makeImageOfDiagram(diagram);
-        if(im != null && generateDiagrams) {
-            ReportUtils.adjustImageSizeToDocumentPageSize(im,  document);
-            section.add(Chunk.NEWLINE);
-            section.add(new Chunk(im, 0, 0, true));
-            section.add(Chunk.NEWLINE);
-
-            section.add(Chunk.NEWPAGE);
-        }
-        
         if(addSection) {
             try {
-                document.add(section);
+                context.getDocument().add(section);
             } catch(DocumentException ex) {
                 LOG.debug(ex.getMessage());
             }
         }
     }
+
+    /**
+     * Generates contents of the section of the sequence diagram. Only the given section is changed,
+     * so this method can be called on a worker thread.
+     *
+     * @param context  context of the report
+     * @param section  section of the diagram, which was created by <i>ReportUtils.createDiagramSection</i>
+     * @param diagram  an instance of <i>UMLSequenceDiagram</i> class, which info will be generated
+     */
+    public static void fillDiagramSection(ReportContext context, Section section, UMLSequenceDiagram diagram) {
+        LOG.debug("generate info of sequence diagram: " + diagram.getName());
+
+        List images = context.getImageProvider().getImages(diagram);
+        if(images.size() > 0) {
+            ReportUtils.addDiagramImages(context.getDocument(), section, images);
+
+            section.add(Chunk.NEWPAGE);
+        }
+    }
 }
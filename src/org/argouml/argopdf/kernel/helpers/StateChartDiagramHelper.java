@@ -41,18 +41,15 @@ import org.apache.log4j.Logger;
 import org.omg.uml.foundation.core.UmlClass;
 import org.argouml.model.Model;
 import org.argouml.i18n.Translator;
-import org.argouml.kernel.ProjectManager;
 import org.argouml.uml.diagram.static_structure.ui.UMLClassDiagram;
-import org.argouml.uml.diagram.state.ui.UMLStateDiagram;
 import org.argouml.uml.diagram.ArgoDiagram;
 import org.argouml.argopdf.kernel.ReportUtils;
+import org.argouml.argopdf.kernel.ReportContext;
+import org.argouml.argopdf.kernel.DiagramIndex;
 import com.lowagie.text.*;
 
 import java.util.List;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Vector;
-import org.argouml.kernel.Project;
 
 /**
  * Contains helper methods for processing state chart diagrams
@@ -67,57 +64,41 @@ public class StateChartDiagramHelper {
     /**
      * Returns all state chart diagrams of uml class
      *
-     * @param umlClass an instance of <i>UmlClass</i> class
+     * @param umlClass     an instance of <i>UmlClass</i> class
+     * @param diagramIndex index of diagrams of the project
      * @return a List which containsall state chart diagrams of uml class
      */
-    public static List getStateChartDiagrams(UmlClass umlClass) {
-        List stateChartD = new ArrayList();
-
-        // fpierre 31/08/2009 - getCurrentProject() is deprecated
-        // use getOpenProjects() instead
-        // TODO manage possible nullpointerexception on getOpenProjects().get(0)
-        //Vector diagrams  = ProjectManager.getManager().getCurrentProject().getDiagrams();
-        Project project = (Project)ProjectManager.getManager().getOpenProjects().get(0);
-        Vector diagrams = new Vector(project.getDiagramList());
-        for(Object el : diagrams) {
-
-            if(el instanceof UMLStateDiagram && umlClass.equals(((UMLStateDiagram)el).getNamespace())) {
-                stateChartD.add(el);
-            }
-
-        }
-
-        return stateChartD;
+    public static List getStateChartDiagrams(UmlClass umlClass, DiagramIndex diagramIndex) {
+        return diagramIndex.getStateChartDiagrams(umlClass);
     }
 
     /**
      * Generates state chart diagrams of uml class object
      *
-     * @param document current document instance
+     * @param context  context of the report
      * @param section  section, to which state chart diagram will be added
      * @param umlClass an instance of <i>UmlClass</i> class
-     * @param generateDiagrams defines, whether diagram image should be generated
      */
-    public static void generateStateChartDiagrams(Document document, Section section, UmlClass umlClass, boolean generateDiagrams) {
-        List diagrams = getStateChartDiagrams(umlClass);
+    public static void generateStateChartDiagrams(ReportContext context, Section section, UmlClass umlClass) {
+        //state chart diagrams are represented only by their images
+        if(!context.getImageProvider().isEnabled()) return;
+
+        List diagrams = getStateChartDiagrams(umlClass, context.getDiagramIndex());
 
         if(diagrams.size() > 0) {
             Section subSect = null;
 
             for(Object el : diagrams) {
 
-                Image im = ReportUtils.makeImageOfDiagram((ArgoDiagram)el);
-                if(im != null && generateDiagrams) {
+                List images = context.getImageProvider().getImages((ArgoDiagram)el);
+                if(images.size() > 0) {
                     if(subSect == null) {
                         subSect = section.addSection("", 0);
                         subSect.setBookmarkTitle(Translator.localize("argopdf.report.diagram.statechart"));
                         subSect.add(ReportUtils.generateTitle(Translator.localize("argopdf.report.diagram.statechart_s"), 2, false));
                     }
-                    ReportUtils.adjustImageSizeToDocumentPageSize(im,  document);
                     subSect.add(ReportUtils.generateTitle(ReportUtils.getElementName(el), 3, false));
-                    subSect.add(Chunk.NEWLINE);
-                    subSect.add(new Chunk(im, 0, 0, true));
-                    subSect.add(Chunk.NEWLINE);
+                    ReportUtils.addDiagramImages(context.getDocument(), subSect, images);
                 }
             }
 
@@ -44,17 +44,15 @@ import org.argouml.uml.ui.foundation.core.ActionSetAssociationEndAggregation;
 import org.argouml.model.Model;
 import org.argouml.i18n.Translator;
 import org.argouml.argopdf.kernel.ReportUtils;
+import org.argouml.argopdf.kernel.ReportContext;
 import org.argouml.argopdf.kernel.TableUtils;
 import org.apache.log4j.Logger;
 
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.awt.*;
 
 import com.lowagie.text.*;
-import com.lowagie.text.Font;
-import com.lowagie.text.Image;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfPCell;
 
@@ -126,30 +124,34 @@ public class UseCasesDiagramHelper {
     /**
      * Adds Use Case diagram to the report.
      *
-     * @param document current document instance
+     * @param context  context of the report
      * @param chapter  chapter of Use Case diagrams
      * @param diagram  Use Case diagram to add to the report
-     * @param generateDiagrams defines, whether diagram image should be generated
      */
-    public static void addUseCaseDiagram(Document document, Chapter chapter, UMLUseCaseDiagram diagram, boolean generateDiagrams) {
+    public static void addUseCaseDiagram(ReportContext context, Chapter chapter, UMLUseCaseDiagram diagram) {
 
         if(diagram == null) return;
-        LOG.debug("Add Use Case diagram: " + diagram.getName());
 
         //Creates section in pdf file, which will contain
         //info about Use Case diagram, which is in processing
-        Section section = chapter.addSection(ReportUtils.generateTitle(ReportUtils.getElementName(diagram), 1, false), 2);
-        section.add(Chunk.NEWLINE);
+        Section section = ReportUtils.createDiagramSection(context, chapter, diagram);
+        fillDiagramSection(context, section, diagram);
+    }
 
-        Image im = ReportUtils.makeImageOfDiagram(diagram);
-        if(im != null && generateDiagrams) {
-            ReportUtils.adjustImageSizeToDocumentPageSize(im,  document);
-            section.add(new Chunk(im, 0, 0, true));
-        }
+    /**
+     * Generates contents of the section of the Use Case diagram. Only the given section is changed,
+     * so this method can be called on a worker thread.
+     *
+     * @param context  context of the report
+     * @param section  section of the diagram, which was created by <i>ReportUtils.createDiagramSection</i>
+     * @param diagram  Use Case diagram to add to the report
+     */
+    public static void fillDiagramSection(ReportContext context, Section section, UMLUseCaseDiagram diagram) {
+        LOG.debug("Add Use Case diagram: " + diagram.getName());
 
-        section.add(Chunk.NEWLINE);
-        UseCasesDiagramHelper.generateSummaryInfo(section, diagram);
-        UseCasesDiagramHelper.generateDetailedInfo(section, diagram);
+        ReportUtils.addDiagramImages(context.getDocument(), section, context.getImageProvider().getImages(diagram));
+        UseCasesDiagramHelper.generateSummaryInfo(context, section, diagram);
+        UseCasesDiagramHelper.generateDetailedInfo(context, section, diagram);
 
         section.add(Chunk.NEXTPAGE);
     }
@@ -195,13 +197,14 @@ public class UseCasesDiagramHelper {
     /**
      * Generates use cases diagram summary info
      *
+     * @param context context of the report
      * @param section section, to which summary info block will be added
      * @param diagram current diagarm, which summary info will be generated
      */
-    public static void generateSummaryInfo(Section section, UMLDiagram diagram) {
+    public static void generateSummaryInfo(ReportContext context, Section section, UMLDiagram diagram) {
 
         if(diagram instanceof UMLUseCaseDiagram) {
-            PdfPTable table = generateUseCasesSummaryInfo((UMLUseCaseDiagram)diagram);
+            PdfPTable table = generateUseCasesSummaryInfo(context, (UMLUseCaseDiagram)diagram);
             if(table != null) {
                 Section subSect = section.addSection(ReportUtils.generateTitle(
                                                      Translator.localize("argopdf.report.summary"), 2, true),
@@ -216,17 +219,18 @@ public class UseCasesDiagramHelper {
     /**
      * Generates detailed info for uml element.
      *
+     * @param context context of the report
      * @param section section, to which detailed info will be added
      * @param diagram diagram, which elements need to generate detailed info
      */
-    public static void generateDetailedInfo(Section section, UMLDiagram diagram) {
+    public static void generateDetailedInfo(ReportContext context, Section section, UMLDiagram diagram) {
 
         Section subSect = section.addSection(ReportUtils.generateTitle(
                                              Translator.localize("argopdf.report.details"), 2, true),
                                              0);
 
         if(diagram instanceof UMLUseCaseDiagram) {
-            subSect.add(generateUseCaseDetailedInfo((UMLUseCaseDiagram)diagram));
+            subSect.add(generateUseCaseDetailedInfo(context, (UMLUseCaseDiagram)diagram));
         }
         subSect.add(Chunk.NEWLINE);
 
@@ -235,24 +239,26 @@ public class UseCasesDiagramHelper {
     /**
      * Generates summary info of use case diagram.
      *
+     * @param context context of the report
      * @param diagram an instance of current use case diagram
      * @return an instance of <i>PdfPTable</i> class with summary info
      *         null, if diagram does not have components
      */
-    private static PdfPTable generateUseCasesSummaryInfo(UMLUseCaseDiagram diagram) {
+    private static PdfPTable generateUseCasesSummaryInfo(ReportContext context, UMLUseCaseDiagram diagram) {
         ArrayList elements = UseCasesDiagramHelper.getUseCaseActors(diagram);
         elements.addAll(UseCasesDiagramHelper.getUseCases(diagram));
 
-        return TableUtils.generateElementsInfo(elements);
+        return TableUtils.generateElementsInfo(context, elements);
     }
 
     /**
      * Generates detailed info of use case diagram
      *
+     * @param context context of the report
      * @param diagram use case diagram, detailed info of which will be generated
      * @return an instance of <i>Paragraph</i> class, which contains detailed info of use case diagram
      */
-    private static Paragraph generateUseCaseDetailedInfo(UMLUseCaseDiagram diagram) {
+    private static Paragraph generateUseCaseDetailedInfo(ReportContext context, UMLUseCaseDiagram diagram) {
         ArrayList elements = UseCasesDiagramHelper.getUseCaseActors(diagram);
         elements.addAll(UseCasesDiagramHelper.getUseCases(diagram));
 
@@ -260,20 +266,20 @@ public class UseCasesDiagramHelper {
         for (Object elem : elements) {
 
             details.add(Chunk.NEWLINE);
-            details.add(ReportUtils.createImageLabelPhrase(ReportUtils.getImageName(elem), null, ReportUtils.getAnchorElementName(elem), 2));
+            details.add(ReportUtils.createImageLabelPhrase(context, ReportUtils.getImageName(elem), null, ReportUtils.getAnchorElementName(context, elem), 2));
             details.add(Chunk.NEWLINE);
             details.add(ReportUtils.createModifiersInfo(elem));
 
             if(Model.getFacade().isAActor(elem)) {
 
-                Paragraph assosiationsInfo = generateActorRelationships(elem);
+                Paragraph assosiationsInfo = generateActorRelationships(context, elem);
                 if(assosiationsInfo != null) {
                     details.add(Chunk.NEWLINE);
                     details.add(assosiationsInfo);
                 }
 
             } else if(Model.getFacade().isAUseCase(elem)) {
-                Paragraph assosiationsInfo = generateUseCaseRelationships(elem);
+                Paragraph assosiationsInfo = generateUseCaseRelationships(context, elem);
                 if(assosiationsInfo != null) {
                     details.add(Chunk.NEWLINE);
                     details.add(assosiationsInfo);
@@ -289,12 +295,13 @@ public class UseCasesDiagramHelper {
     /**
      * Generates relationships info of Actor.
      *
+     * @param context context of the report
      * @param actor an instance of <i>Actor</i> class, which assosiations info will be generated.
      * @return an instance of <i>Paragraph</i> class, which contains assosiations info.
      *         If <i>actor</i> parameter is not an instance of <i>Actor</i> class, return null.
      *         If actor does not have assosiations, return null.
      */
-    private static Paragraph generateActorRelationships(Object actor) {
+    private static Paragraph generateActorRelationships(ReportContext context, Object actor) {
         if(Model.getFacade().isAActor(actor)) {
             Collection assEnds        = Model.getFacade().getAssociationEnds(actor);
             Collection generalization = Model.getFacade().getGeneralizations(actor);
@@ -303,21 +310,21 @@ public class UseCasesDiagramHelper {
             Paragraph assInfo = null;
             if(assEnds.size() > 0 || generalization.size() > 0 || specialization.size() > 0) {
                 Chunk assTitle = new Chunk(Translator.localize("argopdf.report.part.usecase.relationships.title"));
-                assTitle.setFont(new Font(Font.HELVETICA, 16, Font.BOLD));
+                assTitle.setFont(context.getStyles().getTitleFont(3));
                 assInfo = new Paragraph(assTitle);
             }
 
             if(generalization.size() > 0) {
                 for(Object el : generalization) {
                     assInfo.add(Chunk.NEWLINE);
-                    assInfo.add(generateGeneralizationInfo(el));
+                    assInfo.add(generateGeneralizationInfo(context, el));
                 }
             }
 
             if(specialization.size() > 0) {
                 for(Object el : specialization) {
                     assInfo.add(Chunk.NEWLINE);
-                    assInfo.add(generateGeneralizationInfo(el));
+                    assInfo.add(generateGeneralizationInfo(context, el));
                 }
             }
 
@@ -325,7 +332,7 @@ public class UseCasesDiagramHelper {
 
                 for(Object el : assEnds) {
                     assInfo.add(Chunk.NEWLINE);
-                    assInfo.add(generateAssociatedElementsInfo(el));
+                    assInfo.add(generateAssociatedElementsInfo(context, el));
                 }
 
                 return assInfo;
@@ -359,8 +366,10 @@ public class UseCasesDiagramHelper {
      * @return an instance of <i>java.util.Collection</i> class, which contains all
      *         relationship associations of the use case.
      *         if parameter <i>useCase</i> is not an instance of <i>UseCase</i> class, returns null.
+     *         The same relationships are included in the fingerprint of the use case, see
+     *         <i>ReportFingerprint</i>.
      */
-    private static java.util.Collection getAllUseCaseRelationShips(Object useCase) {
+    public static java.util.Collection getAllUseCaseRelationShips(Object useCase) {
         if(Model.getFacade().isAUseCase(useCase)) {
             Collection returnRes = new ArrayList();
             addToCollection(returnRes, Model.getFacade().getAssociationEnds(useCase));
@@ -380,12 +389,13 @@ public class UseCasesDiagramHelper {
     /**
      * Generates relationships info of Use Case.
      *
+     * @param context context of the report
      * @param useCase an instance of <i>UseCase</i> class, which relationships info will be generated.
      * @return an instance of <i>Paragraph</i> class, which contains relationships info.
      *         If <i>useCase</i> parameter is not an instance of <i>UseCase</i> class, return null.
      *         If useCase does not have relationships, returns null.
      */
-    private static Paragraph generateUseCaseRelationships(Object useCase) {
+    private static Paragraph generateUseCaseRelationships(ReportContext context, Object useCase) {
         if(Model.getFacade().isAUseCase(useCase)) {
             Collection relationships = getAllUseCaseRelationShips(useCase);
 
@@ -393,7 +403,7 @@ public class UseCasesDiagramHelper {
             Paragraph assInfo = null;
             if(relationships.size() > 0) {
                 Chunk assTitle = new Chunk(Translator.localize("argopdf.report.part.usecase.relationships.title"));
-                assTitle.setFont(new Font(Font.HELVETICA, 16, Font.BOLD));
+                assTitle.setFont(context.getStyles().getTitleFont(3));
                 assInfo = new Paragraph(assTitle);
             }
 
@@ -402,17 +412,17 @@ public class UseCasesDiagramHelper {
                 for(Object el : relationships) {
                     assInfo.add(Chunk.NEWLINE);
                     if(Model.getFacade().isAAssociationEnd(el)) {
-                        assInfo.add(generateAssociatedElementsInfo(el));
+                        assInfo.add(generateAssociatedElementsInfo(context, el));
                     } else if(Model.getFacade().isAGeneralization(el)) {
-                        assInfo.add(generateGeneralizationInfo(el));
+                        assInfo.add(generateGeneralizationInfo(context, el));
                     } else if(Model.getFacade().isADependency(el)) {
-                        assInfo.add(generateDependencyInfo(el));
+                        assInfo.add(generateDependencyInfo(context, el));
                     } else if(Model.getFacade().isAExtend(el)) {
-                        assInfo.add(generateExtendInfo(el));
+                        assInfo.add(generateExtendInfo(context, el));
                     } else if(Model.getFacade().isAExtensionPoint(el)) {
-                        assInfo.add(generateExtensionPointInfo(el));
+                        assInfo.add(generateExtensionPointInfo(context, el));
                     } else if(Model.getFacade().isAInclude(el)) {
-                        assInfo.add(generateIncludeInfo(el));
+                        assInfo.add(generateIncludeInfo(context, el));
                     }
                 }
 
@@ -424,30 +434,28 @@ public class UseCasesDiagramHelper {
         return null;
     }
 
-    private static PdfPTable generateIncludeInfo(Object include) {
+    private static PdfPTable generateIncludeInfo(ReportContext context, Object include) {
         if(Model.getFacade().isAInclude(include)) {
             PdfPTable table = new PdfPTable(2);
             table.setWidthPercentage(100);
 
             try {
-                table.setWidths(new float[]{2f, 6f});
+                table.setWidths(context.getStyles().getRelationshipWidths());
 
                 String extPName = Model.getFacade().getName(include);
                 if(extPName == null || "".equals(extPName)) {
                     extPName = Translator.localize("argopdf.report.part.usecase.include.table.unnamed.title");
                 }
                 extPName += " : " + Translator.localize("argopdf.report.part.usecase.include.table.title");
-                table.addCell(TableUtils.createCell(extPName, 2,
-                                                     TableUtils.TABLE_HEADER_COLOR,
-                                                     new Font(Font.HELVETICA, 12, Font.BOLD, Color.WHITE)));
+                table.addCell(TableUtils.createHeaderCellWithFont(extPName, 2));
 
                 Object baseUC = Model.getFacade().getBase(include);
                 table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.part.usecase.include.table.baseuc")));
-                table.addCell(TableUtils.createCell(Model.getFacade().getName(baseUC), ReportUtils.getImageName(baseUC), new float[]{1, 20}));
+                table.addCell(TableUtils.createReferenceCell(context, baseUC));
 
                 Object inclUC = Model.getFacade().getAddition(include);
                 table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.part.usecase.include.table.includeduc")));
-                table.addCell(TableUtils.createCell(Model.getFacade().getName(inclUC), ReportUtils.getImageName(inclUC), new float[]{1, 20}));
+                table.addCell(TableUtils.createReferenceCell(context, inclUC));
 
                 table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.part.usecase.include.table.documentation")));
                 table.addCell(TableUtils.createCell(ReportUtils.getElementsDocumentation(include)));
@@ -462,27 +470,25 @@ public class UseCasesDiagramHelper {
         return null;
     }
 
-    private static PdfPTable generateExtensionPointInfo(Object extensionPoint) {
+    private static PdfPTable generateExtensionPointInfo(ReportContext context, Object extensionPoint) {
         if(Model.getFacade().isAExtensionPoint(extensionPoint)) {
             PdfPTable table = new PdfPTable(2);
             table.setWidthPercentage(100);
 
             try {
-                table.setWidths(new float[]{2f, 6f});
+                table.setWidths(context.getStyles().getRelationshipWidths());
 
                 String extPName = Model.getFacade().getName(extensionPoint);
                 if(extPName == null || "".equals(extPName)) {
                     extPName = Translator.localize("argopdf.report.part.usecase.extension.point.table.unnamed.title");
                 }
                 extPName += " : " + Translator.localize("argopdf.report.part.usecase.extension.point.table.title");
-                table.addCell(TableUtils.createCell(extPName, 2,
-                                                     TableUtils.TABLE_HEADER_COLOR,
-                                                     new Font(Font.HELVETICA, 12, Font.BOLD, Color.WHITE)));
+                table.addCell(TableUtils.createHeaderCellWithFont(extPName, 2));
 
                 Object baseUC = Model.getFacade().getUseCase(extensionPoint);
 
                 table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.part.usecase.extension.point.table.baseuc")));
-                table.addCell(TableUtils.createCell(Model.getFacade().getName(baseUC), ReportUtils.getImageName(baseUC), new float[]{1, 20}));
+                table.addCell(TableUtils.createReferenceCell(context, baseUC));
 
                 table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.part.usecase.extension.point.table.documentation")));
                 table.addCell(TableUtils.createCell(ReportUtils.getElementsDocumentation(extensionPoint)));
@@ -496,32 +502,30 @@ public class UseCasesDiagramHelper {
         return null;
     }
 
-    private static PdfPTable generateExtendInfo(Object extend) {
+    private static PdfPTable generateExtendInfo(ReportContext context, Object extend) {
         if(Model.getFacade().isAExtend(extend)) {
             PdfPTable table = new PdfPTable(2);
             table.setWidthPercentage(100);
 
             try {
-                table.setWidths(new float[]{2f, 6f});
+                table.setWidths(context.getStyles().getRelationshipWidths());
 
                 String extName = Model.getFacade().getName(extend);
                 if(extName == null || "".equals(extName)) {
                     extName = Translator.localize("argopdf.report.part.usecase.extend.table.unnamed.title");
                 }
                 extName += " : " + Translator.localize("argopdf.report.part.usecase.extend.table.title");
-                table.addCell(TableUtils.createCell(extName, 2,
-                                                     TableUtils.TABLE_HEADER_COLOR,
-                                                     new Font(Font.HELVETICA, 12, Font.BOLD, Color.WHITE)));
+                table.addCell(TableUtils.createHeaderCellWithFont(extName, 2));
 
                 Object baseUC = Model.getFacade().getBase(extend);
                 Object extension = Model.getFacade().getExtension(extend);
                 Object condition = Model.getFacade().getCondition(extend);
 
                 table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.part.usecase.extend.table.baseuc")));
-                table.addCell(TableUtils.createCell(Model.getFacade().getName(baseUC), ReportUtils.getImageName(baseUC), new float[]{1, 20}));
+                table.addCell(TableUtils.createReferenceCell(context, baseUC));
 
                 table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.part.usecase.extend.table.extension")));
-                table.addCell(TableUtils.createCell(Model.getFacade().getName(extension), ReportUtils.getImageName(extension), new float[]{1, 20}));
+                table.addCell(TableUtils.createReferenceCell(context, extension));
 
                 if (condition == null) {
                     condition = "";
@@ -550,38 +554,37 @@ public class UseCasesDiagramHelper {
     /**
      * Generates information of dependency relationship.
      *
+     * @param context    context of the report
      * @param dependency an instance of <i>Dependency</i> class, witch info will be generated.
      * @return an instance of <i>PdfPTable</i> class, which contains info of appropriate dependency.
      *         if parameter <i>dependency</i> is not an instance of <i>Dependency</i> class, returns null.
      */
-    private static PdfPTable generateDependencyInfo(Object dependency) {
+    private static PdfPTable generateDependencyInfo(ReportContext context, Object dependency) {
         if(Model.getFacade().isADependency(dependency)) {
             PdfPTable table = new PdfPTable(2);
             table.setWidthPercentage(100);
 
             try {
-                table.setWidths(new float[]{2f, 6f});
+                table.setWidths(context.getStyles().getRelationshipWidths());
 
                 String depName = Model.getFacade().getName(dependency);
                 if(depName == null || "".equals(depName)) {
                     depName = Translator.localize("argopdf.report.part.usecase.dependency.table.unnamed.title");
                 }
                 depName += " : " + Translator.localize("argopdf.report.part.usecase.dependency.table.title");
-                table.addCell(TableUtils.createCell(depName, 2,
-                                                     TableUtils.TABLE_HEADER_COLOR,
-                                                     new Font(Font.HELVETICA, 12, Font.BOLD, Color.WHITE)));
+                table.addCell(TableUtils.createHeaderCellWithFont(depName, 2));
 
                 Collection suppliers = Model.getFacade().getSuppliers(dependency);
                 Collection clients = Model.getFacade().getClients(dependency);
 
                 for(Object el : suppliers) {
                     table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.part.usecase.dependency.table.supplier")));
-                    table.addCell(TableUtils.createCell(Model.getFacade().getName(el), ReportUtils.getImageName(el), new float[]{1, 20}));
+                    table.addCell(TableUtils.createReferenceCell(context, el));
                 }
 
                 for(Object el : clients) {
                     table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.part.usecase.dependency.table.client")));
-                    table.addCell(TableUtils.createCell(Model.getFacade().getName(el), ReportUtils.getImageName(el), new float[]{1, 20}));
+                    table.addCell(TableUtils.createReferenceCell(context, el));
                 }
 
                 table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.part.usecase.dependency.table.documentation")));
@@ -599,17 +602,18 @@ public class UseCasesDiagramHelper {
     /**
      * Generates information of generalization relationship.
      *
+     * @param context        context of the report
      * @param generalization an instance of <i>Generalization</i> class, witch info will be generated.
      * @return an instance of <i>PdfPTable</i> class, which contains info of appropriate generalization.
      *         if parameter <i>generalization</i> is not an instance of <i>Generalization</i> class, returns null.
      */
-    private static PdfPTable generateGeneralizationInfo(Object generalization) {
+    private static PdfPTable generateGeneralizationInfo(ReportContext context, Object generalization) {
         if(Model.getFacade().isAGeneralization(generalization)) {
             PdfPTable table = new PdfPTable(2);
             table.setWidthPercentage(100);
 
             try {
-                table.setWidths(new float[]{2f, 6f});
+                table.setWidths(context.getStyles().getRelationshipWidths());
                 // TODO : fpierre : manage this...
 
                 String genName = "";//(String)Model.getFacade().getDiscriminator(generalization);
@@ -617,9 +621,7 @@ public class UseCasesDiagramHelper {
                     genName = Translator.localize("argopdf.report.part.usecase.generalization.table.unnamed.title");
                 }
                 genName += " : " + Translator.localize("argopdf.report.part.usecase.generalization.title");
-                table.addCell(TableUtils.createCell(genName, 2,
-                                                     TableUtils.TABLE_HEADER_COLOR,
-                                                     new Font(Font.HELVETICA, 12, Font.BOLD, Color.WHITE)));
+                table.addCell(TableUtils.createHeaderCellWithFont(genName, 2));
 
                 // FPE 31/08/2009 - getParent() is replaced by getGeneral()
                 // FPE 31/08/2009 - getChild() is replaced by getSpecific()
@@ -627,10 +629,10 @@ public class UseCasesDiagramHelper {
                 Object child = Model.getFacade().getSpecific(generalization);//getChild(generalization);
 
                 table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.part.usecase.generalization.table.parent")));
-                table.addCell(TableUtils.createCell(Model.getFacade().getName(parent), ReportUtils.getImageName(parent), new float[]{1, 20}));
+                table.addCell(TableUtils.createReferenceCell(context, parent));
 
                 table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.part.usecase.generalization.table.child")));
-                table.addCell(TableUtils.createCell(Model.getFacade().getName(child), ReportUtils.getImageName(child), new float[]{1, 20}));
+                table.addCell(TableUtils.createReferenceCell(context, child));
 
                 table.addCell(TableUtils.createCell(Translator.localize("argopdf.report.part.usecase.generalization.table.documentation")));
                 table.addCell(TableUtils.createCell(ReportUtils.getElementsDocumentation(generalization)));
@@ -647,17 +649,18 @@ public class UseCasesDiagramHelper {
     /**
      * Generates information of assosiation relationship.
      *
+     * @param context context of the report
      * @param assEnd an instance of <i>AssociationEnd</i> class, by which info of assosiated
      *               element will be generated
      * @return an instance of <i>PdfPTable</i> class, which contains info of assosiated element
      */
-    private static PdfPTable generateAssociatedElementsInfo(Object assEnd) {
+    private static PdfPTable generateAssociatedElementsInfo(ReportContext context, Object assEnd) {
         if(Model.getFacade().isAAssociationEnd(assEnd)) {
             PdfPTable table = new PdfPTable(2);
             table.setWidthPercentage(100);
 
             try {
-                table.setWidths(new float[]{2f, 6f});
+                table.setWidths(context.getStyles().getRelationshipWidths());
 
                 Object assosiation = Model.getFacade().getAssociation(assEnd);
 
@@ -678,7 +681,7 @@ public class UseCasesDiagramHelper {
                     for(Object el : connection) {
                         if(Model.getFacade().isAAssociationEnd(el)) {
                             table.addCell(TableUtils.createCell("   ", 2));
-                            PdfPTable assToTable = ReportUtils.generateAssosiatedEndInfo(el);
+                            PdfPTable assToTable = ReportUtils.generateAssosiatedEndInfo(context, el);
                             PdfPCell cell2 = new PdfPCell(assToTable);
                             cell2.setColspan(2);
                             table.addCell(cell2);
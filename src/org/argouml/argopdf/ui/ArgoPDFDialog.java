@@ -50,6 +50,11 @@ import org.argouml.uml.diagram.deployment.ui.UMLDeploymentDiagram;
 import org.argouml.uml.UseCases;
 import org.argouml.argopdf.kernel.PdfReport;
 import org.argouml.argopdf.kernel.IReport;
+import org.argouml.argopdf.kernel.ReportSelection;
+import org.argouml.argopdf.kernel.ReportJob;
+import org.argouml.argopdf.kernel.ReportProgressListener;
+import org.argouml.argopdf.kernel.ReportResult;
+import org.argouml.argopdf.kernel.ReportUtils;
 import org.argouml.model.Model;
 import org.argouml.ui.explorer.rules.GoModelToElements;
 import org.tigris.swidgets.LabelledLayout;
@@ -59,6 +64,9 @@ import org.apache.log4j.Logger;
 import javax.swing.*;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.border.TitledBorder;
+import javax.swing.event.TreeSelectionEvent;
+import javax.swing.event.TreeSelectionListener;
+import javax.swing.tree.TreePath;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -95,9 +103,12 @@ public class ArgoPDFDialog extends JDialog {
     //Field which contains path, where report will be saved
     private JTextField pathField;
     //Check box 'Generate Table of contents'
-    //private JCheckBox generateToC;
+    private JCheckBox generateToC;
     //Check box 'Generate diagrams'
     private JCheckBox generateDiagrams;
+    //Check box 'Vector diagrams'
+    private JCheckBox vectorDiagrams;
+    private JCheckBox tiledDiagrams;
     //Check box 'Generate title page'
     private JCheckBox generateTitlePage;
     //Field which contains path to the logo
@@ -112,10 +123,22 @@ public class ArgoPDFDialog extends JDialog {
     private Project currentProject;
     //Represents report contents tree
     private JTree tree;
+    //Represents report contents, which are selected in the tree
+    private ReportSelection selection;
     //File chooser of the report
     JFileChooser reportChooser;
     //Logo chooser of the report
     JFileChooser logoChooser;
+    //Button 'Generate'
+    private JButton generateButton;
+    //Shows the progress of report generation
+    private JProgressBar progressBar;
+    //Report job, which is running at the moment, or null
+    private ReportJob reportJob;
+    //Shows preview of the element, which is highlighted in the tree
+    private PreviewPanel previewPanel;
+    //true, if preview follows the highlighted element
+    private boolean livePreview;
 
     /**
      * ArgoPDF dialog constructor
@@ -223,7 +246,9 @@ public class ArgoPDFDialog extends JDialog {
     }
 
     /**
-     * Creates bottom panel which contains two buttons: 'Generate' and 'Cancel'
+     * Creates bottom panel which contains two buttons: 'Generate' and 'Cancel' and
+     * progress bar of report generation. If report is being generated, 'Cancel' button
+     * cancels report generation, otherwise closes the dialog.
      *
      * @return JPanel which contains bottom components of the dialog
      */
@@ -240,30 +265,53 @@ public class ArgoPDFDialog extends JDialog {
         bottomPanel.add(cancelButton, bottomConstraints);
         cancelButton.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
+                if(reportJob != null && reportJob.isRunning()) {
+                    reportJob.cancel();
+                    return;
+                }
                 closeDialog();
             }
         });
 
-        bottomConstraints.weightx = 1.0;
+        bottomConstraints.weightx = 0.0;
         bottomConstraints.fill = GridBagConstraints.NONE;
         bottomConstraints.anchor = GridBagConstraints.EAST;
         bottomConstraints.insets = new Insets(3, 5, 3, 0);
-        JButton generateButton = new JButton(Translator.localize("argopdf.dialog.tab.general.button.generate"));
+        generateButton = new JButton(Translator.localize("argopdf.dialog.tab.general.button.generate"));
         bottomPanel.add(generateButton, bottomConstraints);
+
+        JButton previewButton = new JButton(Translator.localize("argopdf.dialog.tab.general.button.preview"));
+        bottomPanel.add(previewButton, bottomConstraints);
+        previewButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                //after the first preview, preview is updated, when another element is highlighted
+                livePreview = true;
+                startPreview();
+            }
+        });
+
+        bottomConstraints.weightx = 1.0;
+        bottomConstraints.fill = GridBagConstraints.HORIZONTAL;
+        bottomConstraints.insets = new Insets(3, 10, 3, 0);
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+        bottomPanel.add(progressBar, bottomConstraints);
+
         generateButton.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
-                
+                if(reportJob != null && reportJob.isRunning()) return;
+
                 IReport report = new PdfReport();
                 setOptions(report);
-                String result = report.generateReport();
-                if(result != null) {
-                    JOptionPane.showMessageDialog(ArgoPDFDialog.this, result);
-                    return;
-                }
 
-                JOptionPane.showMessageDialog(ArgoPDFDialog.this, Translator.localize("argopdf.report.message.report.generated"));
+                generateButton.setEnabled(false);
+                tree.setEnabled(false);
+                progressBar.setValue(0);
+                progressBar.setString(Translator.localize("argopdf.report.message.progress.started"));
 
-                closeDialog();
+                reportJob = new ReportJob(report, new DialogProgressListener());
+                reportJob.start();
             }
 
             private void setOptions(IReport report) {
@@ -273,9 +321,13 @@ public class ArgoPDFDialog extends JDialog {
                 report.setLogoPath(logoPath.getText());
 
                 report.setGenerateTitlePage(generateTitlePage.isSelected());
-                //report.setGenerateTableOfContents(generateToC.isSelected());
+                report.setGenerateTableOfContents(generateToC.isSelected());
                 report.setGenerateDiagrams(generateDiagrams.isSelected());
-                report.setTree(tree);
+                report.setVectorDiagrams(vectorDiagrams.isSelected());
+                report.setTiledDiagrams(tiledDiagrams.isSelected());
+                TreeNode.storeSelection((TreeNode)tree.getModel().getRoot(), selection);
+                report.setSelection(selection);
+                report.setWorkerThreads(Runtime.getRuntime().availableProcessors());
             }
         });
 
@@ -298,20 +350,33 @@ public class ArgoPDFDialog extends JDialog {
         optionsPanel.setMaximumSize(new Dimension(DEFAULT_SIZE.width/3, 1000));
         optionsPanel.setMinimumSize(new Dimension(DEFAULT_SIZE.width/3, DEFAULT_SIZE.height));
 
-/*
         generateToC = new JCheckBox(Translator.localize("argopdf.dialog.tab.general.options.checkbox.generate.table.of.contents"), true);
         optionsPanel.add(generateToC);
-*/
 
         generateDiagrams = new JCheckBox(Translator.localize("argopdf.dialog.tab.general.options.checkbox.generate.diagrams"), true);
         optionsPanel.add(generateDiagrams);
+
+        vectorDiagrams = new JCheckBox(Translator.localize("argopdf.dialog.tab.general.options.checkbox.vector.diagrams"), false);
+        optionsPanel.add(vectorDiagrams);
+        tiledDiagrams = new JCheckBox(Translator.localize("argopdf.dialog.tab.general.options.checkbox.tiled.diagrams"), false);
+        optionsPanel.add(tiledDiagrams);
+        generateDiagrams.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                vectorDiagrams.setEnabled(generateDiagrams.isSelected());
+                tiledDiagrams.setEnabled(generateDiagrams.isSelected());
+            }
+        });
         tab.add(optionsPanel);
 
         scrollPane = new JScrollPane();
         scrollPane.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
         scrollPane.setBackground(Color.WHITE);
         fillTreeScrollPane();
-        tab.add(scrollPane);
+
+        previewPanel = new PreviewPanel();
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, scrollPane, previewPanel);
+        splitPane.setResizeWeight(0.5);
+        tab.add(splitPane);
 
         return tab;
     }
@@ -427,58 +492,6 @@ public class ArgoPDFDialog extends JDialog {
         return tab;
     }
 
-    public static Collection getAllSequenceCollaborationActivityDiagrams(Object parent) {
-        ArrayList returnColl = new ArrayList();
-
-        // fpierre 31/08/2009 - getCurrentProject() is deprecated
-        // use getOpenProjects() instead
-        // TODO manage possible nullpointerexception on getOpenProjects().get(0)
-        //Vector diagrams = ProjectManager.getManager().getCurrentProject().getDiagrams();
-        Project project = (Project)ProjectManager.getManager().getOpenProjects().get(0);
-        Vector diagrams = new Vector(project.getDiagramList());
-
-        for(Object obj : diagrams) {
-            if(obj instanceof UMLSequenceDiagram || obj instanceof UMLCollaborationDiagram ||
-               obj instanceof UMLActivityDiagram) {
-                Object owner = ((UMLDiagram)obj).getOwner();
-
-                while(owner != null) {
-                    if(owner.equals(parent)) {
-                        returnColl.add(obj);
-                        break;
-                    } else {
-                        if(owner instanceof UmlPackage || owner instanceof Model) {
-                            break;
-                        } else {
-                            owner = Model.getFacade().getNamespace(owner);
-                        }
-                    }
-                }
-
-            }
-        }
-
-        return returnColl;
-    }
-
-    public static void addSequenceCollaborationActivityDiagrams(TreeNode node, Object parent) {
-/*      if(applicants == null) return;
-
-        for (Object obj : applicants) {
-            if (obj instanceof UMLSequenceDiagram || obj instanceof UMLCollaborationDiagram) {
-                node.add(new TreeNode(obj));
-            }
-        }*/
-
-        if(parent == null) return;
-        Collection diagr = getAllSequenceCollaborationActivityDiagrams(parent);
-
-        for(Object obj : diagr) {
-            node.add(new TreeNode(obj));
-        }
-
-    }
-
 /*    public static void exploreOwnedElements(TreeNode node, Object parent) {
         if(parent == null) return;
 
@@ -541,56 +554,100 @@ public class ArgoPDFDialog extends JDialog {
         // replaced by getDiagramList() ?
         //Vector diagrams = currentProject.getDiagrams();
         if (currentProject!=null ) {
-            Vector diagrams = new Vector(currentProject.getDiagramList());
-            Iterator iter = diagrams.iterator();
-            TreeNode node = new TreeNode(currentProject);
-
-            //add use case diagrams to the contents tree
-            TreeNode useCaseFolderNode = new TreeNode(new UseCases());
-            while(iter.hasNext()) {
-                Object diagram = iter.next();
-                if(diagram instanceof UMLUseCaseDiagram) {
-                    useCaseFolderNode.add(new TreeNode(diagram));
-                }
-            }
-            node.add(useCaseFolderNode);
+            //packages are explored, when they are expanded, or when the report is generated
+            selection = ReportSelection.createLazy(currentProject);
+            TreeNode node = TreeNode.createContentsTree(selection);
 
-            iter = diagrams.iterator();
-            while(iter.hasNext()) {
-                Object el = iter.next();
-                if(el instanceof UMLClassDiagram && currentProject.getModel().equals(((UMLClassDiagram)el).getNamespace())) {
-                    node.add(new TreeNode(el));
+            tree = new JTree(node);
+            tree.setCellRenderer(new TreeRenderer());
+            tree.addMouseListener(new TreeNodeSelectionListener(tree));
+            tree.addTreeWillExpandListener(new TreeNodeExpansionListener(tree));
+            tree.addTreeSelectionListener(new TreeSelectionListener() {
+                public void valueChanged(TreeSelectionEvent e) {
+                    if(livePreview) {
+                        startPreview();
+                    }
                 }
-            }
-            addSequenceCollaborationActivityDiagrams(node, currentProject.getModel());
+            });
+            tree.setShowsRootHandles(true);
+        }
+        return tree;
+    }
+
+    /**
+     * Starts preview of the element, which is highlighted in the tree, or of the whole project,
+     * if no element is highlighted. Preview, which is generated at the moment, is cancelled.
+     */
+    private void startPreview() {
+        if(tree == null || selection == null) return;
+
+        int index = 0;
+        TreePath path = tree.getSelectionPath();
+        if(path != null && path.getLastPathComponent() instanceof TreeNode) {
+            index = Math.max(((TreeNode)path.getLastPathComponent()).getSelectionIndex(), 0);
+        }
+
+        String previewTitle = index > 0 ? ReportUtils.getElementName(selection.getElement(index)) : title.getText();
+        previewPanel.preview(selection.getSubtree(index), previewTitle);
+    }
 
-            //add packages and its contents to the contents tree
-            Collection packages = (new GoModelToElements()).getChildren(currentProject.getModel());
-            for(Object el : packages) {
-                if(Model.getFacade().isAPackage(el)) {
-                    node.add(new TreeNode(el));
+    /**
+     * Updates the dialog according to the progress of report generation. All notifications
+     * are passed to the event dispatch thread.
+     */
+    private class DialogProgressListener implements ReportProgressListener {
+
+        public void reportStarted(final int diagramCount) {
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    progressBar.setMinimum(0);
+                    progressBar.setMaximum(diagramCount);
+                    progressBar.setValue(0);
                 }
-            }
+            });
+        }
 
-            //add deployment diagrams to the contents tree
-            for(Object o : diagrams) {
-                if(o instanceof UMLDeploymentDiagram) {
-                    node.add(new TreeNode(o));
+        public void diagramProcessed(final Object diagram, final int processed, int diagramCount) {
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    progressBar.setValue(processed);
+                    progressBar.setString(ReportUtils.getElementName(diagram));
                 }
-            }
+            });
+        }
 
-            tree = new JTree(node);
-            tree.setCellRenderer(new TreeRenderer());
-            tree.addMouseListener(new TreeNodeSelectionListener(tree));
-            tree.setShowsRootHandles(true);
+        public void reportFinished(final ReportResult result) {
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    generateButton.setEnabled(true);
+                    tree.setEnabled(true);
+                    progressBar.setValue(0);
+                    progressBar.setString("");
+
+                    if(result.isCancelled()) {
+                        JOptionPane.showMessageDialog(ArgoPDFDialog.this, Translator.localize("argopdf.report.message.report.cancelled"));
+                        return;
+                    }
+
+                    if(!result.isSuccessful()) {
+                        JOptionPane.showMessageDialog(ArgoPDFDialog.this, result.getMessage());
+                        return;
+                    }
+
+                    JOptionPane.showMessageDialog(ArgoPDFDialog.this, Translator.localize("argopdf.report.message.report.generated"));
+
+                    closeDialog();
+                }
+            });
         }
-        return tree;
     }
 
     /**
      * Closes dialog
      */
     private void closeDialog() {
+        livePreview = false;
+        previewPanel.dispose();
 
         this.setVisible(false);
     }
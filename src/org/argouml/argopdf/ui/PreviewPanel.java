@@ -0,0 +1,212 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.ui;
+
+import org.argouml.argopdf.kernel.HtmlRenderer;
+import org.argouml.argopdf.kernel.HtmlReport;
+import org.argouml.argopdf.kernel.ImagePolicy;
+import org.argouml.argopdf.kernel.ReportJob;
+import org.argouml.argopdf.kernel.ReportProgressListener;
+import org.argouml.argopdf.kernel.ReportResult;
+import org.argouml.argopdf.kernel.ReportSelection;
+import org.argouml.i18n.Translator;
+import org.apache.log4j.Logger;
+
+import javax.swing.*;
+import java.awt.BorderLayout;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * PreviewPanel shows the quick preview of a part of the report in the ArgoPDF dialog. Preview is
+ * generated as HTML page by <i>HtmlReport</i> on a worker thread, with images of low resolution and
+ * only for the first diagrams, so it is shown in a moment even for big models.
+ *
+ * Only one preview is generated at a time: new preview cancels the previous one, and results of
+ * the cancelled previews are ignored. Pages and images are written to a temporary directory, which
+ * is removed by <i>dispose()</i>.
+ *
+ * @version 0.1
+ */
+public class PreviewPanel extends JPanel {
+
+    private static final Logger LOG = Logger.getLogger(PreviewPanel.class);
+
+    //resolution of the images, at which diagrams are shown in their natural size
+    private static final int PREVIEW_DPI = 72;
+    private static final int PREVIEW_DIAGRAMS = 3;
+
+    private JEditorPane pane;
+    private File directory;
+    private int previewCount;
+    //preview, which is generated at the moment, or null
+    private ReportJob job;
+    //page, which is shown at the moment, or null
+    private File page;
+
+    public PreviewPanel() {
+        super(new BorderLayout());
+
+        pane = new JEditorPane();
+        pane.setEditable(false);
+        pane.setContentType("text/html");
+        showMessage(Translator.localize("argopdf.dialog.preview.hint"));
+        add(new JScrollPane(pane), BorderLayout.CENTER);
+    }
+
+    /**
+     * Starts generation of the preview. Preview, which is generated at the moment, is cancelled.
+     *
+     * @param selection contents of the preview, see <i>ReportSelection.getSubtree</i>
+     * @param title     title of the preview
+     */
+    public void preview(ReportSelection selection, String title) {
+        cancel();
+
+        File previewDirectory = getDirectory();
+        if(previewDirectory == null) {
+            showMessage(Translator.localize("argopdf.report.error.file.is.used.by.another.application"));
+            return;
+        }
+
+        //each preview gets its own page, so images of the previous preview are not taken from the cache of the pane
+        File file = new File(previewDirectory, "preview" + (++previewCount) + ".html");
+        HtmlReport report = new HtmlReport();
+        report.setPath(file.getPath());
+        report.setTitle(title);
+        report.setSelection(selection);
+        report.setImagePolicy(ImagePolicy.getDefault().derive(PREVIEW_DPI));
+        report.setDiagramLimit(PREVIEW_DIAGRAMS);
+
+        PreviewListener listener = new PreviewListener(file);
+        job = new ReportJob(report, listener);
+        listener.job = job;
+
+        showMessage(Translator.localize("argopdf.dialog.preview.progress"));
+        job.start();
+    }
+
+    /**
+     * Cancels the preview, which is generated at the moment
+     */
+    public void cancel() {
+        if(job != null) {
+            job.cancel();
+            job = null;
+        }
+    }
+
+    /**
+     * Cancels the preview and removes the temporary files
+     */
+    public void dispose() {
+        cancel();
+        showMessage(Translator.localize("argopdf.dialog.preview.hint"));
+        page = null;
+        if(directory != null) {
+            delete(directory);
+            directory = null;
+        }
+    }
+
+    private void showMessage(String message) {
+        pane.setText("<html><body><p>" + HtmlRenderer.escape(message) + "</p></body></html>");
+    }
+
+    private File getDirectory() {
+        if(directory != null) return directory;
+
+        try {
+            File file = File.createTempFile("argopdf", ".preview");
+            if(file.delete() && file.mkdir()) {
+                directory = file;
+            }
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+        }
+        return directory;
+    }
+
+    /**
+     * Shows the generated page and removes the previous page with its images
+     */
+    private void showPage(File file) {
+        try {
+            pane.setPage(file.toURI().toURL());
+        } catch(IOException ex) {
+            LOG.debug(ex.getMessage());
+            showMessage(ex.getMessage());
+            return;
+        }
+
+        if(page != null) {
+            deletePage(page);
+        }
+        page = file;
+    }
+
+    private static void deletePage(File file) {
+        String name = file.getName();
+        delete(new File(file.getParentFile(), name.substring(0, name.lastIndexOf('.')) + "_files"));
+        file.delete();
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if(files != null) {
+            for(int i = 0; i < files.length; i++) {
+                delete(files[i]);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Shows the preview, when it is generated. All notifications are passed to the event dispatch thread.
+     */
+    private class PreviewListener implements ReportProgressListener {
+
+        private ReportJob job;
+        private File file;
+
+        private PreviewListener(File file) {
+            this.file = file;
+        }
+
+        public void reportStarted(int diagramCount) {
+        }
+
+        public void diagramProcessed(Object diagram, int processed, int diagramCount) {
+        }
+
+        public void reportFinished(final ReportResult result) {
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    if(job != PreviewPanel.this.job) {
+                        //preview was replaced by another one
+                        deletePage(file);
+                        return;
+                    }
+
+                    PreviewPanel.this.job = null;
+                    if(result.isSuccessful()) {
+                        showPage(file);
+                    } else {
+                        deletePage(file);
+                        showMessage(result.getMessage());
+                    }
+                }
+            });
+        }
+    }
+}
@@ -37,17 +37,11 @@
 // UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
 package org.argouml.argopdf.ui;
 
-import org.argouml.model.Model;
-import org.argouml.ui.explorer.rules.GoModelToElements;
-import org.argouml.uml.diagram.static_structure.ui.UMLClassDiagram;
-import org.argouml.kernel.ProjectManager;
+import org.argouml.argopdf.kernel.ReportSelection;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
 import java.util.Enumeration;
-import java.util.Collection;
-import java.util.Vector;
-import org.argouml.kernel.Project;
 
 /**
  * TreeNode is a part of a report contents tree, which is displayed in the contents
@@ -60,6 +54,14 @@ public class TreeNode extends DefaultMutableTreeNode {
 
     private boolean isSelected;
     private boolean isChildChecked;
+    //selection of the report contents and index of the represented element in it
+    private ReportSelection selection;
+    private int index = -1;
+    //true, if children of the node are created
+    private boolean isLoaded = true;
+
+    //user object of the node, which is shown instead of children, which are not created yet
+    private static final String PLACEHOLDER = "...";
 
     public TreeNode() {
         this(null);
@@ -67,33 +69,106 @@ public class TreeNode extends DefaultMutableTreeNode {
 
     public TreeNode(Object userObject) {
         this(userObject, true, false);
+    }
 
-        if(Model.getFacade().isAPackage(userObject)) {
-            // fpierre 31/08/2009 - getCurrentProject() is deprecated
-            // use getOpenProjects() instead
-            // TODO manage possible nullpointerexception on getOpenProjects().get(0)
-            // fpierre 31/08/2009 - getDiagrams() is unknown
-            // replaced by getDiagramList() ?
-            //Vector diagrams = ProjectManager.getManager().getCurrentProject().getDiagrams();
-            Project project = (Project)ProjectManager.getManager().getOpenProjects().get(0);
-            Vector diagrams = new Vector(project.getDiagramList());
-
-            for(Object el : diagrams) {
-                if (el instanceof UMLClassDiagram && userObject.equals(((UMLClassDiagram)el).getNamespace())) {
-                    this.add(new TreeNode(el));
-                }
-            }
-            ArgoPDFDialog.addSequenceCollaborationActivityDiagrams(this, userObject);
+    /**
+     * Creates tree of the report contents. Each node of the tree represents an element
+     * of the selection and has the same selection state. Only children of the root node
+     * are created at once, children of other nodes are created by <i>loadChildren()</i>
+     * method, when the node is expanded. Selection can be lazy, then contents of the package
+     * are loaded to the selection, when its node is expanded.
+     *
+     * @see TreeNodeExpansionListener
+     *
+     * @param selection selection of the report contents
+     * @return root node of the tree, which represents the project
+     */
+    public static TreeNode createContentsTree(ReportSelection selection) {
+        TreeNode root = createNode(selection, 0);
+        root.loadChildren();
+        return root;
+    }
 
-            Collection packages = (new GoModelToElements()).getChildren(userObject);
-            for(Object el : packages) {
-                if(Model.getFacade().isAPackage(el)) {
-                    this.add(new TreeNode(el));
-                }
-            }
+    private static TreeNode createNode(ReportSelection selection, int index) {
+        TreeNode node = new TreeNode(selection.getElement(index), true, selection.isSelected(index));
+        node.selection = selection;
+        node.index = index;
+
+        if(selection.getSubtreeEnd(index) > index + 1 || !selection.isLoaded(index)) {
+            //placeholder makes the node expandable until its children are created
+            node.add(new TreeNode(PLACEHOLDER, false, false));
+            node.isLoaded = false;
+        }
+
+        return node;
+    }
+
+    /**
+     * Creates children of the node, if they are not created yet. Children get the
+     * selection state, which was stored in the selection.
+     */
+    public void loadChildren() {
+        if(isLoaded) return;
+
+        int count = selection.load(index);
+        if(count > 0) {
+            //children are inserted into the selection after the element, so the following nodes are moved
+            moveIndexes((TreeNode)getRoot(), index, count);
+        }
+
+        removeAllChildren();
+        int end = selection.getSubtreeEnd(index);
+        for(int child = index + 1; child < end; child = selection.getSubtreeEnd(child)) {
+            add(createNode(selection, child));
+        }
+        isLoaded = true;
+    }
+
+    /**
+     * Moves indexes of the node and its children, which follow the element, after children of
+     * the element were inserted into the selection
+     */
+    private static void moveIndexes(TreeNode node, int index, int count) {
+        if(node.index > index) {
+            node.index += count;
+        }
+
+        for(int i = 0; i < node.getChildCount(); i++) {
+            moveIndexes((TreeNode)node.getChildAt(i), index, count);
+        }
+    }
+
+    /**
+     * @return index of the represented element in the selection, or -1 if node does not represent
+     *         an element, e.g. placeholder of the children, which are not created yet
+     */
+    public int getSelectionIndex() {
+        return index;
+    }
+
+    /**
+     * @return true, if children of the node are created
+     */
+    public boolean isLoaded() {
+        return isLoaded;
+    }
+
+    /**
+     * Stores selection state of the node and all its children in the selection, which the
+     * tree was created from. State of the children, which are not created yet, is already
+     * kept in the selection.
+     *
+     * @param node      node of the contents tree
+     * @param selection selection of the report contents
+     */
+    public static void storeSelection(TreeNode node, ReportSelection selection) {
+        if(node.index >= 0) {
+            selection.setSelected(node.index, node.isSelected());
+        }
 
+        for(int i = 0; i < node.getChildCount(); i++) {
+            storeSelection((TreeNode)node.getChildAt(i), selection);
         }
-        
     }
 
     public TreeNode(Object userObject, boolean allowsChildren, boolean isSelected) {
@@ -104,7 +179,10 @@ public class TreeNode extends DefaultMutableTreeNode {
     public void setSelected(boolean isSelected) {
         this.isSelected = isSelected;
 
-        if (children != null && !isChildChecked) {
+        if(!isLoaded) {
+            //children are not created yet, so their state is kept in the selection
+            selection.setSubtreeSelected(index, isSelected);
+        } else if (children != null && !isChildChecked) {
             Enumeration e = children.elements();
             while (e.hasMoreElements()) {
               TreeNode node = (TreeNode) e.nextElement();
@@ -0,0 +1,45 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2009 Contributors - see below
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    comp_
+ *****************************************************************************
+ */
+package org.argouml.argopdf.ui;
+
+import javax.swing.*;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeWillExpandListener;
+import javax.swing.tree.DefaultTreeModel;
+
+/**
+ * Represents expansion listener for the TreeNode. Children of the node are created
+ * only when the node is expanded for the first time, so the dialog does not create
+ * nodes for the whole model when it is opened.
+ *
+ * @version 0.1
+ */
+public class TreeNodeExpansionListener implements TreeWillExpandListener {
+
+    private JTree tree;
+
+    TreeNodeExpansionListener(JTree tree) {
+        this.tree = tree;
+    }
+
+    public void treeWillExpand(TreeExpansionEvent event) {
+        Object node = event.getPath().getLastPathComponent();
+        if(node instanceof TreeNode && !((TreeNode)node).isLoaded()) {
+            ((TreeNode)node).loadChildren();
+            ((DefaultTreeModel)tree.getModel()).nodeStructureChanged((TreeNode)node);
+        }
+    }
+
+    public void treeWillCollapse(TreeExpansionEvent event) {
+    }
+}